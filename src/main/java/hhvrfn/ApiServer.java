@@ -0,0 +1,494 @@
+package hhvrfn;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Serves one task list as a local HTTP/JSON API, so other tools can drive it without
+ * going through standard input. Requests are translated into the same commands the
+ * CLI accepts and run through {@link Parser}, one at a time, so validation, undo and
+ * messages stay identical.
+ *
+ * <p>Endpoints, all under {@code /tasks}:
+ * {@code GET /tasks} (optionally {@code ?find=KEYWORD} or {@code ?tag=A,B}),
+ * {@code POST /tasks} with {@code {"type":"todo|deadline|event","description":..,"by":..,"from":..,"to":..}},
+ * {@code POST /tasks/N/mark}, {@code POST /tasks/N/unmark},
+ * {@code POST /tasks/N/snooze} with {@code {"to":"yyyy-MM-dd"}} and {@code DELETE /tasks/N}.
+ * {@code POST /commands} with {@code {"command":"todo a; mark 1"}} runs several of these
+ * commands, written as on the command line, with one save and a {@code {"results":[..]}} answer.
+ *
+ * <p>Saves use group commit: a change is answered only once it is on disk, but a single
+ * writer thread saves whatever has accumulated since its previous save, so concurrent
+ * requests share one write instead of queueing for one each. The writer holds the list
+ * while it saves, so a merge with other processes' changes never applies to a stale copy.
+ * Connections are kept alive between requests by the JDK server.
+ */
+public final class ApiServer {
+    /** Port used when none is given. */
+    public static final int DEFAULT_PORT = 7070;
+
+    private static final int HANDLER_THREADS = 16;
+    // Read by the JDK server when it is first used; without it small responses wait for delayed ACKs.
+    private static final String NODELAY_PROPERTY = "sun.net.httpserver.nodelay";
+    private static final String JSON = "application/json; charset=utf-8";
+    private static final String COMMANDS_PATH = "/commands";
+    // Commands whose output ApiUi can render; the batch endpoint accepts these only.
+    private static final String BATCH_COMMANDS =
+            "list|find|todo|deadline|event|mark|unmark|delete|snooze|priority|next";
+
+    private final TaskList tasks;
+    private final Storage storage;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Thread writer;
+    private final CountDownLatch stopped = new CountDownLatch(1);
+
+    // Guards the list and the fields below.
+    private final Object lock = new Object();
+    // Number of changes made, and number known to be on disk.
+    private long changeSeq;
+    private long savedSeq;
+    private long failedSeq;
+    private String failure;
+    private int saveCount;
+    private boolean isRunning = true;
+
+    /**
+     * Creates a server for the given list, bound to the loopback interface.
+     * Call {@link #start()} to begin serving.
+     *
+     * @param tasks   list to serve; the server must be its only user while running
+     * @param storage storage the list was loaded from
+     * @param port    port to listen on, or 0 for any free port
+     * @throws IOException if the port cannot be bound
+     */
+    public ApiServer(TaskList tasks, Storage storage, int port) throws IOException {
+        this.tasks = tasks;
+        this.storage = storage;
+        if (System.getProperty(NODELAY_PROPERTY) == null) {
+            System.setProperty(NODELAY_PROPERTY, "true");
+        }
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 128);
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(HANDLER_THREADS, r -> {
+            Thread t = new Thread(r, "api-" + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        server.setExecutor(executor);
+        server.createContext("/tasks", this::handle);
+        server.createContext(COMMANDS_PATH, this::handle);
+        this.writer = new Thread(this::writeLoop, "api-writer");
+    }
+
+    /**
+     * Starts accepting requests.
+     */
+    public void start() {
+        writer.start();
+        server.start();
+        Logger.info("API server listening on port " + getPort());
+    }
+
+    /**
+     * Stops accepting requests and returns once every change has been saved.
+     * Further calls do nothing.
+     */
+    public void stop() {
+        synchronized (lock) {
+            if (!isRunning) {
+                return;
+            }
+            isRunning = false;
+        }
+        server.stop(0);
+        synchronized (lock) {
+            lock.notifyAll();
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        executor.shutdown();
+        stopped.countDown();
+        Logger.info("API server stopped after " + saveCount + " saves");
+    }
+
+    /**
+     * Blocks until {@link #stop()} has completed.
+     *
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void awaitStop() throws InterruptedException {
+        stopped.await();
+    }
+
+    /**
+     * Returns the port the server is bound to.
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Returns the number of saves written so far; with concurrent clients this is usually
+     * far below the number of changes.
+     */
+    public int getSaveCount() {
+        synchronized (lock) {
+            return saveCount;
+        }
+    }
+
+    /* ============================ Requests ============================= */
+
+    private void handle(HttpExchange exchange) throws IOException {
+        int status;
+        String body;
+        try (InputStream in = exchange.getRequestBody()) {
+            // Reading the whole body lets the connection be reused for the next request.
+            String requestBody = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            String path = exchange.getRequestURI().getPath();
+            boolean isBatch = path.equals(COMMANDS_PATH);
+            String command = isBatch
+                    ? toBatch(exchange.getRequestMethod(), requestBody)
+                    : toCommand(exchange.getRequestMethod(), path, exchange.getRequestURI().getRawQuery(), requestBody);
+            ApiUi ui = new ApiUi();
+            long before;
+            long seq;
+            synchronized (lock) {
+                before = changeSeq;
+                Parser.process(command, tasks, ui, new DeferredStorage(storage, this::recordChange));
+                seq = changeSeq;
+            }
+            // Requests that changed nothing have nothing to wait for, nor a failed save to report.
+            if (seq > before) {
+                awaitSaved(seq);
+            }
+            status = !isBatch && command.matches("(todo|deadline|event) .*") ? 201 : 200;
+            body = ui.toJson(isBatch);
+        } catch (ApiException e) {
+            status = e.status;
+            body = error(e.getMessage());
+        } catch (HhvrfnException e) {
+            status = 400;
+            body = error(e.getMessage());
+        }
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", JSON);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    // Checks a batch of ';'-separated commands, which Parser then runs and saves as one.
+    private static String toBatch(String method, String body) throws ApiException {
+        if (!method.equals("POST")) {
+            throw new ApiException(405, "Use POST on " + COMMANDS_PATH + ".");
+        }
+        String line = field(parseBody(body), "command");
+        for (String command : Parser.splitCommands(line)) {
+            String verb = command.trim().split(" ", 2)[0];
+            if (!verb.matches(BATCH_COMMANDS)) {
+                throw new ApiException(400, "'" + verb + "' is not available over the API.");
+            }
+        }
+        return line;
+    }
+
+    // Maps a request onto the equivalent CLI command.
+    private static String toCommand(String method, String path, String rawQuery, String body) throws ApiException {
+        String[] parts = path.replaceAll("/+$", "").split("/");
+        // parts[0] is empty and parts[1] is "tasks".
+        if (parts.length == 2) {
+            if (method.equals("GET")) {
+                String keyword = queryParameter(rawQuery, "find");
+                String tags = queryParameter(rawQuery, "tag");
+                if (tags != null) {
+                    return "list #" + escape(tags).replace(",", " #");
+                }
+                return keyword == null ? "list" : "find " + escape(keyword);
+            }
+            if (method.equals("POST")) {
+                return addCommand(parseBody(body));
+            }
+            throw new ApiException(405, "Use GET or POST on /tasks.");
+        }
+        if (parts.length < 3 || parts.length > 4 || !parts[2].matches("[0-9]{1,9}")) {
+            throw new ApiException(404, "No such resource: " + path);
+        }
+        String index = parts[2];
+        if (parts.length == 3) {
+            if (!method.equals("DELETE")) {
+                throw new ApiException(405, "Use DELETE on /tasks/N.");
+            }
+            return "delete " + index;
+        }
+        if (!parts[3].matches("mark|unmark|snooze")) {
+            throw new ApiException(404, "No such resource: " + path);
+        }
+        if (!method.equals("POST")) {
+            throw new ApiException(405, "Use POST on /tasks/N/" + parts[3] + ".");
+        }
+        switch (parts[3]) {
+        case "mark":
+        case "unmark":
+            return parts[3] + " " + index;
+        default:
+            return "snooze " + index + " /to " + escape(field(parseBody(body), "to"));
+        }
+    }
+
+    private static String addCommand(Map<String, String> fields) throws ApiException {
+        String type = field(fields, "type");
+        String description = escape(field(fields, "description"));
+        switch (type) {
+        case "todo":
+            return "todo " + description;
+        case "deadline":
+            return "deadline " + description + " /by " + escape(field(fields, "by"));
+        case "event":
+            return "event " + description + " /from " + escape(field(fields, "from"))
+                    + " /to " + escape(field(fields, "to"));
+        default:
+            throw new ApiException(400, "type must be todo, deadline or event.");
+        }
+    }
+
+    private static Map<String, String> parseBody(String body) throws ApiException {
+        try {
+            return Json.parseFlatObject(body.isBlank() ? "{}" : body);
+        } catch (IllegalArgumentException e) {
+            throw new ApiException(400, "Request body is not a flat JSON object: " + e.getMessage());
+        }
+    }
+
+    private static String field(Map<String, String> fields, String name) throws ApiException {
+        String value = fields.get(name);
+        if (value == null || value.isBlank()) {
+            throw new ApiException(400, "Missing field '" + name + "'.");
+        }
+        return value.trim();
+    }
+
+    private static String queryParameter(String rawQuery, String name) {
+        if (rawQuery == null) {
+            return null;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0 && pair.substring(0, eq).equals(name)) {
+                return URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+            }
+        }
+        return null;
+    }
+
+    // Keeps a field from being split into several commands.
+    private static String escape(String value) {
+        return value.replace(";", "\\;");
+    }
+
+    private static String error(String message) {
+        return "{\"error\":" + Json.quote(message) + "}";
+    }
+
+    /* =========================== Group commit =========================== */
+
+    // Waits until the change numbered seq (and every earlier one) is on disk.
+    private void awaitSaved(long seq) throws ApiException {
+        synchronized (lock) {
+            while (savedSeq < seq) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new ApiException(503, "Server is shutting down.");
+                }
+            }
+            if (failedSeq >= seq && failure != null) {
+                throw new ApiException(500, "The change was applied but could not be saved: " + failure);
+            }
+        }
+    }
+
+    // Called by Parser, under the lock, where it would otherwise save.
+    private void recordChange() {
+        changeSeq++;
+        lock.notifyAll();
+    }
+
+    // Saves everything changed since the previous save, until stopped with nothing left to save.
+    private void writeLoop() {
+        synchronized (lock) {
+            while (true) {
+                while (isRunning && changeSeq == savedSeq) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (changeSeq == savedSeq) {
+                    return;
+                }
+                long target = changeSeq;
+                // Saved under the lock, so that a merge with other writers' changes applies to the list as
+                // saved; changes made meanwhile wait and share the next save.
+                try {
+                    storage.save(tasks);
+                    storage.applyMerge(tasks);
+                } catch (HhvrfnException e) {
+                    failedSeq = target;
+                    failure = e.getMessage();
+                }
+                savedSeq = target;
+                saveCount++;
+                lock.notifyAll();
+            }
+        }
+    }
+
+    /** Thrown for requests that do not map onto a command. */
+    private static final class ApiException extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        private final int status;
+
+        private ApiException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    /* ============================ Responses ============================= */
+
+    /**
+     * Collects what a command shows as a JSON object instead of printing it.
+     */
+    private static final class ApiUi extends Ui {
+        // One JSON object per thing a command showed.
+        private final List<String> results = new ArrayList<>();
+
+        // A single result is the whole response; a batch answers with all of them in order.
+        private String toJson(boolean isBatch) {
+            if (!isBatch && results.size() == 1) {
+                return results.get(0);
+            }
+            return "{\"results\":[" + String.join(",", results) + "]}";
+        }
+
+        private static String task(Task t, int index) {
+            return "{" + (index > 0 ? "\"index\":" + index + "," : "")
+                    + "\"type\":" + Json.quote(t.getType().toString())
+                    + ",\"done\":" + t.isDone
+                    + ",\"priority\":" + t.getPriority()
+                    + ",\"description\":" + Json.quote(t.description)
+                    + ",\"due\":" + (t.getDueDate() == null ? "null" : Json.quote(t.getDueDate().toString()))
+                    + ",\"text\":" + Json.quote(t.toString()) + "}";
+        }
+
+        @Override
+        public void showLine() {
+            // No dividers in JSON.
+        }
+
+        @Override
+        public void showList(TaskList list) {
+            StringBuilder sb = new StringBuilder("{\"tasks\":[");
+            for (int i = 0; i < list.size(); i++) {
+                sb.append(i > 0 ? "," : "").append(task(list.get(i), i + 1));
+            }
+            results.add(sb.append("]}").toString());
+        }
+
+        @Override
+        public void showTagged(String tags, TaskList list, int[] positions) {
+            showPositions(list, positions);
+        }
+
+        @Override
+        public void showNext(TaskList list, int[] positions) {
+            showPositions(list, positions);
+        }
+
+        private void showPositions(TaskList list, int[] positions) {
+            StringBuilder sb = new StringBuilder("{\"tasks\":[");
+            for (int i = 0; i < positions.length; i++) {
+                sb.append(i > 0 ? "," : "").append(task(list.get(positions[i]), positions[i] + 1));
+            }
+            results.add(sb.append("]}").toString());
+        }
+
+        @Override
+        public void showFindResults(List<Task> matches) {
+            StringBuilder sb = new StringBuilder("{\"tasks\":[");
+            for (int i = 0; i < matches.size(); i++) {
+                sb.append(i > 0 ? "," : "").append(task(matches.get(i), 0));
+            }
+            results.add(sb.append("]}").toString());
+        }
+
+        @Override
+        public void showFindAllResults(List<Task> matches, List<Task> archived) {
+            showFindResults(matches);
+        }
+
+        @Override
+        public void showAdded(Task task, int total) {
+            results.add("{\"task\":" + task(task, total) + ",\"total\":" + total + "}");
+        }
+
+        @Override
+        public void showMarked(Task task) {
+            results.add("{\"task\":" + task(task, 0) + "}");
+        }
+
+        @Override
+        public void showUnmarked(Task task) {
+            showMarked(task);
+        }
+
+        @Override
+        public void showSnoozed(Task task) {
+            showMarked(task);
+        }
+
+        @Override
+        public void showPriority(Task task) {
+            showMarked(task);
+        }
+
+        @Override
+        public void showDeleted(Task removed, int remaining) {
+            results.add("{\"task\":" + task(removed, 0) + ",\"total\":" + remaining + "}");
+        }
+
+        @Override
+        public void showError(String message) {
+            results.add(error(message));
+        }
+
+        @Override
+        public void showSyncNotice(String message) {
+            results.add("{\"notice\":" + Json.quote(message) + "}");
+        }
+    }
+}
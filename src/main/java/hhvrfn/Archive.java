@@ -0,0 +1,88 @@
+package hhvrfn;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * The cold tier of a task list: an append-only, gzip-compressed file of archived tasks in the
+ * data-file line format. Each {@link #append(List)} adds one gzip member to the end of the file,
+ * so earlier data is never rewritten; readers decode the members as one stream. The archive is
+ * only ever scanned line by line and never loaded as a whole.
+ */
+final class Archive {
+    private final Path file;
+
+    /**
+     * Constructs an archive stored in {@code file}; the file is created on the first append.
+     *
+     * @param file path of the compressed archive
+     */
+    Archive(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Returns the path of the archive file.
+     */
+    Path getFile() {
+        return file;
+    }
+
+    /**
+     * Appends tasks to the archive as one new gzip member.
+     *
+     * @param tasks tasks to archive
+     * @throws IOException if the file cannot be written
+     */
+    void append(List<Task> tasks) throws IOException {
+        if (tasks.isEmpty()) {
+            return;
+        }
+        Path parent = file.getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        try (BufferedWriter bw = Compression.newWriter(file, Compression.Format.GZIP, Compression.configuredLevel(),
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            for (Task t : tasks) {
+                bw.write(Storage.serialize(t));
+                bw.newLine();
+            }
+        }
+    }
+
+    /**
+     * Streams the archive and collects the tasks that {@code filter} accepts, keeping only
+     * those in memory.
+     *
+     * @param filter test applied to each archived task
+     * @param sink   receives the accepted tasks, in archive order
+     * @return number of archived tasks scanned
+     * @throws IOException if the file cannot be read
+     */
+    int scan(Predicate<Task> filter, List<Task> sink) throws IOException {
+        if (!Files.exists(file)) {
+            return 0;
+        }
+        int scanned = 0;
+        try (BufferedReader br = Compression.newReader(file)) {
+            String line;
+            while ((line = br.readLine()) != null) {
+                Task t = Storage.parseLine(line);
+                if (t != null) {
+                    scanned++;
+                    if (filter.test(t)) {
+                        sink.add(t);
+                    }
+                }
+            }
+        }
+        return scanned;
+    }
+}
@@ -0,0 +1,623 @@
+package hhvrfn;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * A {@link StorageBackend} in a file of fixed-size pages arranged as a counted B+tree. Leaves
+ * hold task lines in the data-file format, in list order; every internal entry records how many
+ * tasks its subtree holds, so the task at a position is found by descending one page per level
+ * and positions shift implicitly when tasks are added or removed. Lines too long to share a leaf
+ * go to a chain of overflow pages.
+ *
+ * <p>Pages are read through an LRU cache of decoded nodes and written back when they are evicted
+ * or on {@link #commit()}. Changing a task dirties just its leaf; adding or deleting one also
+ * updates the counts on the path above it. Only the cached pages are in memory, so a list may be
+ * larger than the heap. Leaves are not merged when they underfill; one is freed when its last
+ * task goes. There is no journal: a crash in the middle of a commit can leave the file
+ * inconsistent. The file is locked while open, and the backend is not thread-safe.
+ */
+final class BTreeBackend implements StorageBackend {
+    /** Bytes per page. */
+    static final int PAGE_SIZE = 4096;
+
+    private static final int MAGIC = 0x48425431;
+    private static final byte FREE = 0;
+    private static final byte LEAF = 1;
+    private static final byte INTERNAL = 2;
+    private static final byte OVERFLOW = 3;
+    // Page type and entry count.
+    private static final int NODE_HEADER = 3;
+    // Child page and subtree count per internal entry.
+    private static final int MAX_CHILDREN = (PAGE_SIZE - NODE_HEADER) / 8;
+    // Longer lines move to overflow pages, so that any leaf split leaves both halves within a page.
+    private static final int MAX_INLINE = PAGE_SIZE / 4;
+    private static final int OVERFLOW_MARK = 0xFFFF;
+    // Page type, next page and chunk length.
+    private static final int OVERFLOW_HEADER = 7;
+    private static final int MIN_CACHE_PAGES = 16;
+    private static final int MAX_DEPTH = 16;
+
+    private final FileChannel channel;
+    private final FileLock lock;
+    private final LinkedHashMap<Integer, Node> cache;
+    private final boolean isNew;
+    private int root;
+    private int pageCount;
+    private int freeHead;
+    private int size;
+
+    /**
+     * Opens the page file, creating an empty tree if it does not exist yet.
+     *
+     * @param file       path of the page file
+     * @param cachePages most pages to keep in memory
+     * @throws IOException if the file cannot be opened, is locked by another process or is not a page file
+     */
+    BTreeBackend(Path file, int cachePages) throws IOException {
+        Path parent = file.getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        int capacity = Math.max(MIN_CACHE_PAGES, cachePages);
+        // Access-ordered; an evicted page is written back if it changed. Capacity is well above the
+        // few pages one operation touches, so no page is evicted while an operation still holds it.
+        this.cache = new LinkedHashMap<>(capacity * 4 / 3 + 1, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Node> eldest) {
+                if (size() <= capacity) {
+                    return false;
+                }
+                if (eldest.getValue().isDirty) {
+                    try {
+                        write(eldest.getValue());
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+                return true;
+            }
+        };
+        try {
+            FileLock acquired;
+            try {
+                acquired = channel.tryLock();
+            } catch (OverlappingFileLockException e) {
+                // Held by this very process, e.g. through another workspace.
+                acquired = null;
+            }
+            this.lock = acquired;
+            if (lock == null) {
+                throw new IOException(file + " is in use by another process");
+            }
+            this.isNew = channel.size() == 0;
+            if (isNew) {
+                pageCount = 1;
+                Node leaf = newNode(true);
+                root = leaf.page;
+                commit();
+            } else {
+                readHeader(file);
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns whether the file was created by this backend, i.e. held no tree before.
+     */
+    boolean isNew() {
+        return isNew;
+    }
+
+    /**
+     * Returns the number of pages in the file, including free ones.
+     */
+    int pageCount() {
+        return pageCount;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Task get(int index) {
+        checkIndex(index, size);
+        try {
+            Node node = node(root);
+            int i = index;
+            while (!node.isLeaf) {
+                int c = 0;
+                while (i >= node.counts[c]) {
+                    i -= node.counts[c];
+                    c++;
+                }
+                node = node(node.children[c]);
+            }
+            return decode(node.entries.get(i));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void append(Task task) {
+        insert(size, task);
+    }
+
+    @Override
+    public void insert(int index, Task task) {
+        checkIndex(index, size + 1);
+        try {
+            Entry entry = store(encode(task));
+            Node[] path = new Node[MAX_DEPTH];
+            int[] slots = new int[MAX_DEPTH];
+            int depth = descend(index, path, slots);
+            path[depth].entries.add(slots[depth], entry);
+            for (int d = 0; d <= depth; d++) {
+                path[d].isDirty = true;
+                if (d < depth) {
+                    path[d].counts[slots[d]]++;
+                }
+            }
+            size++;
+            splitOverfull(path, slots, depth);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void update(int index, Task task) {
+        checkIndex(index, size);
+        try {
+            Entry entry = store(encode(task));
+            Node[] path = new Node[MAX_DEPTH];
+            int[] slots = new int[MAX_DEPTH];
+            int depth = descend(index, path, slots);
+            Node leaf = path[depth];
+            release(leaf.entries.set(slots[depth], entry));
+            leaf.isDirty = true;
+            splitOverfull(path, slots, depth);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void delete(int index) {
+        checkIndex(index, size);
+        try {
+            Node[] path = new Node[MAX_DEPTH];
+            int[] slots = new int[MAX_DEPTH];
+            int depth = descend(index, path, slots);
+            release(path[depth].entries.remove(slots[depth]));
+            for (int d = 0; d <= depth; d++) {
+                path[d].isDirty = true;
+                if (d < depth) {
+                    path[d].counts[slots[d]]--;
+                }
+            }
+            size--;
+            // Frees emptied pages bottom-up; the root stays even when empty.
+            for (int d = depth; d > 0 && path[d].isEmpty(); d--) {
+                free(path[d].page);
+                path[d - 1].removeChild(slots[d - 1]);
+            }
+            Node top = node(root);
+            while (!top.isLeaf && top.childCount == 1) {
+                free(top.page);
+                root = top.children[0];
+                top = node(root);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void scan(int from, Consumer<Task> sink) {
+        checkIndex(from, size + 1);
+        try {
+            scan(root, from, sink);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void scan(int page, int skip, Consumer<Task> sink) throws IOException {
+        Node node = node(page);
+        if (node.isLeaf) {
+            for (int i = skip; i < node.entries.size(); i++) {
+                sink.accept(decode(node.entries.get(i)));
+            }
+            return;
+        }
+        for (int c = 0; c < node.childCount; c++) {
+            if (skip >= node.counts[c]) {
+                skip -= node.counts[c];
+            } else {
+                scan(node.children[c], skip, sink);
+                skip = 0;
+            }
+        }
+    }
+
+    @Override
+    public void commit() throws IOException {
+        for (Node node : cache.values()) {
+            if (node.isDirty) {
+                write(node);
+            }
+        }
+        ByteBuffer header = ByteBuffer.allocate(PAGE_SIZE);
+        header.putInt(MAGIC).putInt(PAGE_SIZE).putInt(root).putInt(pageCount).putInt(freeHead).putInt(size);
+        writePage(0, header);
+        channel.force(false);
+    }
+
+    @Override
+    public long cachedBytes() {
+        return (long) cache.size() * PAGE_SIZE;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            commit();
+        } finally {
+            lock.release();
+            channel.close();
+        }
+    }
+
+    private void readHeader(Path file) throws IOException {
+        ByteBuffer header = readPage(0);
+        if (header.getInt() != MAGIC || header.getInt() != PAGE_SIZE) {
+            throw new IOException(file + " is not a task page file");
+        }
+        root = header.getInt();
+        pageCount = header.getInt();
+        freeHead = header.getInt();
+        size = header.getInt();
+    }
+
+    // Fills path[0..depth] with the nodes from the root down to the leaf holding `index`, and slots
+    // with the child taken at each level and, last, the position within the leaf. Returns depth.
+    private int descend(int index, Node[] path, int[] slots) throws IOException {
+        Node node = node(root);
+        int i = index;
+        int depth = 0;
+        while (!node.isLeaf) {
+            int c = 0;
+            // An index equal to a subtree's count goes to the next subtree, or to the end of the last.
+            while (c < node.childCount - 1 && i >= node.counts[c]) {
+                i -= node.counts[c];
+                c++;
+            }
+            path[depth] = node;
+            slots[depth] = c;
+            depth++;
+            node = node(node.children[c]);
+        }
+        path[depth] = node;
+        slots[depth] = i;
+        return depth;
+    }
+
+    // Splits the nodes on the path that no longer fit a page, from the leaf up, growing a new root if needed.
+    private void splitOverfull(Node[] path, int[] slots, int depth) throws IOException {
+        for (int d = depth; d >= 0 && path[d].isOverfull(); d--) {
+            Node left = path[d];
+            Node right = split(left);
+            if (d == 0) {
+                Node top = newNode(false);
+                top.addChild(0, left.page, left.count());
+                top.addChild(1, right.page, right.count());
+                root = top.page;
+            } else {
+                Node parent = path[d - 1];
+                parent.counts[slots[d - 1]] = left.count();
+                parent.addChild(slots[d - 1] + 1, right.page, right.count());
+                parent.isDirty = true;
+            }
+        }
+    }
+
+    // Moves the upper half of an overfull node, by bytes for leaves and by entries otherwise, to a new node.
+    private Node split(Node node) throws IOException {
+        Node right = newNode(node.isLeaf);
+        node.isDirty = true;
+        if (node.isLeaf) {
+            int half = node.byteSize() / 2;
+            int bytes = NODE_HEADER;
+            int k = 0;
+            while (k < node.entries.size() - 1 && (k == 0 || bytes + node.entries.get(k).byteSize() <= half)) {
+                bytes += node.entries.get(k).byteSize();
+                k++;
+            }
+            right.entries.addAll(node.entries.subList(k, node.entries.size()));
+            node.entries.subList(k, node.entries.size()).clear();
+        } else {
+            int k = node.childCount / 2;
+            for (int c = k; c < node.childCount; c++) {
+                right.addChild(c - k, node.children[c], node.counts[c]);
+            }
+            node.childCount = k;
+        }
+        return right;
+    }
+
+    private Node node(int page) throws IOException {
+        Node node = cache.get(page);
+        if (node == null) {
+            node = Node.decode(page, readPage(page));
+            cache.put(page, node);
+        }
+        return node;
+    }
+
+    private Node newNode(boolean isLeaf) throws IOException {
+        Node node = new Node(allocate(), isLeaf);
+        node.isDirty = true;
+        cache.put(node.page, node);
+        return node;
+    }
+
+    // Takes a page from the free list, or grows the file by one.
+    private int allocate() throws IOException {
+        if (freeHead == 0) {
+            return pageCount++;
+        }
+        int page = freeHead;
+        ByteBuffer buffer = readPage(page);
+        buffer.get();
+        freeHead = buffer.getInt();
+        return page;
+    }
+
+    private void free(int page) throws IOException {
+        cache.remove(page);
+        ByteBuffer buffer = ByteBuffer.allocate(PAGE_SIZE);
+        buffer.put(FREE).putInt(freeHead);
+        writePage(page, buffer);
+        freeHead = page;
+    }
+
+    private Entry store(byte[] line) throws IOException {
+        if (line.length <= MAX_INLINE) {
+            return new Entry(line, 0);
+        }
+        int chunk = PAGE_SIZE - OVERFLOW_HEADER;
+        int[] pages = new int[(line.length + chunk - 1) / chunk];
+        for (int i = 0; i < pages.length; i++) {
+            pages[i] = allocate();
+        }
+        for (int i = 0; i < pages.length; i++) {
+            int from = i * chunk;
+            int length = Math.min(chunk, line.length - from);
+            ByteBuffer buffer = ByteBuffer.allocate(PAGE_SIZE);
+            buffer.put(OVERFLOW).putInt(i + 1 < pages.length ? pages[i + 1] : 0).putShort((short) length);
+            buffer.put(line, from, length);
+            writePage(pages[i], buffer);
+        }
+        return new Entry(new byte[0], pages[0], line.length);
+    }
+
+    // Frees the overflow pages of an entry that is no longer referenced.
+    private void release(Entry entry) throws IOException {
+        int page = entry.overflowPage;
+        while (page != 0) {
+            ByteBuffer buffer = readPage(page);
+            buffer.get();
+            int next = buffer.getInt();
+            free(page);
+            page = next;
+        }
+    }
+
+    private Task decode(Entry entry) throws IOException {
+        byte[] line = entry.line;
+        if (entry.overflowPage != 0) {
+            line = new byte[entry.length];
+            int at = 0;
+            for (int page = entry.overflowPage; page != 0; ) {
+                ByteBuffer buffer = readPage(page);
+                buffer.get();
+                page = buffer.getInt();
+                int length = buffer.getShort() & 0xFFFF;
+                buffer.get(line, at, length);
+                at += length;
+            }
+        }
+        Task task = Storage.parseLine(new String(line, StandardCharsets.UTF_8));
+        if (task == null) {
+            throw new IOException("Corrupted task line in page file");
+        }
+        return task;
+    }
+
+    private static byte[] encode(Task task) {
+        return Storage.serialize(task).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private void write(Node node) throws IOException {
+        writePage(node.page, node.encode());
+        node.isDirty = false;
+    }
+
+    private ByteBuffer readPage(int page) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(PAGE_SIZE);
+        long position = (long) page * PAGE_SIZE;
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Page file ends inside page " + page);
+            }
+        }
+        return buffer.flip();
+    }
+
+    private void writePage(int page, ByteBuffer buffer) throws IOException {
+        buffer.clear();
+        long position = (long) page * PAGE_SIZE;
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, position + buffer.position());
+        }
+    }
+
+    private static void checkIndex(int index, int bound) {
+        if (index < 0 || index >= bound) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + bound);
+        }
+    }
+
+    /** One task line in a leaf: inline bytes, or the length and first page of an overflow chain. */
+    private static final class Entry {
+        private final byte[] line;
+        private final int overflowPage;
+        private final int length;
+
+        private Entry(byte[] line, int overflowPage) {
+            this(line, overflowPage, line.length);
+        }
+
+        private Entry(byte[] line, int overflowPage, int length) {
+            this.line = line;
+            this.overflowPage = overflowPage;
+            this.length = length;
+        }
+
+        private int byteSize() {
+            return overflowPage != 0 ? 10 : 2 + line.length;
+        }
+    }
+
+    /** A decoded page: a leaf of entries, or an internal node of children and their subtree counts. */
+    private static final class Node {
+        private final int page;
+        private final boolean isLeaf;
+        private final ArrayList<Entry> entries = new ArrayList<>();
+        // One spare slot, so a node may hold one child too many until it is split.
+        private int[] children;
+        private int[] counts;
+        private int childCount;
+        private boolean isDirty;
+
+        private Node(int page, boolean isLeaf) {
+            this.page = page;
+            this.isLeaf = isLeaf;
+            if (!isLeaf) {
+                children = new int[MAX_CHILDREN + 1];
+                counts = new int[MAX_CHILDREN + 1];
+            }
+        }
+
+        private boolean isEmpty() {
+            return isLeaf ? entries.isEmpty() : childCount == 0;
+        }
+
+        private boolean isOverfull() {
+            return isLeaf ? byteSize() > PAGE_SIZE : childCount > MAX_CHILDREN;
+        }
+
+        private int count() {
+            if (isLeaf) {
+                return entries.size();
+            }
+            int total = 0;
+            for (int c = 0; c < childCount; c++) {
+                total += counts[c];
+            }
+            return total;
+        }
+
+        private int byteSize() {
+            int bytes = NODE_HEADER;
+            for (Entry e : entries) {
+                bytes += e.byteSize();
+            }
+            return bytes;
+        }
+
+        private void addChild(int at, int child, int count) {
+            System.arraycopy(children, at, children, at + 1, childCount - at);
+            System.arraycopy(counts, at, counts, at + 1, childCount - at);
+            children[at] = child;
+            counts[at] = count;
+            childCount++;
+            isDirty = true;
+        }
+
+        private void removeChild(int at) {
+            System.arraycopy(children, at + 1, children, at, childCount - at - 1);
+            System.arraycopy(counts, at + 1, counts, at, childCount - at - 1);
+            childCount--;
+            isDirty = true;
+        }
+
+        private ByteBuffer encode() {
+            ByteBuffer buffer = ByteBuffer.allocate(PAGE_SIZE);
+            if (isLeaf) {
+                buffer.put(LEAF).putShort((short) entries.size());
+                for (Entry e : entries) {
+                    if (e.overflowPage != 0) {
+                        buffer.putShort((short) OVERFLOW_MARK).putInt(e.length).putInt(e.overflowPage);
+                    } else {
+                        buffer.putShort((short) e.line.length).put(e.line);
+                    }
+                }
+            } else {
+                buffer.put(INTERNAL).putShort((short) childCount);
+                for (int c = 0; c < childCount; c++) {
+                    buffer.putInt(children[c]).putInt(counts[c]);
+                }
+            }
+            return buffer;
+        }
+
+        private static Node decode(int page, ByteBuffer buffer) throws IOException {
+            byte type = buffer.get();
+            if (type != LEAF && type != INTERNAL) {
+                throw new IOException("Page " + page + " is not a tree node");
+            }
+            Node node = new Node(page, type == LEAF);
+            int n = buffer.getShort() & 0xFFFF;
+            for (int i = 0; i < n; i++) {
+                if (node.isLeaf) {
+                    int length = buffer.getShort() & 0xFFFF;
+                    if (length == OVERFLOW_MARK) {
+                        int total = buffer.getInt();
+                        node.entries.add(new Entry(new byte[0], buffer.getInt(), total));
+                    } else {
+                        byte[] line = new byte[length];
+                        buffer.get(line);
+                        node.entries.add(new Entry(line, 0));
+                    }
+                } else {
+                    node.children[i] = buffer.getInt();
+                    node.counts[i] = buffer.getInt();
+                }
+            }
+            node.childCount = node.isLeaf ? 0 : n;
+            return node;
+        }
+    }
+}
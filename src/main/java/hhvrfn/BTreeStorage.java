@@ -0,0 +1,112 @@
+package hhvrfn;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+
+/**
+ * Storage for a list kept in a {@link BTreeBackend} page file, {@code FILE.btree}, next to the
+ * text file it stands in for. The list reads and writes its tasks through the backend, so a
+ * save only commits the pages changed since the previous one. Opening a new page file imports
+ * the text file's tasks; the text file itself is left alone. The page file is locked while open,
+ * so other processes cannot share the list, and there is nothing to merge or refresh.
+ */
+final class BTreeStorage extends Storage {
+    /** Appended to the text file's name to name the page file. */
+    static final String PAGE_FILE_SUFFIX = ".btree";
+
+    private static final long DEFAULT_CACHE_MB = 8;
+
+    private final Path pageFile;
+    private BTreeBackend backend;
+
+    /**
+     * Constructs a storage whose page file sits next to the given text file path.
+     *
+     * @param relativePath path of the list's text file, e.g. "./data/hhvrfn.txt"
+     */
+    BTreeStorage(String relativePath) {
+        super(relativePath);
+        this.pageFile = Paths.get(relativePath + PAGE_FILE_SUFFIX);
+    }
+
+    @Override
+    public TaskList newList() throws HhvrfnException {
+        if (backend == null) {
+            long cacheBytes = Long.getLong(PAGE_CACHE_PROPERTY, DEFAULT_CACHE_MB) * 1024 * 1024;
+            try {
+                backend = new BTreeBackend(pageFile, (int) (cacheBytes / BTreeBackend.PAGE_SIZE));
+            } catch (IOException e) {
+                Logger.error("Failed to open page file", e);
+                throw new HhvrfnException("Cannot load data: " + e.getMessage());
+            }
+        }
+        return TaskList.onBackend(backend);
+    }
+
+    @Override
+    public void loadInto(TaskList target) throws HhvrfnException {
+        if (backend.isNew() && backend.size() == 0) {
+            Logger.info("Importing tasks into new page file: " + pageFile);
+            super.loadInto(target);
+            super.stopWatching();
+            save(target);
+        } else {
+            target.clearHistory();
+        }
+        Logger.info("Opened " + backend.size() + " tasks in " + backend.pageCount() + " pages: " + pageFile);
+    }
+
+    @Override
+    public void save(ArrayList<Task> tasks) throws HhvrfnException {
+        commit();
+    }
+
+    @Override
+    public void save(TaskList tasks) throws HhvrfnException {
+        commit();
+    }
+
+    @Override
+    public boolean savesInPlace() {
+        return true;
+    }
+
+    @Override
+    public boolean applyMerge(TaskList tasks) {
+        return false;
+    }
+
+    @Override
+    public boolean refresh(TaskList tasks) {
+        return false;
+    }
+
+    @Override
+    public void close() {
+        super.close();
+        if (backend == null) {
+            return;
+        }
+        try {
+            backend.close();
+        } catch (IOException | UncheckedIOException e) {
+            Logger.error("Failed to close page file " + pageFile, e);
+        }
+        backend = null;
+    }
+
+    private void commit() throws HhvrfnException {
+        if (backend == null) {
+            return;
+        }
+        try {
+            backend.commit();
+        } catch (IOException | UncheckedIOException e) {
+            Logger.error("Failed to commit page file", e);
+            throw new HhvrfnException("Cannot save data: " + e.getMessage());
+        }
+    }
+}
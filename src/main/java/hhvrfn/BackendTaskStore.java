@@ -0,0 +1,100 @@
+package hhvrfn;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+
+/**
+ * Task store that keeps nothing itself and reads and writes every task through a
+ * {@link StorageBackend}, so the list lives wherever the backend keeps it. Tasks returned by
+ * {@link #get(int)} are detached copies; each state change reads the task, applies the
+ * change and writes it back as one point update.
+ */
+class BackendTaskStore implements TaskStore {
+    private final StorageBackend backend;
+
+    BackendTaskStore(StorageBackend backend) {
+        this.backend = backend;
+    }
+
+    @Override
+    public int size() {
+        return backend.size();
+    }
+
+    @Override
+    public Task get(int index) {
+        return backend.get(index);
+    }
+
+    @Override
+    public void add(Task task) {
+        backend.append(task);
+    }
+
+    @Override
+    public void insert(int index, Task task) {
+        backend.insert(index, task);
+    }
+
+    @Override
+    public void replace(int index, Task task) {
+        backend.update(index, task);
+    }
+
+    @Override
+    public Task remove(int index) {
+        Task t = backend.get(index);
+        backend.delete(index);
+        return t;
+    }
+
+    @Override
+    public void setDone(int index, boolean isDone) {
+        Task t = backend.get(index);
+        if (isDone) {
+            t.markAsDone();
+        } else {
+            t.markAsNotDone();
+        }
+        backend.update(index, t);
+    }
+
+    @Override
+    public void setDoneOn(int index, LocalDate date) {
+        Task t = backend.get(index);
+        t.doneOn = date;
+        backend.update(index, t);
+    }
+
+    @Override
+    public void reschedule(int index, LocalDate newDate) {
+        Deadline d = (Deadline) backend.get(index);
+        d.reschedule(newDate);
+        backend.update(index, d);
+    }
+
+    @Override
+    public void setPriority(int index, int priority) {
+        Task t = backend.get(index);
+        t.setPriority(priority);
+        backend.update(index, t);
+    }
+
+    @Override
+    public boolean allowsConcurrentReads() {
+        // A read may load a page into the backend's cache and evict another.
+        return false;
+    }
+
+    @Override
+    public long footprintBytes() {
+        return backend.cachedBytes();
+    }
+
+    @Override
+    public ArrayList<Task> asList() {
+        ArrayList<Task> all = new ArrayList<>(backend.size());
+        backend.scan(0, all::add);
+        return all;
+    }
+}
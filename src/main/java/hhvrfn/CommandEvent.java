@@ -0,0 +1,31 @@
+package hhvrfn;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event for one command run by {@link Parser}, from parsing to the end of its
+ * save, including the workspace commands. The single save at the end of a {@code ;}-separated
+ * line gets an event of its own named {@code save}, one per list it writes. Like every JFR
+ * event it costs next to nothing while no recording is running.
+ */
+@Name("hhvrfn.Command")
+@Label("Command")
+@Category({"Hhvrfn", "Commands"})
+@Description("A command entered by the user, with the list size after it")
+@StackTrace(false)
+class CommandEvent extends jdk.jfr.Event {
+    @Label("Command")
+    @Description("First word of the command, e.g. todo or list")
+    protected String command;
+
+    @Label("Task Count")
+    protected int taskCount;
+
+    @Label("Failed")
+    @Description("Whether the command was rejected with an error")
+    protected boolean isFailed;
+}
@@ -0,0 +1,150 @@
+package hhvrfn;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Streams data files that may be compressed. The format of an existing file is recognised
+ * by its first bytes (gzip starts with {@code 1f 8b}, zlib-wrapped deflate with a header whose
+ * first two bytes are a multiple of 31), so plain and compressed files read the same way.
+ * Compression happens on the fly through {@code java.util.zip}; no file is ever held in memory.
+ */
+final class Compression {
+    /** How a data file is encoded on disk. */
+    enum Format {
+        PLAIN, GZIP, DEFLATE;
+
+        /**
+         * Returns the format with the given name, ignoring case, or null if there is none.
+         */
+        static Format of(String name) {
+            for (Format f : values()) {
+                if (f.name().equalsIgnoreCase(name)) {
+                    return f;
+                }
+            }
+            return null;
+        }
+    }
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private Compression() { }
+
+    /**
+     * Returns the format requested by {@link Storage#COMPRESS_PROPERTY}, or null to keep each
+     * file's current format.
+     */
+    static Format configuredFormat() {
+        String name = System.getProperty(Storage.COMPRESS_PROPERTY);
+        return name == null ? null : Format.of(name);
+    }
+
+    /**
+     * Returns the deflate level from {@link Storage#COMPRESS_LEVEL_PROPERTY}: 1 (fastest) to 9
+     * (smallest), defaulting to zlib's own default of 6.
+     */
+    static int configuredLevel() {
+        int level = Integer.getInteger(Storage.COMPRESS_LEVEL_PROPERTY, 6);
+        return Math.max(Deflater.BEST_SPEED, Math.min(Deflater.BEST_COMPRESSION, level));
+    }
+
+    /**
+     * Detects the format of a file from its first two bytes. Missing or empty files are plain.
+     *
+     * @param file file to inspect
+     * @return the detected format
+     * @throws IOException if the file exists but cannot be read
+     */
+    static Format detect(Path file) throws IOException {
+        if (!Files.exists(file)) {
+            return Format.PLAIN;
+        }
+        byte[] head = new byte[2];
+        int n;
+        try (InputStream in = Files.newInputStream(file)) {
+            n = in.readNBytes(head, 0, 2);
+        }
+        if (n < 2) {
+            return Format.PLAIN;
+        }
+        int b0 = head[0] & 0xff;
+        int b1 = head[1] & 0xff;
+        if (b0 == 0x1f && b1 == 0x8b) {
+            return Format.GZIP;
+        }
+        // zlib: compression method 8 in the low nibble and a header checksum; no task line starts like this.
+        if ((b0 & 0x0f) == 8 && (b0 >> 4) <= 7 && ((b0 << 8) | b1) % 31 == 0) {
+            return Format.DEFLATE;
+        }
+        return Format.PLAIN;
+    }
+
+    /**
+     * Opens a file for reading lines, decompressing it if its first bytes say so.
+     *
+     * @param file file to read
+     * @return a reader over the decoded text
+     * @throws IOException if the file cannot be opened
+     */
+    static BufferedReader newReader(Path file) throws IOException {
+        Format format = detect(file);
+        InputStream in = new BufferedInputStream(Files.newInputStream(file), BUFFER_SIZE);
+        if (format == Format.GZIP) {
+            in = new GZIPInputStream(in, BUFFER_SIZE);
+        } else if (format == Format.DEFLATE) {
+            in = new InflaterInputStream(in);
+        }
+        return new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), BUFFER_SIZE);
+    }
+
+    /**
+     * Opens a file for writing lines in the given format.
+     *
+     * @param file    file to write
+     * @param format  encoding to write
+     * @param level   deflate level for the compressed formats
+     * @param options how to open the file, e.g. APPEND; none truncates
+     * @return a writer that encodes as it goes; closing it finishes the stream
+     * @throws IOException if the file cannot be opened
+     */
+    static BufferedWriter newWriter(Path file, Format format, int level, OpenOption... options) throws IOException {
+        OutputStream out = Files.newOutputStream(file, options);
+        if (format == Format.GZIP) {
+            out = new GZIPOutputStream(out, BUFFER_SIZE) {
+                {
+                    def.setLevel(level);
+                }
+            };
+        } else if (format == Format.DEFLATE) {
+            Deflater deflater = new Deflater(level);
+            out = new DeflaterOutputStream(out, deflater, BUFFER_SIZE) {
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        // A deflater passed in is not released by the stream itself.
+                        deflater.end();
+                    }
+                }
+            };
+        }
+        return new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+    }
+}
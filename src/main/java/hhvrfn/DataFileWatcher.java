@@ -0,0 +1,88 @@
+package hhvrfn;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Watches one data file with a {@link WatchService} and remembers whether it may have
+ * changed since the last check, so callers only stat or re-read the file after an event.
+ * Events caused by our own saves are filtered out later by comparing file attributes.
+ */
+final class DataFileWatcher implements Closeable {
+    private final WatchService service;
+    private final Path fileName;
+    // Starts raised so the first check always looks at the file.
+    private final AtomicBoolean isDirty = new AtomicBoolean(true);
+
+    private DataFileWatcher(WatchService service, Path fileName) {
+        this.service = service;
+        this.fileName = fileName;
+    }
+
+    /**
+     * Starts watching {@code file} on a daemon thread.
+     *
+     * @param file the data file
+     * @return the watcher, or null if the file system does not support watching
+     */
+    static DataFileWatcher start(Path file) {
+        Path dir = file.toAbsolutePath().getParent();
+        try {
+            WatchService service = FileSystems.getDefault().newWatchService();
+            dir.register(service, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY,
+                    StandardWatchEventKinds.ENTRY_DELETE);
+            DataFileWatcher watcher = new DataFileWatcher(service, file.getFileName());
+            Thread thread = new Thread(watcher::run, "hhvrfn-watch-" + file.getFileName());
+            thread.setDaemon(true);
+            thread.start();
+            return watcher;
+        } catch (IOException | UnsupportedOperationException e) {
+            Logger.warn("Cannot watch " + file + " for changes; falling back to checks on save: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Returns whether the file may have changed since the previous call, and resets the flag.
+     */
+    boolean consumeChange() {
+        return isDirty.getAndSet(false);
+    }
+
+    @Override
+    public void close() {
+        try {
+            service.close();
+        } catch (IOException e) {
+            Logger.warn("Failed to close file watcher: " + e.getMessage());
+        }
+    }
+
+    private void run() {
+        try {
+            while (true) {
+                WatchKey key = service.take();
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    Object context = event.context();
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW || fileName.equals(context)) {
+                        isDirty.set(true);
+                    }
+                }
+                if (!key.reset()) {
+                    isDirty.set(true);
+                    return;
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Watcher closed; nothing left to do.
+        }
+    }
+}
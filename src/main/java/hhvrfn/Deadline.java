@@ -7,6 +7,8 @@ import java.time.format.DateTimeFormatter;
  * Represents a task that should be done by a specific time.
  */
 public class Deadline extends Task {
+    private static final DateTimeFormatter PRETTY = DateTimeFormatter.ofPattern("MMM d yyyy");
+
     protected LocalDate by;
 
     /**
@@ -28,17 +30,23 @@ public class Deadline extends Task {
     public void reschedule(LocalDate newDate) {
         assert newDate != null : "Deadline.reschedule: newDate must be non-null";
         this.by = newDate;
+        invalidateDisplay();
+    }
+
+    @Override
+    public LocalDate getDueDate() {
+        return by;
     }
 
     /**
-     * Returns the string representation of this deadline task.
+     * Builds the string representation of this deadline task.
      *
      * @return The string representation including the due time.
      */
     @Override
-    public String toString() {
+    protected String render() {
         // Display as "Oct 15 2019"
-        String pretty = by.format(DateTimeFormatter.ofPattern("MMM d yyyy"));
+        String pretty = by.format(PRETTY);
         return "[" + type + "][" + getStatusIcon() + "] " + description + " (by: " + pretty + ")";
     }
 }
@@ -0,0 +1,100 @@
+package hhvrfn;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Stands in for a {@link Storage} while several changes are collected into one save.
+ * Its saves write nothing and only report that there is something to save; whoever
+ * collects the changes then saves the list through the real storage. Everything else,
+ * such as archiving and searching the archive, goes to the real storage.
+ */
+final class DeferredStorage extends Storage {
+    private final Storage target;
+    private final Runnable onSave;
+
+    /**
+     * Constructs a stand-in for {@code target} that calls {@code onSave} whenever a save is requested.
+     *
+     * @param target the storage the list belongs to
+     * @param onSave called instead of writing
+     */
+    DeferredStorage(Storage target, Runnable onSave) {
+        // The inherited file fields are never used: every public method is forwarded or deferred.
+        super("N/A");
+        this.target = target;
+        this.onSave = onSave;
+    }
+
+    @Override
+    public ArrayList<Task> load() throws HhvrfnException {
+        return target.load();
+    }
+
+    @Override
+    public TaskList newList() throws HhvrfnException {
+        return target.newList();
+    }
+
+    @Override
+    public void loadInto(TaskList tasks) throws HhvrfnException {
+        target.loadInto(tasks);
+    }
+
+    @Override
+    public void save(ArrayList<Task> tasks) {
+        onSave.run();
+    }
+
+    @Override
+    public void save(TaskList tasks) {
+        // Also deferred, and without the copy the inherited overload would make.
+        onSave.run();
+    }
+
+    @Override
+    public boolean savesInPlace() {
+        return target.savesInPlace();
+    }
+
+    @Override
+    public boolean applyMerge(TaskList tasks) {
+        return false;
+    }
+
+    @Override
+    public boolean refresh(TaskList tasks) throws HhvrfnException {
+        return target.refresh(tasks);
+    }
+
+    @Override
+    public int archive(TaskList tasks, LocalDate cutoff) throws HhvrfnException {
+        return target.archive(tasks, cutoff);
+    }
+
+    @Override
+    public List<Task> findArchived(String keyword) throws HhvrfnException {
+        return target.findArchived(keyword);
+    }
+
+    @Override
+    int getLastSegmentWrites() {
+        return target.getLastSegmentWrites();
+    }
+
+    @Override
+    public StringPool.Stats getLastLoadStats() {
+        return target.getLastLoadStats();
+    }
+
+    @Override
+    public void stopWatching() {
+        // The real storage's watcher belongs to whoever opened it.
+    }
+
+    @Override
+    public void close() {
+        // As for stopWatching(): closing is left to the owner.
+    }
+}
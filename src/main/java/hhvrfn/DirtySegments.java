@@ -0,0 +1,62 @@
+package hhvrfn;
+
+import java.util.BitSet;
+
+/**
+ * Tracks which segments of a list, runs of {@code segmentSize} consecutive positions, changed
+ * since the last {@link #clear()}, as a {@link TaskListener}. A task changed in place dirties
+ * its own segment; an insertion or removal moves every later task, so it dirties its segment
+ * and all the ones after it.
+ */
+final class DirtySegments implements TaskListener {
+    private final int segmentSize;
+    private final BitSet updated = new BitSet();
+    // Lowest position inserted or removed at; every segment from its one on is dirty.
+    private int firstShifted = Integer.MAX_VALUE;
+
+    /**
+     * Constructs a tracker with nothing dirty.
+     *
+     * @param segmentSize positions per segment
+     */
+    DirtySegments(int segmentSize) {
+        this.segmentSize = segmentSize;
+    }
+
+    /**
+     * Returns the number of positions per segment.
+     */
+    int segmentSize() {
+        return segmentSize;
+    }
+
+    /**
+     * Returns whether the segment with the given number changed.
+     */
+    boolean isDirty(int segment) {
+        return updated.get(segment) || segment >= firstShifted / segmentSize;
+    }
+
+    /**
+     * Forgets all changes, e.g. once the dirty segments have been saved.
+     */
+    void clear() {
+        updated.clear();
+        firstShifted = Integer.MAX_VALUE;
+    }
+
+    @Override
+    public void taskInserted(int index, Task task) {
+        firstShifted = Math.min(firstShifted, index);
+    }
+
+    @Override
+    public void taskRemoved(int index, Task task) {
+        firstShifted = Math.min(firstShifted, index);
+    }
+
+    @Override
+    public void taskUpdated(int index, Task task) {
+        updated.set(index / segmentSize);
+    }
+}
@@ -1,11 +1,31 @@
 package hhvrfn;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
 /**
  * Represents a task that has a start time and an end time.
+ * When both times are dates or date-times (e.g. "2019-10-15 1400"), the event also carries
+ * typed bounds that can be indexed and are stored in ISO form; otherwise the free-form
+ * text is kept as entered.
  */
 public class Event extends Task {
+    private static final DateTimeFormatter PRETTY = DateTimeFormatter.ofPattern("MMM d yyyy HH:mm");
+    // Minute precision is all the commands accept, so seconds are not stored.
+    private static final DateTimeFormatter STORED = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm");
+    private static final DateTimeFormatter[] DATE_TIME_INPUTS = {
+        DateTimeFormatter.ISO_LOCAL_DATE_TIME,
+        DateTimeFormatter.ofPattern("yyyy-MM-dd HHmm"),
+        DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm"),
+    };
+
     protected String from;
     protected String to;
+    protected LocalDateTime start;
+    protected LocalDateTime end;
 
     /**
      * Constructs an event task with the given description, start time, and end time.
@@ -16,18 +36,80 @@ public class Event extends Task {
      */
     public Event(String description, String from, String to) {
         super(description, TaskType.EVENT);
-        this.from = from;
-        this.to = to;
+        LocalDateTime parsedStart = parseBound(from, false);
+        LocalDateTime parsedEnd = parseBound(to, true);
+        if (parsedStart != null && parsedEnd != null) {
+            this.start = parsedStart;
+            this.end = parsedEnd;
+            this.from = parsedStart.format(STORED);
+            this.to = parsedEnd.format(STORED);
+        } else {
+            this.from = from;
+            this.to = to;
+        }
+    }
+
+    /**
+     * Returns whether this event has typed start and end bounds.
+     *
+     * @return true if both bounds were parsed as dates or date-times
+     */
+    public boolean hasTypedBounds() {
+        return start != null;
+    }
+
+    /**
+     * Returns the typed start bound, or null for a free-form event.
+     */
+    public LocalDateTime getStart() {
+        return start;
+    }
+
+    /**
+     * Returns the typed end bound, or null for a free-form event.
+     */
+    public LocalDateTime getEnd() {
+        return end;
+    }
+
+    /**
+     * Parses a date or date-time bound such as "2019-10-15", "2019-10-15 1400" or "2019-10-15T14:00".
+     * A bare date means the start of the day, or its last minute when {@code isEnd} is set.
+     *
+     * @param text  text to parse (may be null)
+     * @param isEnd whether the bound closes an interval
+     * @return the parsed bound, or null if the text is not a recognised date or date-time
+     */
+    static LocalDateTime parseBound(String text, boolean isEnd) {
+        if (text == null) {
+            return null;
+        }
+        String trimmed = text.trim();
+        for (DateTimeFormatter f : DATE_TIME_INPUTS) {
+            try {
+                return LocalDateTime.parse(trimmed, f);
+            } catch (DateTimeParseException e) {
+                // try the next accepted format
+            }
+        }
+        try {
+            LocalDate date = LocalDate.parse(trimmed);
+            return isEnd ? date.atTime(LocalTime.of(23, 59)) : date.atStartOfDay();
+        } catch (DateTimeParseException e) {
+            return null;
+        }
     }
 
     /**
-     * Returns the string representation of this event task.
+     * Builds the string representation of this event task.
      *
      * @return The string representation including the start and end time.
      */
     @Override
-    public String toString() {
+    protected String render() {
+        String shownFrom = start != null ? start.format(PRETTY) : from;
+        String shownTo = end != null ? end.format(PRETTY) : to;
         return "[" + type + "][" + getStatusIcon() + "] " + description
-                + " (from: " + from + " to: " + to + ")";
+                + " (from: " + shownFrom + " to: " + shownTo + ")";
     }
 }
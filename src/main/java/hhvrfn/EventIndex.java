@@ -0,0 +1,92 @@
+package hhvrfn;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * The events with typed bounds of a list in an {@link IntervalTree} keyed by epoch second,
+ * kept current as a {@link TaskListener}. Adding, removing or rescheduling an event changes
+ * one interval in O(log n); tasks that are not such events never touch the tree. Inserting or
+ * removing anywhere but the end also renumbers the later events, a linear pass over the
+ * positions that leaves the tree's shape intact.
+ */
+final class EventIndex implements TaskListener {
+    private final IntervalTree tree = new IntervalTree();
+    // Per position: the event's interval, or null for other tasks.
+    private IntervalTree.Interval[] byPosition = new IntervalTree.Interval[16];
+    private int size;
+
+    /**
+     * Reports the positions of the events overlapping {@code [from, to]}, in order of start.
+     *
+     * @param from  window start (inclusive)
+     * @param to    window end (inclusive)
+     * @param visit receives the positions
+     */
+    void query(LocalDateTime from, LocalDateTime to, IntConsumer visit) {
+        tree.query(epochSecond(from), epochSecond(to), visit);
+    }
+
+    @Override
+    public void taskInserted(int index, Task task) {
+        if (size == byPosition.length) {
+            byPosition = Arrays.copyOf(byPosition, size * 2);
+        }
+        if (index < size) {
+            System.arraycopy(byPosition, index, byPosition, index + 1, size - index);
+        }
+        size++;
+        renumber(index + 1, 1);
+        byPosition[index] = add(index, task);
+    }
+
+    @Override
+    public void taskRemoved(int index, Task task) {
+        if (byPosition[index] != null) {
+            tree.remove(byPosition[index]);
+        }
+        size--;
+        System.arraycopy(byPosition, index + 1, byPosition, index, size - index);
+        byPosition[size] = null;
+        renumber(index, -1);
+    }
+
+    @Override
+    public void taskUpdated(int index, Task task) {
+        IntervalTree.Interval old = byPosition[index];
+        if (old != null && isTyped(task) && old.getStart() == epochSecond(((Event) task).getStart())
+                && old.getEnd() == epochSecond(((Event) task).getEnd())) {
+            return;
+        }
+        if (old != null) {
+            tree.remove(old);
+        }
+        byPosition[index] = add(index, task);
+    }
+
+    private IntervalTree.Interval add(int index, Task task) {
+        if (!isTyped(task)) {
+            return null;
+        }
+        Event e = (Event) task;
+        return tree.add(epochSecond(e.getStart()), epochSecond(e.getEnd()), index);
+    }
+
+    private void renumber(int from, int delta) {
+        for (int i = from; i < size; i++) {
+            if (byPosition[i] != null) {
+                byPosition[i].shiftId(delta);
+            }
+        }
+    }
+
+    private static boolean isTyped(Task task) {
+        return task instanceof Event && ((Event) task).hasTypedBounds();
+    }
+
+    private static long epochSecond(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,437 @@
+package hhvrfn;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Typo-tolerant word index over task descriptions.
+ * Descriptions are split into lower-case words; every distinct word is stored once, with a
+ * posting list of the tasks that contain it, and is indexed by its trigrams (the word padded
+ * with a boundary marker on each side). A query word is compared with edit distance only
+ * against words sharing enough trigrams with it, so the cost of a query depends on the
+ * vocabulary that looks similar rather than on the number of tasks.
+ *
+ * <p>The index follows the list as a {@link TaskListener}. Posting lists hold entry numbers
+ * rather than positions, so adding a task only appends to the postings of its own words and
+ * removing one just marks its entry dead. Inserting or removing anywhere but the end renumbers
+ * the later positions, a linear pass over an int array. Once dead entries outnumber live
+ * ones, the postings and vocabulary are compacted.
+ */
+final class FuzzyIndex implements TaskListener {
+    private static final char BOUNDARY = '\u0001';
+    // Dead entries tolerated before compacting, whatever the list size.
+    private static final int MIN_DEAD_TO_COMPACT = 1024;
+
+    private Map<String, Integer> wordIds = new HashMap<>();
+    private List<String> words = new ArrayList<>();
+    private List<IntBuffer> postings = new ArrayList<>();
+    private Map<Long, IntBuffer> trigramWords = new HashMap<>();
+    // Per entry: the task's position, or -1 once it is gone, and the hash of its description.
+    private int[] positionOf = new int[16];
+    private long[] descriptionHash = new long[16];
+    private int entryCount;
+    private int deadCount;
+    // Per position: the entry holding the task's words.
+    private int[] entryAt = new int[16];
+    private int size;
+    // Search scratch, per entry: query words matched, their summed distance and the distance of the
+    // current word. Kept between queries and zeroed again for just the entries a query touched.
+    private int[] matched = new int[0];
+    private int[] total = new int[0];
+    private int[] current = new int[0];
+
+    /**
+     * A ranked match: the task position and the summed edit distance of the query words.
+     */
+    static final class Match {
+        private final int position;
+        private final int distance;
+
+        private Match(int position, int distance) {
+            this.position = position;
+            this.distance = distance;
+        }
+
+        int getPosition() {
+            return position;
+        }
+
+        int getDistance() {
+            return distance;
+        }
+    }
+
+    @Override
+    public void taskInserted(int index, Task task) {
+        if (size == entryAt.length) {
+            entryAt = Arrays.copyOf(entryAt, size * 2);
+        }
+        if (index < size) {
+            System.arraycopy(entryAt, index, entryAt, index + 1, size - index);
+        }
+        size++;
+        renumber(index + 1, 1);
+        entryAt[index] = addEntry(index, task.description);
+    }
+
+    @Override
+    public void taskRemoved(int index, Task task) {
+        killEntry(entryAt[index]);
+        size--;
+        System.arraycopy(entryAt, index + 1, entryAt, index, size - index);
+        renumber(index, -1);
+        compactIfSparse();
+    }
+
+    @Override
+    public void taskUpdated(int index, Task task) {
+        // Marking or rescheduling keeps the description; only a replacement may change it.
+        if (Storage.hash(task.description) == descriptionHash[entryAt[index]]) {
+            return;
+        }
+        killEntry(entryAt[index]);
+        entryAt[index] = addEntry(index, task.description);
+        compactIfSparse();
+    }
+
+    // Indexes the words of a description under a new entry and returns it.
+    private int addEntry(int position, String description) {
+        if (entryCount == positionOf.length) {
+            positionOf = Arrays.copyOf(positionOf, entryCount * 2);
+            descriptionHash = Arrays.copyOf(descriptionHash, entryCount * 2);
+        }
+        int entry = entryCount++;
+        positionOf[entry] = position;
+        descriptionHash[entry] = Storage.hash(description);
+        for (String word : tokenize(description)) {
+            Integer id = wordIds.get(word);
+            if (id == null) {
+                id = addWord(word);
+            }
+            postings.get(id).addDistinct(entry);
+        }
+        return entry;
+    }
+
+    private int addWord(String word) {
+        int id = words.size();
+        wordIds.put(word, id);
+        words.add(word);
+        postings.add(new IntBuffer());
+        for (long gram : trigrams(word)) {
+            trigramWords.computeIfAbsent(gram, g -> new IntBuffer()).addDistinct(id);
+        }
+        return id;
+    }
+
+    private void killEntry(int entry) {
+        positionOf[entry] = -1;
+        deadCount++;
+    }
+
+    private void renumber(int from, int delta) {
+        for (int i = from; i < size; i++) {
+            positionOf[entryAt[i]] += delta;
+        }
+    }
+
+    // Drops dead entries, and words no live task uses, once they make up most of the index.
+    private void compactIfSparse() {
+        if (deadCount < MIN_DEAD_TO_COMPACT || deadCount * 2 < entryCount) {
+            return;
+        }
+        int[] newEntry = new int[entryCount];
+        int live = 0;
+        for (int e = 0; e < entryCount; e++) {
+            if (positionOf[e] < 0) {
+                newEntry[e] = -1;
+                continue;
+            }
+            positionOf[live] = positionOf[e];
+            descriptionHash[live] = descriptionHash[e];
+            newEntry[e] = live++;
+        }
+        List<String> oldWords = words;
+        List<IntBuffer> oldPostings = postings;
+        wordIds = new HashMap<>();
+        words = new ArrayList<>();
+        postings = new ArrayList<>();
+        trigramWords = new HashMap<>();
+        for (int id = 0; id < oldWords.size(); id++) {
+            IntBuffer kept = new IntBuffer();
+            IntBuffer old = oldPostings.get(id);
+            for (int i = 0; i < old.size; i++) {
+                if (newEntry[old.values[i]] >= 0) {
+                    kept.addDistinct(newEntry[old.values[i]]);
+                }
+            }
+            if (kept.size > 0) {
+                postings.set(addWord(oldWords.get(id)), kept);
+            }
+        }
+        for (int i = 0; i < size; i++) {
+            entryAt[i] = newEntry[entryAt[i]];
+        }
+        entryCount = live;
+        deadCount = 0;
+    }
+
+    /**
+     * Returns the {@code limit} tasks closest to {@code query}, best first. Every query word
+     * must match some word of a task within {@link #maxDistance(int)} edits; ties are broken
+     * by position.
+     *
+     * @param query search text
+     * @param limit maximum number of results
+     * @return ranked matches
+     */
+    List<Match> search(String query, int limit) {
+        List<String> terms = tokenize(query);
+        if (terms.isEmpty() || limit <= 0) {
+            return new ArrayList<>();
+        }
+        if (matched.length < entryCount) {
+            matched = new int[positionOf.length];
+            total = new int[positionOf.length];
+            current = new int[positionOf.length];
+        }
+        // Every entry a query touches matches its first word, so those are the ones to reset.
+        IntBuffer touched = null;
+        IntBuffer survivors = new IntBuffer();
+        try {
+            for (int t = 0; t < terms.size(); t++) {
+                survivors = matchTerm(terms.get(t), t);
+                touched = touched == null ? survivors : touched;
+            }
+            return topK(survivors, total, limit);
+        } finally {
+            for (int i = 0; touched != null && i < touched.size; i++) {
+                int p = touched.values[i];
+                matched[p] = 0;
+                total[p] = 0;
+                current[p] = 0;
+            }
+        }
+    }
+
+    // Folds the query word at index t into the scratch arrays; returns the entries matching words 0..t.
+    private IntBuffer matchTerm(String term, int t) {
+        IntBuffer survivors = new IntBuffer();
+        int[] dist = closeWords(term);
+        for (int id = 0; id < dist.length; id++) {
+            if (dist[id] < 0) {
+                continue;
+            }
+            IntBuffer entries = postings.get(id);
+            for (int i = 0; i < entries.size; i++) {
+                int p = entries.values[i];
+                if (positionOf[p] < 0) {
+                    continue;
+                }
+                if (matched[p] == t) {
+                    matched[p]++;
+                    current[p] = dist[id];
+                    total[p] += dist[id];
+                    survivors.addDistinct(p);
+                } else if (matched[p] == t + 1 && dist[id] < current[p]) {
+                    total[p] -= current[p] - dist[id];
+                    current[p] = dist[id];
+                }
+            }
+        }
+        return survivors;
+    }
+
+    /**
+     * Returns the sorted positions of tasks having a word that contains {@code needle}.
+     * Candidate words are those holding every trigram of the needle; each is then checked.
+     *
+     * @param needle lower-case word characters, at least three of them
+     * @return matching positions in increasing order
+     */
+    int[] positionsWithWordContaining(String needle) {
+        long[] grams = trigrams(needle);
+        // Drop the two grams that contain a boundary marker; a substring need not touch a word edge.
+        grams = Arrays.stream(grams, 1, grams.length - 1).distinct().toArray();
+        int[] shared = new int[words.size()];
+        boolean[] isPosition = new boolean[size];
+        // Only words in the shortest posting list can hold every trigram.
+        IntBuffer ids = null;
+        for (long gram : grams) {
+            IntBuffer list = trigramWords.get(gram);
+            if (list == null) {
+                return new int[0];
+            }
+            ids = ids == null || list.size < ids.size ? list : ids;
+            for (int i = 0; i < list.size; i++) {
+                shared[list.values[i]]++;
+            }
+        }
+        int count = 0;
+        for (int i = 0; i < ids.size; i++) {
+            int id = ids.values[i];
+            if (shared[id] == grams.length && words.get(id).contains(needle)) {
+                IntBuffer entries = postings.get(id);
+                for (int j = 0; j < entries.size; j++) {
+                    int position = positionOf[entries.values[j]];
+                    if (position >= 0 && !isPosition[position]) {
+                        isPosition[position] = true;
+                        count++;
+                    }
+                }
+            }
+        }
+        int[] result = new int[count];
+        for (int p = 0, n = 0; n < count; p++) {
+            if (isPosition[p]) {
+                result[n++] = p;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the largest edit distance tolerated for a query word of the given length.
+     */
+    static int maxDistance(int length) {
+        return length <= 2 ? 0 : length <= 5 ? 1 : 2;
+    }
+
+    /**
+     * Computes the Levenshtein distance between two strings, giving up early once it
+     * must exceed {@code bound}.
+     *
+     * @return the distance, or {@code bound + 1} if it is larger than {@code bound}
+     */
+    static int boundedDistance(String a, String b, int bound) {
+        if (Math.abs(a.length() - b.length()) > bound) {
+            return bound + 1;
+        }
+        int[] prev = new int[b.length() + 1];
+        int[] cur = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            prev[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            cur[0] = i;
+            int rowMin = cur[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                cur[j] = Math.min(Math.min(cur[j - 1] + 1, prev[j] + 1), prev[j - 1] + cost);
+                rowMin = Math.min(rowMin, cur[j]);
+            }
+            if (rowMin > bound) {
+                return bound + 1;
+            }
+            int[] swap = prev;
+            prev = cur;
+            cur = swap;
+        }
+        return Math.min(prev[b.length()], bound + 1);
+    }
+
+    // Distance of every vocabulary word to term, or -1 for words that are too far away.
+    private int[] closeWords(String term) {
+        int bound = maxDistance(term.length());
+        int[] dist = new int[words.size()];
+        Arrays.fill(dist, -1);
+        // Each edit destroys at most three trigrams of the padded word.
+        int minShared = term.length() - 3 * bound;
+        if (minShared <= 0) {
+            for (int id = 0; id < words.size(); id++) {
+                score(term, id, bound, dist);
+            }
+            return dist;
+        }
+        int[] shared = new int[words.size()];
+        for (long gram : trigrams(term)) {
+            IntBuffer ids = trigramWords.get(gram);
+            if (ids == null) {
+                continue;
+            }
+            for (int i = 0; i < ids.size; i++) {
+                if (++shared[ids.values[i]] == minShared) {
+                    score(term, ids.values[i], bound, dist);
+                }
+            }
+        }
+        return dist;
+    }
+
+    private void score(String term, int id, int bound, int[] dist) {
+        int d = boundedDistance(term, words.get(id), bound);
+        if (d <= bound) {
+            dist[id] = d;
+        }
+    }
+
+    // Keeps the best `limit` entries in a max-heap of size limit, then sorts them best first.
+    private List<Match> topK(IntBuffer entries, int[] distances, int limit) {
+        PriorityQueue<Match> heap = new PriorityQueue<>(limit + 1, FuzzyIndex::compareWorstFirst);
+        for (int i = 0; i < entries.size; i++) {
+            Match m = new Match(positionOf[entries.values[i]], distances[entries.values[i]]);
+            if (heap.size() < limit) {
+                heap.add(m);
+            } else if (compareWorstFirst(m, heap.peek()) > 0) {
+                heap.poll();
+                heap.add(m);
+            }
+        }
+        List<Match> result = new ArrayList<>(heap);
+        result.sort((a, b) -> compareWorstFirst(b, a));
+        return result;
+    }
+
+    // Orders worse matches (larger distance, then later position) first.
+    private static int compareWorstFirst(Match a, Match b) {
+        if (a.distance != b.distance) {
+            return Integer.compare(b.distance, a.distance);
+        }
+        return Integer.compare(b.position, a.position);
+    }
+
+    private static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean isWordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (isWordChar && start < 0) {
+                start = i;
+            } else if (!isWordChar && start >= 0) {
+                tokens.add(text.substring(start, i).toLowerCase());
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    // Trigrams of the padded word, each packed into a long; a word of length n has n of them.
+    private static long[] trigrams(String word) {
+        String padded = BOUNDARY + word + BOUNDARY;
+        long[] grams = new long[padded.length() - 2];
+        for (int i = 0; i < grams.length; i++) {
+            grams[i] = ((long) padded.charAt(i) << 32) | ((long) padded.charAt(i + 1) << 16) | padded.charAt(i + 2);
+        }
+        return grams;
+    }
+
+    /** Growable int array; addDistinct skips a value equal to the last one added. */
+    private static final class IntBuffer {
+        private int[] values = new int[2];
+        private int size;
+
+        private void addDistinct(int value) {
+            if (size > 0 && values[size - 1] == value) {
+                return;
+            }
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+    }
+}
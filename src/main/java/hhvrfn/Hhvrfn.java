@@ -1,16 +1,25 @@
 package hhvrfn;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Scanner;
 
 /**
- * Main entry point that wires Ui, Storage, Parser, and TaskList.
+ * Main entry point that wires Ui, Workspace, Parser, and TaskList.
  * Behavior and output format remain consistent with earlier levels.
+ * This is also the console-only entry point: nothing it loads touches JavaFX.
  */
 public class Hhvrfn {
+    /** System property naming a file that sessions are recorded to, for replaying with {@code --replay}. */
+    public static final String RECORD_PROPERTY = "hhvrfn.record";
+
     private final Ui ui;
-    private final Storage storage;
-    private TaskList tasks;
+    private final Workspace workspace;
 
     /**
      * Constructs the app with given storage file path.
@@ -20,14 +29,12 @@ public class Hhvrfn {
     public Hhvrfn(String filePath) {
         Logger.info("Initializing CLI application with data file: " + filePath);
         this.ui = new Ui();
-        this.storage = new Storage(filePath);
+        this.workspace = new Workspace(filePath);
         try {
-            ArrayList<Task> loaded = storage.load();
-            this.tasks = new TaskList(loaded);
+            workspace.loadCurrent();
         } catch (HhvrfnException e) {
             Logger.error("Failed to load data during CLI initialization", new Exception(e.getMessage()));
             ui.showLoadingError(e.getMessage());
-            this.tasks = new TaskList();
         }
     }
 
@@ -38,6 +45,8 @@ public class Hhvrfn {
     public void run() {
         Logger.info("Starting CLI application loop");
         ui.showGreeting();
+        showDueReminders();
+        SessionRecorder recorder = SessionRecorder.startConfigured("cli");
         try (Scanner scanner = new Scanner(System.in)) {
             while (true) {
                 String input = ui.readCommand(scanner);
@@ -46,23 +55,146 @@ public class Hhvrfn {
                     ui.showFarewell();
                     break;
                 }
-                try {
-                    Parser.process(input, tasks, ui, storage);
-                } catch (HhvrfnException e) {
-                    Logger.error("Command processing error: " + e.getMessage());
-                    ui.showError(e.getMessage());
+                if (recorder == null) {
+                    handle(input);
+                    continue;
                 }
+                long start = System.nanoTime();
+                long[] end = new long[1];
+                String output = SessionRecorder.capture(() -> {
+                    handle(input);
+                    end[0] = System.nanoTime();
+                }, true);
+                recorder.record(input, start, end[0] - start, output);
+            }
+        } finally {
+            if (recorder != null) {
+                recorder.close();
             }
         }
+        close();
         Logger.info("CLI application ended");
     }
 
+    /**
+     * Runs one command other than "bye", showing its result or error and then any due reminders.
+     *
+     * @param input the command as entered
+     */
+    void handle(String input) {
+        try {
+            Parser.process(input, workspace, ui);
+        } catch (HhvrfnException e) {
+            Logger.error("Command processing error: " + e.getMessage());
+            ui.showError(e.getMessage());
+        }
+        showDueReminders();
+    }
+
+    /**
+     * Releases the workspace's files; see {@link Workspace#close()}.
+     */
+    void close() {
+        workspace.close();
+    }
+
+    // Reminders are checked between commands, so they never interrupt typing.
+    void showDueReminders() {
+        List<ReminderScheduler.Reminder> due = workspace.pollReminders(LocalDate.now());
+        if (!due.isEmpty()) {
+            ui.showReminders(due);
+        }
+    }
+
+    /**
+     * Serves the current list over HTTP until "bye" is entered, or until the process is
+     * stopped if standard input is closed.
+     *
+     * @param port port to listen on
+     */
+    public void serve(int port) {
+        ApiServer api;
+        try {
+            api = new ApiServer(workspace.currentTasks(), workspace.currentStorage(), port);
+        } catch (IOException | HhvrfnException e) {
+            Logger.error("Cannot start API server", new Exception(e.getMessage()));
+            ui.showError("Cannot start the API server: " + e.getMessage());
+            return;
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(api::stop));
+        api.start();
+        ui.showSyncNotice("Serving list '" + workspace.getCurrentName() + "' at http://127.0.0.1:" + api.getPort()
+                + "/tasks. Enter bye to stop.");
+        try (Scanner scanner = new Scanner(System.in)) {
+            while (scanner.hasNextLine()) {
+                if ("bye".equals(scanner.nextLine().trim())) {
+                    api.stop();
+                    break;
+                }
+            }
+            api.awaitStop();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        workspace.close();
+    }
+
     /**
      * Program entry.
      *
-     * @param args CLI args (unused).
+     * @param args none for the interactive CLI, {@code --serve [PORT]} for the HTTP API, or
+     *             {@code --replay RECORDING [DATA_FILE] [--max-speed]} to replay a recorded session.
      */
     public static void main(String[] args) {
-        new Hhvrfn("./data/hhvrfn.txt").run();
+        if (args.length > 0 && args[0].equals("--replay")) {
+            System.exit(replay(args));
+        }
+        if (args.length > 0 && args[0].equals("--serve")) {
+            int port = args.length == 1 ? ApiServer.DEFAULT_PORT : args.length == 2 ? parsePort(args[1]) : -1;
+            if (port < 0) {
+                System.err.println("Usage: --serve [PORT], with PORT from 0 to 65535");
+                System.exit(2);
+            }
+            new Hhvrfn("./data/hhvrfn.txt").serve(port);
+        } else {
+            new Hhvrfn("./data/hhvrfn.txt").run();
+        }
+    }
+
+    /**
+     * Parses the port argument of {@code --serve}.
+     *
+     * @param text the argument
+     * @return the port, or -1 if the argument is not a port number
+     */
+    static int parsePort(String text) {
+        if (!text.matches("[0-9]{1,5}")) {
+            return -1;
+        }
+        int port = Integer.parseInt(text);
+        return port <= 65535 ? port : -1;
+    }
+
+    // Replays a recording and reports on it; the exit status is 1 if any output changed, 2 on errors.
+    private static int replay(String[] args) {
+        List<String> rest = new ArrayList<>(Arrays.asList(args).subList(1, args.length));
+        boolean isRealTime = !rest.remove("--max-speed");
+        if (rest.isEmpty() || rest.size() > 2) {
+            System.err.println("Usage: --replay RECORDING [DATA_FILE] [--max-speed]");
+            return 2;
+        }
+        Path dataFile = Paths.get(rest.size() > 1 ? rest.get(1) : "./data/hhvrfn.txt");
+        try {
+            SessionReplayer replayer = new SessionReplayer(Paths.get(rest.get(0)));
+            long start = System.nanoTime();
+            int differences = replayer.replay(dataFile, isRealTime);
+            System.out.printf("Replayed %d commands against %s at %s in %.3f s%n", replayer.getSteps().size(),
+                    dataFile, isRealTime ? "the recorded pace" : "maximum speed", (System.nanoTime() - start) / 1e9);
+            replayer.report(System.out);
+            return differences == 0 ? 0 : 1;
+        } catch (IOException | HhvrfnException e) {
+            System.err.println("Cannot replay " + rest.get(0) + ": " + e.getMessage());
+            return 2;
+        }
     }
 }
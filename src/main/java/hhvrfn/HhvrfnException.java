@@ -4,6 +4,7 @@ package hhvrfn;
  * Represents domain-specific errors in the Hhvrfn chatbot.
  */
 public class HhvrfnException extends Exception {
+    private static final long serialVersionUID = 1L;
 
     /**
      * Constructs an exception with a message.
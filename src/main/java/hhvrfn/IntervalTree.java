@@ -0,0 +1,214 @@
+package hhvrfn;
+
+import java.util.function.IntConsumer;
+
+/**
+ * Interval tree over closed intervals {@code [start, end]} of long keys that can be changed
+ * one interval at a time. Intervals are kept in a treap ordered by start, then id, with every
+ * node storing the largest end in its subtree. Adding or removing an interval takes
+ * O(log n) expected time and overlap queries run in O(log n + k) for k results.
+ */
+public final class IntervalTree {
+    private Interval root;
+    private int size;
+    // xorshift state for node priorities; fixed, so trees are reproducible.
+    private long seed = 0x2545F4914F6CDD1DL;
+
+    /**
+     * One interval in the tree. Its id may be renumbered in place, provided the order of
+     * ids among intervals with equal starts stays the same.
+     */
+    static final class Interval {
+        private final long start;
+        private final long end;
+        private final int priority;
+        private int id;
+        private long maxEnd;
+        private Interval left;
+        private Interval right;
+
+        private Interval(long start, long end, int id, int priority) {
+            this.start = start;
+            this.end = end;
+            this.id = id;
+            this.priority = priority;
+            this.maxEnd = end;
+        }
+
+        long getStart() {
+            return start;
+        }
+
+        long getEnd() {
+            return end;
+        }
+
+        void shiftId(int delta) {
+            id += delta;
+        }
+    }
+
+    /**
+     * Constructs an empty tree.
+     */
+    public IntervalTree() {
+    }
+
+    /**
+     * Builds a tree over the given intervals. The arrays are not retained.
+     *
+     * @param starts interval starts
+     * @param ends   interval ends, {@code ends[i] >= starts[i]}
+     * @param ids    caller-defined identifier reported for each interval
+     * @param count  number of valid entries in the arrays
+     */
+    public IntervalTree(long[] starts, long[] ends, int[] ids, int count) {
+        for (int i = 0; i < count; i++) {
+            add(starts[i], ends[i], ids[i]);
+        }
+    }
+
+    /**
+     * Returns the number of intervals in the tree.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Adds an interval.
+     *
+     * @param start interval start
+     * @param end   interval end, {@code end >= start}
+     * @param id    identifier reported by queries
+     * @return the interval, to remove or renumber it later
+     */
+    Interval add(long start, long end, int id) {
+        seed ^= seed << 13;
+        seed ^= seed >>> 7;
+        seed ^= seed << 17;
+        Interval interval = new Interval(start, end, id, (int) seed);
+        root = insert(root, interval);
+        size++;
+        return interval;
+    }
+
+    /**
+     * Removes an interval returned by {@link #add(long, long, int)}.
+     */
+    void remove(Interval interval) {
+        root = delete(root, interval);
+        size--;
+    }
+
+    /**
+     * Reports the id of every interval overlapping {@code [from, to]}, in order of start.
+     *
+     * @param from  query start (inclusive)
+     * @param to    query end (inclusive)
+     * @param visit receives the ids of overlapping intervals
+     */
+    public void query(long from, long to, IntConsumer visit) {
+        collect(root, from, to, visit);
+    }
+
+    private static boolean isBefore(Interval a, Interval b) {
+        return a.start != b.start ? a.start < b.start : a.id < b.id;
+    }
+
+    private static Interval insert(Interval node, Interval interval) {
+        if (node == null) {
+            return interval;
+        }
+        if (isBefore(interval, node)) {
+            node.left = insert(node.left, interval);
+            if (node.left.priority > node.priority) {
+                node = rotateRight(node);
+            }
+        } else {
+            node.right = insert(node.right, interval);
+            if (node.right.priority > node.priority) {
+                node = rotateLeft(node);
+            }
+        }
+        updateMax(node);
+        return node;
+    }
+
+    private static Interval delete(Interval node, Interval interval) {
+        if (node == null) {
+            return null;
+        }
+        if (node == interval) {
+            return merge(node.left, node.right);
+        }
+        if (isBefore(interval, node)) {
+            node.left = delete(node.left, interval);
+        } else {
+            node.right = delete(node.right, interval);
+        }
+        updateMax(node);
+        return node;
+    }
+
+    // Joins two treaps whose keys are all ordered a before b.
+    private static Interval merge(Interval a, Interval b) {
+        if (a == null) {
+            return b;
+        }
+        if (b == null) {
+            return a;
+        }
+        if (a.priority > b.priority) {
+            a.right = merge(a.right, b);
+            updateMax(a);
+            return a;
+        }
+        b.left = merge(a, b.left);
+        updateMax(b);
+        return b;
+    }
+
+    private static Interval rotateRight(Interval node) {
+        Interval left = node.left;
+        node.left = left.right;
+        left.right = node;
+        updateMax(node);
+        updateMax(left);
+        return left;
+    }
+
+    private static Interval rotateLeft(Interval node) {
+        Interval right = node.right;
+        node.right = right.left;
+        right.left = node;
+        updateMax(node);
+        updateMax(right);
+        return right;
+    }
+
+    private static void updateMax(Interval node) {
+        long max = node.end;
+        if (node.left != null) {
+            max = Math.max(max, node.left.maxEnd);
+        }
+        if (node.right != null) {
+            max = Math.max(max, node.right.maxEnd);
+        }
+        node.maxEnd = max;
+    }
+
+    private static void collect(Interval node, long from, long to, IntConsumer visit) {
+        if (node == null || node.maxEnd < from) {
+            return; // nothing in this subtree ends late enough
+        }
+        collect(node.left, from, to, visit);
+        if (node.start > to) {
+            return; // this node and everything to its right start too late
+        }
+        if (node.end >= from) {
+            visit.accept(node.id);
+        }
+        collect(node.right, from, to, visit);
+    }
+}
@@ -0,0 +1,176 @@
+package hhvrfn;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Minimal JSON helpers for the flat, one-object-per-line records used by export/import.
+ * Only string, boolean, number and null values are supported; nested values are rejected.
+ */
+final class Json {
+
+    /** Utility class; no instantiation. */
+    private Json() { }
+
+    /**
+     * Returns the given text as a quoted JSON string literal.
+     *
+     * @param text text to quote; null becomes the JSON literal {@code null}
+     * @return the JSON literal
+     */
+    static String quote(String text) {
+        if (text == null) {
+            return "null";
+        }
+        StringBuilder sb = new StringBuilder(text.length() + 2);
+        sb.append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+            case '"':
+                sb.append("\\\"");
+                break;
+            case '\\':
+                sb.append("\\\\");
+                break;
+            case '\n':
+                sb.append("\\n");
+                break;
+            case '\r':
+                sb.append("\\r");
+                break;
+            case '\t':
+                sb.append("\\t");
+                break;
+            default:
+                if (c < 0x20) {
+                    sb.append(String.format("\\u%04x", (int) c));
+                } else {
+                    sb.append(c);
+                }
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+    /**
+     * Parses a flat JSON object such as {@code {"type":"T","done":false}}.
+     * Values are returned in their textual form; JSON null maps to a Java null.
+     *
+     * @param text the JSON text
+     * @return field names mapped to their values, in document order
+     * @throws IllegalArgumentException if the text is not a flat JSON object
+     */
+    static Map<String, String> parseFlatObject(String text) {
+        Map<String, String> fields = new LinkedHashMap<>();
+        int[] pos = {skipSpaces(text, 0)};
+        expect(text, pos, '{');
+        if (peek(text, pos) == '}') {
+            pos[0]++;
+            return fields;
+        }
+        while (true) {
+            String key = readString(text, pos);
+            expect(text, pos, ':');
+            fields.put(key, readValue(text, pos));
+            char c = peek(text, pos);
+            pos[0]++;
+            if (c == '}') {
+                break;
+            }
+            if (c != ',') {
+                throw new IllegalArgumentException("Expected ',' or '}' at " + (pos[0] - 1));
+            }
+        }
+        if (skipSpaces(text, pos[0]) != text.length()) {
+            throw new IllegalArgumentException("Trailing characters after JSON object");
+        }
+        return fields;
+    }
+
+    private static String readValue(String text, int[] pos) {
+        char c = peek(text, pos);
+        if (c == '"') {
+            return readString(text, pos);
+        }
+        if (c == '{' || c == '[') {
+            throw new IllegalArgumentException("Nested JSON values are not supported");
+        }
+        int start = pos[0];
+        while (pos[0] < text.length() && ",} \t".indexOf(text.charAt(pos[0])) < 0) {
+            pos[0]++;
+        }
+        String literal = text.substring(start, pos[0]);
+        if (literal.isEmpty()) {
+            throw new IllegalArgumentException("Missing JSON value at " + start);
+        }
+        return "null".equals(literal) ? null : literal;
+    }
+
+    private static String readString(String text, int[] pos) {
+        expect(text, pos, '"');
+        StringBuilder sb = new StringBuilder();
+        while (pos[0] < text.length()) {
+            char c = text.charAt(pos[0]++);
+            if (c == '"') {
+                return sb.toString();
+            }
+            if (c != '\\') {
+                sb.append(c);
+                continue;
+            }
+            if (pos[0] >= text.length()) {
+                break;
+            }
+            char esc = text.charAt(pos[0]++);
+            switch (esc) {
+            case 'n':
+                sb.append('\n');
+                break;
+            case 'r':
+                sb.append('\r');
+                break;
+            case 't':
+                sb.append('\t');
+                break;
+            case 'b':
+                sb.append('\b');
+                break;
+            case 'f':
+                sb.append('\f');
+                break;
+            case 'u':
+                if (pos[0] + 4 > text.length()) {
+                    throw new IllegalArgumentException("Truncated unicode escape");
+                }
+                sb.append((char) Integer.parseInt(text.substring(pos[0], pos[0] + 4), 16));
+                pos[0] += 4;
+                break;
+            default:
+                sb.append(esc); // covers \" \\ and \/
+            }
+        }
+        throw new IllegalArgumentException("Unterminated JSON string");
+    }
+
+    private static void expect(String text, int[] pos, char expected) {
+        if (peek(text, pos) != expected) {
+            throw new IllegalArgumentException("Expected '" + expected + "' at " + pos[0]);
+        }
+        pos[0]++;
+    }
+
+    // Skips whitespace and returns the next character without consuming it (0 at end of input).
+    private static char peek(String text, int[] pos) {
+        pos[0] = skipSpaces(text, pos[0]);
+        return pos[0] < text.length() ? text.charAt(pos[0]) : 0;
+    }
+
+    private static int skipSpaces(String text, int from) {
+        int i = from;
+        while (i < text.length() && Character.isWhitespace(text.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+}
@@ -0,0 +1,93 @@
+package hhvrfn;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+
+/**
+ * Default task store: an {@link ArrayList} of task objects, mutated in place.
+ */
+class ListTaskStore implements TaskStore {
+    // Task object, description String and its bytes, list slot and cached display text, roughly.
+    private static final int TASK_BYTES = 64;
+    private static final int BYTES_PER_CHAR = 3;
+
+    private final ArrayList<Task> tasks;
+
+    ListTaskStore(ArrayList<Task> initial) {
+        this.tasks = new ArrayList<>(initial);
+    }
+
+    @Override
+    public int size() {
+        return tasks.size();
+    }
+
+    @Override
+    public Task get(int index) {
+        return tasks.get(index);
+    }
+
+    @Override
+    public void add(Task task) {
+        tasks.add(task);
+    }
+
+    @Override
+    public void insert(int index, Task task) {
+        tasks.add(index, task);
+    }
+
+    @Override
+    public void replace(int index, Task task) {
+        tasks.set(index, task);
+    }
+
+    @Override
+    public Task remove(int index) {
+        return tasks.remove(index);
+    }
+
+    @Override
+    public void setDone(int index, boolean isDone) {
+        if (isDone) {
+            tasks.get(index).markAsDone();
+        } else {
+            tasks.get(index).markAsNotDone();
+        }
+    }
+
+    @Override
+    public void setDoneOn(int index, LocalDate date) {
+        tasks.get(index).doneOn = date;
+    }
+
+    @Override
+    public void reschedule(int index, LocalDate newDate) {
+        Deadline d = (Deadline) tasks.get(index);
+        d.reschedule(newDate);
+    }
+
+    @Override
+    public void setPriority(int index, int priority) {
+        tasks.get(index).setPriority(priority);
+    }
+
+    @Override
+    public boolean allowsConcurrentReads() {
+        return true;
+    }
+
+    @Override
+    public long footprintBytes() {
+        long bytes = 0;
+        for (Task t : tasks) {
+            bytes += TASK_BYTES + (long) BYTES_PER_CHAR * t.description.length();
+        }
+        return bytes;
+    }
+
+    @Override
+    public ArrayList<Task> asList() {
+        return tasks;
+    }
+}
@@ -0,0 +1,20 @@
+package hhvrfn;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event for one entry passed to {@link Logger}; its duration is the time the
+ * write to the log file took. Entries are recorded even while file logging is disabled.
+ */
+@Name("hhvrfn.Log")
+@Label("Log Entry")
+@Category({"Hhvrfn", "Logging"})
+class LogEvent extends jdk.jfr.Event {
+    @Label("Level")
+    protected String level;
+
+    @Label("Message")
+    protected String message;
+}
@@ -81,6 +81,21 @@ public class Logger {
      * @param message The message to log
      */
     private static void log(String level, String message) {
+        LogEvent event = new LogEvent();
+        event.begin();
+        try {
+            write(level, message);
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.level = level;
+                event.message = message;
+                event.commit();
+            }
+        }
+    }
+
+    private static void write(String level, String message) {
         if (!isEnabled) {
             return;
         }
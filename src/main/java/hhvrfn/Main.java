@@ -1,7 +1,11 @@
 package hhvrfn;
 
-import java.util.ArrayList;
+import java.time.LocalDate;
+import java.util.List;
 
+import javafx.animation.Animation;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
 import javafx.application.Application;
 import javafx.application.Platform;
 import javafx.scene.Scene;
@@ -12,6 +16,7 @@ import javafx.scene.control.TextField;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.VBox;
 import javafx.stage.Stage;
+import javafx.util.Duration;
 
 /**
  * A minimal JavaFX GUI for Duke/Hhvrfn.
@@ -20,27 +25,22 @@ import javafx.stage.Stage;
  */
 public class Main extends Application {
 
-    private final TaskList taskList;
-    private final Storage storage = new Storage("./data/hhvrfn.txt");
+    private final Workspace workspace = new Workspace("./data/hhvrfn.txt");
     private String loadingErrorMessage = null;
+    private SessionRecorder recorder;
 
     /**
      * Constructs the Main application with error handling for data loading.
      */
     public Main() {
         Logger.info("Initializing GUI application");
-        // Initialize TaskList with error handling for data loading
-        TaskList tempTaskList;
         try {
-            ArrayList<Task> loadedTasks = storage.load();
-            tempTaskList = new TaskList(loadedTasks);
+            workspace.loadCurrent();
         } catch (HhvrfnException e) {
             // If loading fails, start with empty task list and remember the error
             Logger.error("Failed to load data during GUI initialization", new Exception(e.getMessage()));
-            tempTaskList = new TaskList();
             loadingErrorMessage = e.getMessage();
         }
-        this.taskList = tempTaskList;
     }
 
     @Override
@@ -52,6 +52,7 @@ public class Main extends Application {
         Button send = new Button("Send");
 
         Ui ui = new UiCapture(dialog);
+        recorder = SessionRecorder.startConfigured("gui");
 
         Runnable doSend = () -> {
             String text = input.getText().trim();
@@ -72,11 +73,17 @@ public class Main extends Application {
             }
 
             // Other commands go to Parser
+            long begin = System.nanoTime();
+            int from = dialog.getLength();
             try {
-                Parser.process(text, taskList, ui, storage);
+                Parser.process(text, workspace, ui);
             } catch (HhvrfnException e) {
                 ui.showError(e.getMessage());
             }
+            showDueReminders(ui);
+            if (recorder != null) {
+                recorder.record(text, begin, System.nanoTime() - begin, dialog.getText(from, dialog.getLength()));
+            }
         };
 
         send.setOnAction(e -> doSend.run());
@@ -96,6 +103,27 @@ public class Main extends Application {
         if (loadingErrorMessage != null) {
             ui.showLoadingError(loadingErrorMessage);
         }
+
+        // The reminder queues only need their heads checked, so a periodic check is cheap.
+        showDueReminders(ui);
+        Timeline reminderCheck = new Timeline(new KeyFrame(Duration.minutes(1), e -> showDueReminders(ui)));
+        reminderCheck.setCycleCount(Animation.INDEFINITE);
+        reminderCheck.play();
+    }
+
+    private void showDueReminders(Ui ui) {
+        List<ReminderScheduler.Reminder> due = workspace.pollReminders(LocalDate.now());
+        if (!due.isEmpty()) {
+            ui.showReminders(due);
+        }
+    }
+
+    @Override
+    public void stop() {
+        if (recorder != null) {
+            recorder.close();
+        }
+        workspace.close();
     }
 
     public static void main(String[] args) {
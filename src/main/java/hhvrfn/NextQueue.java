@@ -0,0 +1,176 @@
+package hhvrfn;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.PriorityQueue;
+
+/**
+ * An indexed binary min-heap of the undone tasks of a list, ordered by urgency: priority
+ * (tasks without one last), then due date (undated last), then position. It follows the list
+ * as a {@link TaskListener}; each task's heap slot is tracked, so marking, snoozing or
+ * reprioritising a task sifts just that entry in O(log n). Inserting or removing anywhere but
+ * the end also renumbers the later positions, a linear pass that leaves the heap order intact.
+ */
+final class NextQueue implements TaskListener {
+    // Sorts after every real priority.
+    private static final int NO_PRIORITY_RANK = Task.MIN_PRIORITY + 1;
+
+    // Per position: urgency key, and the task's heap slot or -1 if it is done.
+    private long[] keys = new long[16];
+    private int[] slots = new int[16];
+    private int size;
+    // Positions in heap order.
+    private int[] heap = new int[16];
+    private int heapSize;
+
+    /**
+     * Returns the positions of the {@code k} most urgent undone tasks, most urgent first.
+     * Walks the heap from the root with a second, small heap of candidate slots, so the
+     * cost is O(k log k) and the queue itself is untouched.
+     *
+     * @param k maximum number of positions
+     * @return positions in urgency order
+     */
+    int[] top(int k) {
+        int[] result = new int[Math.min(k, heapSize)];
+        if (result.length == 0) {
+            return result;
+        }
+        PriorityQueue<Integer> frontier = new PriorityQueue<>((a, b) -> compare(heap[a], heap[b]));
+        frontier.add(0);
+        for (int n = 0; n < result.length; n++) {
+            int slot = frontier.poll();
+            result[n] = heap[slot];
+            for (int child = 2 * slot + 1; child <= 2 * slot + 2 && child < heapSize; child++) {
+                frontier.add(child);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void taskInserted(int index, Task task) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            slots = Arrays.copyOf(slots, size * 2);
+            heap = Arrays.copyOf(heap, size * 2);
+        }
+        if (index < size) {
+            System.arraycopy(keys, index, keys, index + 1, size - index);
+            System.arraycopy(slots, index, slots, index + 1, size - index);
+            renumber(index, 1);
+        }
+        size++;
+        slots[index] = -1;
+        if (!task.isDone) {
+            keys[index] = keyOf(task);
+            push(index);
+        }
+    }
+
+    @Override
+    public void taskRemoved(int index, Task task) {
+        if (slots[index] >= 0) {
+            removeSlot(slots[index]);
+        }
+        size--;
+        if (index < size) {
+            System.arraycopy(keys, index + 1, keys, index, size - index);
+            System.arraycopy(slots, index + 1, slots, index, size - index);
+            renumber(index + 1, -1);
+        }
+    }
+
+    @Override
+    public void taskUpdated(int index, Task task) {
+        int slot = slots[index];
+        if (task.isDone) {
+            if (slot >= 0) {
+                removeSlot(slot);
+            }
+            return;
+        }
+        keys[index] = keyOf(task);
+        if (slot < 0) {
+            push(index);
+        } else {
+            siftDown(siftUp(slot));
+        }
+    }
+
+    // Priority rank in the high half; due day in the low half, offset so that unsigned order is date order.
+    private static long keyOf(Task task) {
+        int rank = task.priority > 0 ? task.priority : NO_PRIORITY_RANK;
+        LocalDate due = task.getDueDate();
+        int day = due == null ? Integer.MAX_VALUE : (int) due.toEpochDay();
+        return ((long) rank << 32) | ((day ^ Integer.MIN_VALUE) & 0xFFFFFFFFL);
+    }
+
+    private int compare(int a, int b) {
+        int c = Long.compare(keys[a], keys[b]);
+        return c != 0 ? c : Integer.compare(a, b);
+    }
+
+    // Adds delta to every queued position at or after `from`; relative order, and so the heap, is unchanged.
+    private void renumber(int from, int delta) {
+        for (int s = 0; s < heapSize; s++) {
+            if (heap[s] >= from) {
+                heap[s] += delta;
+            }
+        }
+    }
+
+    private void push(int position) {
+        heap[heapSize] = position;
+        slots[position] = heapSize;
+        heapSize++;
+        siftUp(heapSize - 1);
+    }
+
+    private void removeSlot(int slot) {
+        slots[heap[slot]] = -1;
+        heapSize--;
+        if (slot < heapSize) {
+            place(slot, heap[heapSize]);
+            siftDown(siftUp(slot));
+        }
+    }
+
+    private int siftUp(int slot) {
+        int position = heap[slot];
+        while (slot > 0) {
+            int parent = (slot - 1) >>> 1;
+            if (compare(heap[parent], position) <= 0) {
+                break;
+            }
+            place(slot, heap[parent]);
+            slot = parent;
+        }
+        place(slot, position);
+        return slot;
+    }
+
+    private void siftDown(int slot) {
+        int position = heap[slot];
+        while (true) {
+            int child = 2 * slot + 1;
+            if (child >= heapSize) {
+                break;
+            }
+            if (child + 1 < heapSize && compare(heap[child + 1], heap[child]) < 0) {
+                child++;
+            }
+            if (compare(position, heap[child]) <= 0) {
+                break;
+            }
+            place(slot, heap[child]);
+            slot = child;
+        }
+        place(slot, position);
+    }
+
+    private void place(int slot, int position) {
+        heap[slot] = position;
+        slots[position] = slot;
+    }
+}
@@ -0,0 +1,281 @@
+package hhvrfn;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Columnar task store for very large lists.
+ * Done flags live in a bitset, types and priorities in byte arrays, deadline and done dates
+ * as epoch days and all text in one shared UTF-8 byte arena, so a task costs a few dozen
+ * bytes instead of several objects. {@link Task} instances are created only when {@link #get(int)} is called
+ * and are detached snapshots.
+ */
+class PackedTaskStore implements TaskStore {
+    private static final int INITIAL_CAPACITY = 16;
+    private static final byte TODO = 0;
+    private static final byte DEADLINE = 1;
+    private static final byte EVENT = 2;
+    private static final byte RECURRING = 3;
+    // Separates an event's from/to text inside one arena entry; user input is line-based.
+    private static final char EVENT_SEPARATOR = '\n';
+    // Marks an unknown done date in doneDays.
+    private static final int NO_DAY = Integer.MIN_VALUE;
+
+    private int size;
+    private long[] doneBits = new long[1];
+    private byte[] types = new byte[INITIAL_CAPACITY];
+    private byte[] priorities = new byte[INITIAL_CAPACITY];
+    private int[] epochDays = new int[INITIAL_CAPACITY];
+    private int[] doneDays = new int[INITIAL_CAPACITY];
+    private int[] descOffsets = new int[INITIAL_CAPACITY];
+    private int[] descLengths = new int[INITIAL_CAPACITY];
+    private int[] extraOffsets = new int[INITIAL_CAPACITY];
+    private int[] extraLengths = new int[INITIAL_CAPACITY];
+
+    private byte[] arena = new byte[1024];
+    private int arenaUsed;
+    private int arenaGarbage;
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Task get(int index) {
+        String desc = text(descOffsets[index], descLengths[index]);
+        Task t;
+        switch (types[index]) {
+        case DEADLINE:
+            t = new Deadline(desc, LocalDate.ofEpochDay(epochDays[index]));
+            break;
+        case EVENT:
+            String extra = text(extraOffsets[index], extraLengths[index]);
+            int sep = extra.indexOf(EVENT_SEPARATOR);
+            t = new Event(desc, extra.substring(0, sep), extra.substring(sep + 1));
+            break;
+        case RECURRING:
+            // the done flag is derived from the rule, so it is not applied below
+            t = Recurring.decodeRule(desc, text(extraOffsets[index], extraLengths[index]).split(" \\| "));
+            t.setPriority(priorities[index]);
+            return t;
+        default:
+            t = new Todo(desc);
+        }
+        if (isDone(index)) {
+            t.markAsDone();
+            t.doneOn = doneDays[index] == NO_DAY ? null : LocalDate.ofEpochDay(doneDays[index]);
+        }
+        t.setPriority(priorities[index]);
+        return t;
+    }
+
+    @Override
+    public void add(Task task) {
+        insert(size, task);
+    }
+
+    @Override
+    public void insert(int i, Task task) {
+        ensureCapacity(size + 1);
+        int tail = size - i;
+        System.arraycopy(types, i, types, i + 1, tail);
+        System.arraycopy(priorities, i, priorities, i + 1, tail);
+        System.arraycopy(epochDays, i, epochDays, i + 1, tail);
+        System.arraycopy(doneDays, i, doneDays, i + 1, tail);
+        System.arraycopy(descOffsets, i, descOffsets, i + 1, tail);
+        System.arraycopy(descLengths, i, descLengths, i + 1, tail);
+        System.arraycopy(extraOffsets, i, extraOffsets, i + 1, tail);
+        System.arraycopy(extraLengths, i, extraLengths, i + 1, tail);
+        shiftBitsUp(i);
+        size++;
+        write(i, task);
+    }
+
+    @Override
+    public void replace(int i, Task task) {
+        arenaGarbage += descLengths[i] + extraLengths[i];
+        write(i, task);
+    }
+
+    // Fills the columns of slot i, appending its text to the arena.
+    private void write(int i, Task task) {
+        setDone(i, task.isDone);
+        priorities[i] = (byte) task.priority;
+        doneDays[i] = task.doneOn == null ? NO_DAY : (int) task.doneOn.toEpochDay();
+        long[] desc = append(task.description);
+        descOffsets[i] = (int) desc[0];
+        descLengths[i] = (int) desc[1];
+        extraOffsets[i] = 0;
+        extraLengths[i] = 0;
+        epochDays[i] = 0;
+        if (task instanceof Deadline) {
+            types[i] = DEADLINE;
+            epochDays[i] = (int) ((Deadline) task).by.toEpochDay();
+        } else if (task instanceof Event) {
+            types[i] = EVENT;
+            Event e = (Event) task;
+            long[] extra = append(e.from + EVENT_SEPARATOR + e.to);
+            extraOffsets[i] = (int) extra[0];
+            extraLengths[i] = (int) extra[1];
+        } else if (task instanceof Recurring) {
+            types[i] = RECURRING;
+            long[] extra = append(((Recurring) task).encodeRule());
+            extraOffsets[i] = (int) extra[0];
+            extraLengths[i] = (int) extra[1];
+        } else {
+            types[i] = TODO;
+        }
+    }
+
+    @Override
+    public Task remove(int index) {
+        Task removed = get(index);
+        arenaGarbage += descLengths[index] + extraLengths[index];
+        int tail = size - index - 1;
+        System.arraycopy(types, index + 1, types, index, tail);
+        System.arraycopy(priorities, index + 1, priorities, index, tail);
+        System.arraycopy(epochDays, index + 1, epochDays, index, tail);
+        System.arraycopy(doneDays, index + 1, doneDays, index, tail);
+        System.arraycopy(descOffsets, index + 1, descOffsets, index, tail);
+        System.arraycopy(descLengths, index + 1, descLengths, index, tail);
+        System.arraycopy(extraOffsets, index + 1, extraOffsets, index, tail);
+        System.arraycopy(extraLengths, index + 1, extraLengths, index, tail);
+        shiftBitsDown(index);
+        size--;
+        if (arenaGarbage > arenaUsed / 2 && arenaGarbage > 4096) {
+            compactArena();
+        }
+        return removed;
+    }
+
+    @Override
+    public void setDone(int index, boolean isDone) {
+        if (isDone) {
+            doneBits[index >>> 6] |= 1L << index;
+        } else {
+            doneBits[index >>> 6] &= ~(1L << index);
+        }
+    }
+
+    @Override
+    public void setDoneOn(int index, LocalDate date) {
+        doneDays[index] = date == null ? NO_DAY : (int) date.toEpochDay();
+    }
+
+    @Override
+    public void reschedule(int index, LocalDate newDate) {
+        assert types[index] == DEADLINE : "PackedTaskStore.reschedule(): not a deadline";
+        epochDays[index] = (int) newDate.toEpochDay();
+    }
+
+    @Override
+    public void setPriority(int index, int priority) {
+        priorities[index] = (byte) priority;
+    }
+
+    /**
+     * Returns a freshly materialized copy of every task.
+     * This allocates one object graph per task, so callers should not hold on to it.
+     */
+    @Override
+    public ArrayList<Task> asList() {
+        ArrayList<Task> list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            list.add(get(i));
+        }
+        return list;
+    }
+
+    @Override
+    public boolean allowsConcurrentReads() {
+        return true;
+    }
+
+    @Override
+    public long footprintBytes() {
+        return (long) doneBits.length * Long.BYTES + types.length + priorities.length
+                + (long) epochDays.length * Integer.BYTES * 6 + arena.length;
+    }
+
+    private boolean isDone(int index) {
+        return (doneBits[index >>> 6] & (1L << index)) != 0;
+    }
+
+    // Moves every bit above index down by one position, dropping the bit at index.
+    private void shiftBitsDown(int index) {
+        int word = index >>> 6;
+        long below = (1L << index) - 1; // bits below index within its word (shift distance is mod 64)
+        long w = doneBits[word];
+        doneBits[word] = (w & below) | ((w >>> 1) & ~below);
+        int lastWord = (size - 1) >>> 6;
+        for (int k = word + 1; k <= lastWord; k++) {
+            doneBits[k - 1] |= (doneBits[k] & 1L) << 63;
+            doneBits[k] >>>= 1;
+        }
+    }
+
+    // Moves every bit at or above index up by one position; the bit at index is left for the caller.
+    private void shiftBitsUp(int index) {
+        int word = index >>> 6;
+        for (int k = size >>> 6; k > word; k--) {
+            doneBits[k] = (doneBits[k] << 1) | (doneBits[k - 1] >>> 63);
+        }
+        long below = (1L << index) - 1;
+        long w = doneBits[word];
+        doneBits[word] = (w & below) | ((w << 1) & ~below);
+    }
+
+    private String text(int offset, int length) {
+        return new String(arena, offset, length, StandardCharsets.UTF_8);
+    }
+
+    // Appends UTF-8 text to the arena and returns {offset, length}.
+    private long[] append(String s) {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        if (arenaUsed + bytes.length > arena.length) {
+            arena = Arrays.copyOf(arena, Math.max(arena.length * 2, arenaUsed + bytes.length));
+        }
+        System.arraycopy(bytes, 0, arena, arenaUsed, bytes.length);
+        long[] slot = {arenaUsed, bytes.length};
+        arenaUsed += bytes.length;
+        return slot;
+    }
+
+    // Rewrites the arena without the text of removed tasks.
+    private void compactArena() {
+        byte[] fresh = new byte[Math.max(1024, arenaUsed - arenaGarbage)];
+        int used = 0;
+        for (int i = 0; i < size; i++) {
+            System.arraycopy(arena, descOffsets[i], fresh, used, descLengths[i]);
+            descOffsets[i] = used;
+            used += descLengths[i];
+            System.arraycopy(arena, extraOffsets[i], fresh, used, extraLengths[i]);
+            extraOffsets[i] = used;
+            used += extraLengths[i];
+        }
+        arena = fresh;
+        arenaUsed = used;
+        arenaGarbage = 0;
+    }
+
+    private void ensureCapacity(int needed) {
+        if (needed > types.length) {
+            int cap = Math.max(needed, types.length * 2);
+            types = Arrays.copyOf(types, cap);
+            priorities = Arrays.copyOf(priorities, cap);
+            epochDays = Arrays.copyOf(epochDays, cap);
+            doneDays = Arrays.copyOf(doneDays, cap);
+            descOffsets = Arrays.copyOf(descOffsets, cap);
+            descLengths = Arrays.copyOf(descLengths, cap);
+            extraOffsets = Arrays.copyOf(extraOffsets, cap);
+            extraLengths = Arrays.copyOf(extraLengths, cap);
+        }
+        int words = (needed + 63) >>> 6;
+        if (words > doneBits.length) {
+            doneBits = Arrays.copyOf(doneBits, Math.max(words, doneBits.length * 2));
+        }
+    }
+}
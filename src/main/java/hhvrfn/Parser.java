@@ -1,8 +1,17 @@
 package hhvrfn;
 
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.Period;
 import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Parses and executes a single user command against the given model/components.
@@ -10,10 +19,14 @@ import java.util.List;
  */
 public final class Parser {
 
+    // Number of ranked results shown by "find ~keyword".
+    private static final int FUZZY_LIMIT = 20;
+
     /* ================== Centralized messages & usages ================== */
 
     private static final String MSG_UNKNOWN =
-            "Unknown command. Try: list, todo, deadline, event, mark, unmark, delete, find, snooze, bye.";
+            "Unknown command. Try: list, todo, deadline, event, recur, mark, unmark, delete, priority, next, find, "
+            + "query, sort, snooze, archive, summary, overlap, agenda, export, import, undo, redo, lists, switch, bye.";
     private static final String MSG_EMPTY_LIST = "Your list is empty.";
     private static final String ERR_TODO_EMPTY = "Todo needs a non-empty description.";
     private static final String ERR_TODO_TOO_LONG =
@@ -36,15 +49,75 @@ public final class Parser {
     private static final String USAGE_MUTATE_INDEX = "Usage: mark|unmark|delete <positive integer>";
     private static final String USAGE_DEADLINE = "Usage: deadline DESCRIPTION /by yyyy-MM-dd";
     private static final String USAGE_EVENT = "Usage: event DESCRIPTION /from FROM /to TO";
+    private static final String USAGE_RECUR =
+            "Usage: recur DESCRIPTION /from yyyy-MM-dd /every daily|weekly|monthly|N days|N weeks|N months "
+            + "[/until yyyy-MM-dd]";
     private static final String USAGE_SNOOZE = "Usage: snooze INDEX /to yyyy-MM-dd";
+    private static final String USAGE_OVERLAP = "Usage: overlap FROM TO (yyyy-MM-dd or yyyy-MM-dd HHmm)";
+    private static final String USAGE_QUERY = "Usage: query EXPRESSION, e.g. query type:D done:false by<2026-12-01";
+    private static final String USAGE_PRIORITY = "Usage: priority INDEX N (N from 1, most urgent, to 9; 0 clears)";
+    private static final String USAGE_NEXT = "Usage: next [COUNT]";
+    private static final String USAGE_ARCHIVE = "Usage: archive [DAYS] (archives tasks done at least DAYS days ago)";
+    private static final String USAGE_LIST = "Usage: list [#TAG ...]";
+    private static final String USAGE_SORT = "Usage: sort by date|type|status|description";
+    private static final String USAGE_SUMMARY = "Usage: summary [--check]";
+    private static final String USAGE_AGENDA = "Usage: agenda yyyy-MM-dd";
+    private static final String ERR_EVENT_ORDER = "Event end must not be before its start.";
+    private static final String USAGE_SWITCH = "Usage: switch LIST_NAME";
+    private static final String USAGE_EXPORT = "Usage: export FILE [--format txt|csv|ndjson]";
+    private static final String USAGE_IMPORT = "Usage: import FILE";
 
     /** Utility class; no instantiation. */
     private Parser() { }
 
+    /**
+     * Processes one input line against the current list of a workspace.
+     * Handles the workspace commands ({@code lists}, {@code switch}) itself and
+     * passes everything else on to the current list and its storage.
+     * A line may hold several commands separated by {@code ;} (see
+     * {@link #process(String, TaskList, Ui, Storage)}); each list they change is saved once.
+     *
+     * @param input     raw user input
+     * @param workspace workspace holding the named lists
+     * @param ui        UI facade to render results
+     * @throws HhvrfnException if user input is invalid or a recoverable I/O error occurs
+     */
+    public static void process(String input, Workspace workspace, Ui ui) throws HhvrfnException {
+        assert workspace != null && ui != null : "Parser.process(): collaborators must be non-null";
+        final List<String> commands = splitCommands(input);
+        if (commands.size() <= 1) {
+            processInWorkspace(commands.isEmpty() ? "" : commands.get(0), workspace, ui, null);
+            return;
+        }
+        // Lists changed so far, keyed by the storage to save them to.
+        final Map<Storage, TaskList> changed = new LinkedHashMap<>();
+        ui.beginBlock();
+        try {
+            for (String command : commands) {
+                try {
+                    processInWorkspace(command, workspace, ui, changed);
+                } catch (HhvrfnException e) {
+                    Logger.error("Command processing error: " + e.getMessage());
+                    ui.showError(e.getMessage());
+                }
+            }
+            for (Map.Entry<Storage, TaskList> e : changed.entrySet()) {
+                saveBatch(e.getValue(), ui, e.getKey());
+            }
+        } finally {
+            ui.endBlock();
+        }
+    }
+
     /**
      * Processes one input line and executes the corresponding action.
      * On success, UI is updated and mutations are persisted via {@code storage}.
      *
+     * <p>Several commands may be given on one line, separated by {@code ;} (write {@code \;}
+     * for a literal semicolon). They run in order, their output is shown as one block, a
+     * failing command is reported without stopping the rest, and the list is saved once
+     * at the end if any of them changed it.
+     *
      * @param input   raw user input
      * @param tasks   task list model
      * @param ui      UI facade to render results
@@ -54,7 +127,141 @@ public final class Parser {
     public static void process(String input, TaskList tasks, Ui ui, Storage storage) throws HhvrfnException {
         assert tasks != null && ui != null && storage != null
                 : "Parser.process(): collaborators must be non-null";
+        final List<String> commands = splitCommands(input);
+        if (commands.size() <= 1) {
+            execute(commands.isEmpty() ? "" : commands.get(0), tasks, ui, storage);
+            return;
+        }
+        final boolean[] isChanged = {false};
+        final Storage deferred = new DeferredStorage(storage, () -> isChanged[0] = true);
+        ui.beginBlock();
+        try {
+            for (String command : commands) {
+                try {
+                    execute(command, tasks, ui, deferred);
+                } catch (HhvrfnException e) {
+                    Logger.error("Command processing error: " + e.getMessage());
+                    ui.showError(e.getMessage());
+                }
+            }
+            if (isChanged[0]) {
+                saveBatch(tasks, ui, storage);
+            }
+        } finally {
+            ui.endBlock();
+        }
+    }
 
+    // Runs one command; with `changed` set, saves are deferred and the changed list recorded instead.
+    private static void processInWorkspace(String input, Workspace workspace, Ui ui, Map<Storage, TaskList> changed)
+            throws HhvrfnException {
+        final String command = input.trim().replaceAll("\\s+", " ");
+        if (command.equals("lists")) {
+            timed(command, null, () -> {
+                final List<String> names = new ArrayList<>(workspace.listNames());
+                ui.showLists(names, workspace.getCurrentName());
+                return workspace.currentTasks();
+            });
+            return;
+        }
+        if (command.equals("switch") || command.startsWith("switch ")) {
+            timed(command, null, () -> {
+                final String name = command.length() == 6 ? "" : command.substring(7).trim();
+                if (name.isEmpty()) {
+                    throw new HhvrfnException(USAGE_SWITCH);
+                }
+                Logger.info("Switching to task list: " + name);
+                final TaskList list = workspace.switchTo(name);
+                ui.showSwitched(name, list.size());
+                return list;
+            });
+            return;
+        }
+        final TaskList tasks = workspace.currentTasks();
+        final Storage storage = workspace.currentStorage();
+        if (storage.refresh(tasks)) {
+            ui.showSyncNotice("Reloaded changes made to this list by another window.");
+        }
+        if (changed == null) {
+            execute(input, tasks, ui, storage);
+        } else {
+            execute(input, tasks, ui, new DeferredStorage(storage, () -> changed.put(storage, tasks)));
+        }
+    }
+
+    /**
+     * Splits a line into its {@code ;}-separated commands, turning {@code \;} into a
+     * literal semicolon and dropping empty commands.
+     *
+     * @param input raw user input (may be null)
+     * @return the commands, in order
+     */
+    static List<String> splitCommands(String input) {
+        final List<String> commands = new ArrayList<>();
+        if (input == null) {
+            return commands;
+        }
+        StringBuilder current = new StringBuilder();
+        for (int i = 0; i <= input.length(); i++) {
+            if (i == input.length() || input.charAt(i) == ';') {
+                if (!current.toString().trim().isEmpty()) {
+                    commands.add(current.toString());
+                }
+                current.setLength(0);
+            } else if (input.charAt(i) == '\\' && i + 1 < input.length() && input.charAt(i + 1) == ';') {
+                current.append(';');
+                i++;
+            } else {
+                current.append(input.charAt(i));
+            }
+        }
+        return commands;
+    }
+
+    // Runs a single command against the list, timed as a Flight Recorder event.
+    private static void execute(String input, TaskList tasks, Ui ui, Storage storage) throws HhvrfnException {
+        timed(input, tasks, () -> {
+            dispatch(input, tasks, ui, storage);
+            return tasks;
+        });
+    }
+
+    // Saves a list changed by a ;-separated line, timed as a Flight Recorder event of its own named "save".
+    private static void saveBatch(TaskList tasks, Ui ui, Storage storage) throws HhvrfnException {
+        timed("save", tasks, () -> {
+            persist(tasks, ui, storage);
+            return tasks;
+        });
+    }
+
+    /** Work timed as one command; returns the list whose size the event reports. */
+    @FunctionalInterface
+    private interface Step {
+        TaskList run() throws HhvrfnException;
+    }
+
+    // Runs step as a Flight Recorder event named after the first word of input; blank input records nothing.
+    // If the step fails, the event reports the size of tasks, the list it ran against (null if not yet known).
+    private static void timed(String input, TaskList tasks, Step step) throws HhvrfnException {
+        final CommandEvent event = new CommandEvent();
+        TaskList counted = tasks;
+        event.begin();
+        try {
+            counted = step.run();
+        } catch (HhvrfnException e) {
+            event.isFailed = true;
+            throw e;
+        } finally {
+            event.end();
+            if (event.shouldCommit() && input != null && !input.isBlank()) {
+                event.command = input.trim().split("\\s+", 2)[0];
+                event.taskCount = counted == null ? 0 : counted.size();
+                event.commit();
+            }
+        }
+    }
+
+    private static void dispatch(String input, TaskList tasks, Ui ui, Storage storage) throws HhvrfnException {
         if (input == null || input.trim().isEmpty()) {
             // Ignore empty lines.
             return;
@@ -70,8 +277,19 @@ public final class Parser {
         input = input.trim().replaceAll("\\s+", " ");
         Logger.info("Processing command: " + input);
 
-        if (input.equals("list")) {
-            handleList(tasks, ui);
+        if (input.equals("undo")) {
+            handleUndo(tasks, ui, storage);
+            return;
+        }
+        if (input.equals("redo")) {
+            handleRedo(tasks, ui, storage);
+            return;
+        }
+        // Everything this command changes is undone as one step.
+        tasks.beginChange(input);
+
+        if (input.equals("list") || input.startsWith("list ")) {
+            handleList(input, tasks, ui);
             return;
         }
         if (input.startsWith("mark ")) {
@@ -90,6 +308,10 @@ public final class Parser {
             handleDeadline(input, tasks, ui, storage);
             return;
         }
+        if (input.equals("recur") || input.startsWith("recur ")) {
+            handleRecur(input, tasks, ui, storage);
+            return;
+        }
         if (input.startsWith("event ")) {
             handleEvent(input, tasks, ui, storage);
             return;
@@ -98,14 +320,54 @@ public final class Parser {
             handleDelete(input, tasks, ui, storage);
             return;
         }
+        if (input.equals("priority") || input.startsWith("priority ")) {
+            handlePriority(input, tasks, ui, storage);
+            return;
+        }
+        if (input.equals("next") || input.startsWith("next ")) {
+            handleNext(input, tasks, ui);
+            return;
+        }
         if (input.equals("find") || input.startsWith("find ")) {
-            handleFind(input, tasks, ui);
+            handleFind(input, tasks, ui, storage);
+            return;
+        }
+        if (input.equals("query") || input.startsWith("query ")) {
+            handleQuery(input, tasks, ui);
+            return;
+        }
+        if (input.equals("sort") || input.startsWith("sort ")) {
+            handleSort(input, tasks, ui);
             return;
         }
         if (input.equals("snooze") || input.startsWith("snooze ")) {
             handleSnooze(input, tasks, ui, storage);
             return;
         }
+        if (input.equals("archive") || input.startsWith("archive ")) {
+            handleArchive(input, tasks, ui, storage);
+            return;
+        }
+        if (input.equals("summary") || input.startsWith("summary ")) {
+            handleSummary(input, tasks, ui);
+            return;
+        }
+        if (input.equals("overlap") || input.startsWith("overlap ")) {
+            handleOverlap(input, tasks, ui);
+            return;
+        }
+        if (input.equals("agenda") || input.startsWith("agenda ")) {
+            handleAgenda(input, tasks, ui);
+            return;
+        }
+        if (input.equals("export") || input.startsWith("export ")) {
+            handleExport(input, tasks, ui);
+            return;
+        }
+        if (input.equals("import") || input.startsWith("import ")) {
+            handleImport(input, tasks, ui, storage);
+            return;
+        }
         if (input.equals("help")) {
             handleHelp(ui);
             return;
@@ -117,9 +379,30 @@ public final class Parser {
 
     /* ============================= Handlers ============================ */
 
-    // Shows the full list; no persistence.
-    private static void handleList(TaskList tasks, Ui ui) {
-        ui.showList(tasks);
+    // Shows the full list, or with "#tag" arguments the tasks carrying all of them; no persistence.
+    private static void handleList(String input, TaskList tasks, Ui ui) throws HhvrfnException {
+        if (input.equals("list")) {
+            ui.showList(tasks);
+            return;
+        }
+        final String args = input.substring(5);
+        final List<String> tags = new ArrayList<>();
+        for (String word : args.split(" ")) {
+            final List<String> parsed = Task.parseTags(word);
+            if (parsed.size() != 1 || word.length() != parsed.get(0).length() + 1) {
+                throw new HhvrfnException(USAGE_LIST);
+            }
+            tags.add(parsed.get(0));
+        }
+        ui.showTagged(args, tasks, tasks.positionsTagged(tags));
+    }
+
+    // Saves the list; if another process changed the file meanwhile, adopts the merged result.
+    private static void persist(TaskList tasks, Ui ui, Storage storage) throws HhvrfnException {
+        storage.save(tasks);
+        if (storage.applyMerge(tasks)) {
+            ui.showSyncNotice("Merged changes made to this list by another window; use 'list' to see them.");
+        }
     }
 
     // Shows help information; no persistence.
@@ -132,10 +415,9 @@ public final class Parser {
         final int index = parseIndex(input);
         ensureNotEmpty(tasks, MSG_EMPTY_LIST);
         ensureInRange(index, tasks.size(), "Invalid index for mark. Use 1.." + tasks.size());
-        final Task t = tasks.get(index - 1);
-        t.markAsDone();
+        final Task t = tasks.markAsDone(index - 1);
         ui.showMarked(t);
-        storage.save(tasks.asList());
+        persist(tasks, ui, storage);
     }
 
     // Marks a task as not done and persists.
@@ -143,10 +425,9 @@ public final class Parser {
         final int index = parseIndex(input);
         ensureNotEmpty(tasks, MSG_EMPTY_LIST);
         ensureInRange(index, tasks.size(), "Invalid index for unmark. Use 1.." + tasks.size());
-        final Task t = tasks.get(index - 1);
-        t.markAsNotDone();
+        final Task t = tasks.markAsNotDone(index - 1);
         ui.showUnmarked(t);
-        storage.save(tasks.asList());
+        persist(tasks, ui, storage);
     }
 
     // Adds a TODO and persists. Handles both "todo" and "todo xxx".
@@ -161,7 +442,7 @@ public final class Parser {
         final Task t = new Todo(desc);
         tasks.add(t);
         ui.showAdded(t, tasks.size());
-        storage.save(tasks.asList());
+        persist(tasks, ui, storage);
     }
 
     // Adds a Deadline and persists.
@@ -185,7 +466,7 @@ public final class Parser {
             final Task t = new Deadline(desc, date);
             tasks.add(t);
             ui.showAdded(t, tasks.size());
-            storage.save(tasks.asList());
+            persist(tasks, ui, storage);
         } catch (DateTimeParseException dtpe) {
             throw new HhvrfnException(ERR_DATE_INVALID);
         }
@@ -208,10 +489,57 @@ public final class Parser {
         if (desc.length() > 1000) {
             throw new HhvrfnException(ERR_EVENT_TOO_LONG);
         }
-        final Task t = new Event(desc, from, to); // Event still uses String.
+        final Event t = new Event(desc, from, to); // typed bounds when both parse as dates
+        if (t.hasTypedBounds()) {
+            validateDateRange(t.getStart().toLocalDate());
+            validateDateRange(t.getEnd().toLocalDate());
+            if (t.getEnd().isBefore(t.getStart())) {
+                throw new HhvrfnException(ERR_EVENT_ORDER);
+            }
+        }
         tasks.add(t);
         ui.showAdded(t, tasks.size());
-        storage.save(tasks.asList());
+        persist(tasks, ui, storage);
+    }
+
+    // Adds a recurring task (one stored rule) and persists.
+    private static void handleRecur(String input, TaskList tasks, Ui ui, Storage storage) throws HhvrfnException {
+        final String rest = input.length() == 5 ? "" : input.substring(6).trim();
+        final int fromPos = rest.indexOf("/from ");
+        final int everyPos = rest.indexOf("/every ");
+        final int untilPos = rest.indexOf("/until ");
+        if (fromPos < 0 || everyPos < fromPos || untilPos >= 0 && untilPos < everyPos) {
+            throw new HhvrfnException(USAGE_RECUR);
+        }
+        final String desc = rest.substring(0, fromPos).trim();
+        if (desc.isEmpty()) {
+            throw new HhvrfnException(USAGE_RECUR);
+        }
+        if (desc.length() > 1000) {
+            throw new HhvrfnException(ERR_TODO_TOO_LONG);
+        }
+        final Period step = Recurring.parseEvery(rest.substring(everyPos + 7, untilPos < 0 ? rest.length() : untilPos));
+        if (step == null) {
+            throw new HhvrfnException(USAGE_RECUR);
+        }
+        try {
+            final LocalDate start = LocalDate.parse(rest.substring(fromPos + 6, everyPos).trim());
+            validateDateRange(start);
+            LocalDate until = null;
+            if (untilPos >= 0) {
+                until = LocalDate.parse(rest.substring(untilPos + 7).trim());
+                validateDateRange(until);
+                if (until.isBefore(start)) {
+                    throw new HhvrfnException("/until must not be before /from.");
+                }
+            }
+            final Recurring t = new Recurring(desc, start, step, until);
+            tasks.add(t);
+            ui.showAdded(t, tasks.size());
+            persist(tasks, ui, storage);
+        } catch (DateTimeParseException dtpe) {
+            throw new HhvrfnException(ERR_DATE_INVALID);
+        }
     }
 
     // Deletes a task and persists.
@@ -221,11 +549,34 @@ public final class Parser {
         ensureInRange(index, tasks.size(), "Invalid index for delete. Use 1.." + tasks.size());
         final Task removed = tasks.remove(index - 1);
         ui.showDeleted(removed, tasks.size());
-        storage.save(tasks.asList());
+        persist(tasks, ui, storage);
+    }
+
+    // Sets or clears a task's priority and persists. Format: priority INDEX N
+    private static void handlePriority(String input, TaskList tasks, Ui ui, Storage storage) throws HhvrfnException {
+        final String[] parts = input.split(" ");
+        if (parts.length != 3 || !parts[2].matches("[0-9]")) {
+            throw new HhvrfnException(USAGE_PRIORITY);
+        }
+        final int index = parseIndex("mark " + parts[1]);
+        ensureNotEmpty(tasks, MSG_EMPTY_LIST);
+        ensureInRange(index, tasks.size(), "Invalid index for priority. Use 1.." + tasks.size());
+        ui.showPriority(tasks.setPriority(index - 1, Integer.parseInt(parts[2])));
+        persist(tasks, ui, storage);
+    }
+
+    // Shows the most urgent undone tasks; no persistence. Format: next [COUNT]
+    private static void handleNext(String input, TaskList tasks, Ui ui) throws HhvrfnException {
+        final String[] parts = input.split(" ");
+        if (parts.length > 2 || (parts.length == 2 && !parts[1].matches("[1-9][0-9]{0,5}"))) {
+            throw new HhvrfnException(USAGE_NEXT);
+        }
+        final int count = parts.length == 2 ? Integer.parseInt(parts[1]) : 1;
+        ui.showNext(tasks, tasks.next(count));
     }
 
-    // Finds tasks by keyword; no persistence. Handles both "find" and "find xxx".
-    private static void handleFind(String input, TaskList tasks, Ui ui) throws HhvrfnException {
+    // Finds tasks by keyword; no persistence. Handles "find", "find xxx" and "find --all xxx" (with the archive).
+    private static void handleFind(String input, TaskList tasks, Ui ui, Storage storage) throws HhvrfnException {
         if (input.equals("find")) {
             throw new HhvrfnException(ERR_FIND_EMPTY);
         }
@@ -236,10 +587,71 @@ public final class Parser {
         if (keyword.length() > 100) {
             throw new HhvrfnException(ERR_FIND_TOO_LONG);
         }
+        if (keyword.startsWith("~")) {
+            final String query = keyword.substring(1).trim();
+            if (query.isEmpty()) {
+                throw new HhvrfnException(ERR_FIND_EMPTY);
+            }
+            final List<Task> ranked = new ArrayList<>();
+            for (int position : tasks.findFuzzy(query, FUZZY_LIMIT)) {
+                ranked.add(tasks.get(position));
+            }
+            ui.showFindResults(ranked);
+            return;
+        }
+        if (keyword.equals("--all") || keyword.startsWith("--all ")) {
+            final String rest = keyword.substring(5).trim();
+            if (rest.isEmpty()) {
+                throw new HhvrfnException(ERR_FIND_EMPTY);
+            }
+            ui.showFindAllResults(tasks.findByKeyword(rest), storage.findArchived(rest));
+            return;
+        }
         final List<Task> matches = tasks.findByKeyword(keyword);
         ui.showFindResults(matches);
     }
 
+    // Moves old done tasks to the compressed archive and persists. Format: archive [DAYS]
+    private static void handleArchive(String input, TaskList tasks, Ui ui, Storage storage) throws HhvrfnException {
+        final String[] parts = input.split(" ");
+        if (parts.length > 2 || (parts.length == 2 && !parts[1].matches("[0-9]{1,5}"))) {
+            throw new HhvrfnException(USAGE_ARCHIVE);
+        }
+        final int days = parts.length == 2 ? Integer.parseInt(parts[1]) : 0;
+        final int moved = storage.archive(tasks, LocalDate.now().minusDays(days));
+        ui.showArchived(moved, tasks.size());
+        if (moved > 0) {
+            persist(tasks, ui, storage);
+        }
+    }
+
+    // Filters tasks with a compiled query expression; no persistence.
+    private static void handleQuery(String input, TaskList tasks, Ui ui) throws HhvrfnException {
+        final String expression = input.equals("query") ? "" : input.substring(6).trim();
+        if (expression.isEmpty()) {
+            throw new HhvrfnException(USAGE_QUERY);
+        }
+        final TaskQuery query = TaskQuery.parse(expression);
+        final List<Task> matches = new ArrayList<>();
+        for (int position : tasks.findMatching(query)) {
+            matches.add(tasks.get(position));
+        }
+        ui.showFindResults(matches);
+    }
+
+    // Shows the list in a cached sort order; no persistence. Format: sort by date|type|status|description
+    private static void handleSort(String input, TaskList tasks, Ui ui) throws HhvrfnException {
+        final String[] parts = input.split(" ");
+        if (parts.length != 3 || !parts[1].equals("by")) {
+            throw new HhvrfnException(USAGE_SORT);
+        }
+        final SortedView.Key key = SortedView.Key.of(parts[2]);
+        if (key == null) {
+            throw new HhvrfnException(USAGE_SORT);
+        }
+        ui.showSorted(key.name().toLowerCase(), tasks, tasks.sortedOrder(key));
+    }
+
     // Snoozes (reschedules) a Deadline and persists.
     private static void handleSnooze(String input, TaskList tasks, Ui ui, Storage storage) throws HhvrfnException {
         // Format: snooze INDEX /to yyyy-MM-dd
@@ -276,18 +688,158 @@ public final class Parser {
         try {
             final LocalDate newDate = LocalDate.parse(dateStr); // yyyy-MM-dd
             validateDateRange(newDate);
-            final Deadline d = (Deadline) task;
-            d.reschedule(newDate);
-            ui.showSnoozed(d);
-            storage.save(tasks.asList());
+            ui.showSnoozed(tasks.reschedule(index - 1, newDate));
+            persist(tasks, ui, storage);
+        } catch (DateTimeParseException dtpe) {
+            throw new HhvrfnException(ERR_DATE_INVALID);
+        }
+    }
+
+    // Reverts the last change-making command and persists.
+    private static void handleUndo(TaskList tasks, Ui ui, Storage storage) throws HhvrfnException {
+        final String label = tasks.undo();
+        if (label == null) {
+            throw new HhvrfnException("Nothing to undo.");
+        }
+        ui.showUndone(label);
+        persist(tasks, ui, storage);
+    }
+
+    // Re-applies the last undone command and persists.
+    private static void handleRedo(TaskList tasks, Ui ui, Storage storage) throws HhvrfnException {
+        final String label = tasks.redo();
+        if (label == null) {
+            throw new HhvrfnException("Nothing to redo.");
+        }
+        ui.showRedone(label);
+        persist(tasks, ui, storage);
+    }
+
+    // Shows the maintained counters; "--check" also compares them with a full recount. No persistence.
+    private static void handleSummary(String input, TaskList tasks, Ui ui) throws HhvrfnException {
+        final String option = input.length() == 7 ? "" : input.substring(8).trim();
+        if (!option.isEmpty() && !option.equals("--check")) {
+            throw new HhvrfnException(USAGE_SUMMARY);
+        }
+        final LocalDate today = LocalDate.now();
+        final TaskStats.Summary summary = tasks.summary(today);
+        String check = null;
+        if (!option.isEmpty()) {
+            final TaskStats.Summary recounted = TaskStats.recount(tasks, today);
+            if (recounted.equals(summary)) {
+                check = "Check passed: the counters match a full recount.";
+            } else {
+                Logger.warn("Summary counters " + summary + " differ from recount " + recounted);
+                check = "Check FAILED: a full recount gives " + recounted.getTotal() + " tasks, "
+                        + recounted.getDone() + " done, " + recounted.getOverdue() + " overdue, "
+                        + recounted.getDueThisWeek() + " due this week.";
+            }
+        }
+        ui.showSummary(summary, check);
+    }
+
+    // Lists events overlapping a window; no persistence. Format: overlap FROM TO
+    private static void handleOverlap(String input, TaskList tasks, Ui ui) throws HhvrfnException {
+        final String[] parts = input.split(" ");
+        final String fromText;
+        final String toText;
+        if (parts.length == 3) {
+            fromText = parts[1];
+            toText = parts[2];
+        } else if (parts.length == 5) {
+            fromText = parts[1] + " " + parts[2];
+            toText = parts[3] + " " + parts[4];
+        } else {
+            throw new HhvrfnException(USAGE_OVERLAP);
+        }
+        final LocalDateTime from = Event.parseBound(fromText, false);
+        final LocalDateTime to = Event.parseBound(toText, true);
+        if (from == null || to == null) {
+            throw new HhvrfnException(USAGE_OVERLAP);
+        }
+        if (to.isBefore(from)) {
+            throw new HhvrfnException("The end of the window must not be before its start.");
+        }
+        final List<Task> matches = new ArrayList<>();
+        for (int position : tasks.findOverlappingEvents(from, to)) {
+            matches.add(tasks.get(position));
+        }
+        ui.showAgenda("Events between " + fromText + " and " + toText + ":", matches);
+    }
+
+    // Shows the events and deadlines of one day; no persistence. Format: agenda yyyy-MM-dd
+    private static void handleAgenda(String input, TaskList tasks, Ui ui) throws HhvrfnException {
+        final String dateStr = input.length() == 6 ? "" : input.substring(7).trim();
+        if (dateStr.isEmpty()) {
+            throw new HhvrfnException(USAGE_AGENDA);
+        }
+        try {
+            final LocalDate date = LocalDate.parse(dateStr);
+            final List<Task> matches = new ArrayList<>();
+            for (int position : tasks.findOverlappingEvents(date.atStartOfDay(), date.atTime(LocalTime.MAX))) {
+                matches.add(tasks.get(position));
+            }
+            for (int position : tasks.findDeadlinesOn(date)) {
+                matches.add(tasks.get(position));
+            }
+            for (int position : tasks.findOccurrencesOn(date)) {
+                matches.add(tasks.get(position));
+            }
+            ui.showAgenda("Agenda for " + dateStr + ":", matches);
         } catch (DateTimeParseException dtpe) {
             throw new HhvrfnException(ERR_DATE_INVALID);
         }
     }
 
+    // Streams all tasks to a file; no persistence. Format: export FILE [--format txt|csv|ndjson]
+    private static void handleExport(String input, TaskList tasks, Ui ui) throws HhvrfnException {
+        String rest = input.length() == 6 ? "" : input.substring(7).trim();
+        TaskTransfer.Format format = null;
+        final int formatPos = rest.indexOf("--format");
+        if (formatPos >= 0) {
+            final String name = rest.substring(formatPos + 8).trim();
+            if (name.isEmpty()) {
+                throw new HhvrfnException(USAGE_EXPORT);
+            }
+            format = TaskTransfer.Format.of(name);
+            rest = rest.substring(0, formatPos).trim();
+        }
+        if (rest.isEmpty()) {
+            throw new HhvrfnException(USAGE_EXPORT);
+        }
+        final Path file = toPath(rest);
+        if (format == null) {
+            format = TaskTransfer.Format.forFile(file);
+        }
+        final int written = TaskTransfer.exportTo(file, format, tasks);
+        ui.showExported(written, file.toString());
+    }
+
+    // Appends tasks from a file, skipping invalid and duplicate records, then persists once.
+    private static void handleImport(String input, TaskList tasks, Ui ui, Storage storage) throws HhvrfnException {
+        final String rest = input.length() == 6 ? "" : input.substring(7).trim();
+        if (rest.isEmpty()) {
+            throw new HhvrfnException(USAGE_IMPORT);
+        }
+        final TaskTransfer.ImportResult result = TaskTransfer.importFrom(toPath(rest), tasks);
+        ui.showImported(result.getAdded(), result.getDuplicates(), result.getInvalid(), tasks.size());
+        if (result.getAdded() > 0) {
+            persist(tasks, ui, storage);
+        }
+    }
+
 
     /* ============================== Helpers ============================= */
 
+    // Converts a user-supplied file name into a path.
+    private static Path toPath(String fileName) throws HhvrfnException {
+        try {
+            return Paths.get(fileName);
+        } catch (InvalidPathException e) {
+            throw new HhvrfnException("Invalid file name: " + fileName);
+        }
+    }
+
     // Validates that a date is within reasonable bounds
     private static void validateDateRange(LocalDate date) throws HhvrfnException {
         LocalDate minDate = LocalDate.of(1900, 1, 1);
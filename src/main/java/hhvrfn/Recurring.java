@@ -0,0 +1,282 @@
+package hhvrfn;
+
+import java.time.LocalDate;
+import java.time.Period;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Represents a task that repeats every N days, weeks or months from a start date,
+ * optionally until an end date. Only the rule and the dates of completed occurrences
+ * are kept; occurrences themselves are computed on demand, so a rule costs the same
+ * to store and load however far it repeats.
+ *
+ * <p>Instances are not changed in place: completing or reopening an occurrence returns
+ * a new task, which keeps undo and the packed store simple.
+ */
+public class Recurring extends Task {
+    private static final DateTimeFormatter PRETTY = DateTimeFormatter.ofPattern("MMM d yyyy");
+    private static final String NONE = "-";
+
+    private final LocalDate start;
+    // Either whole days or whole months; occurrence k is start plus k steps.
+    private final Period step;
+    private final LocalDate until;
+    private final TreeSet<LocalDate> completed;
+
+    /**
+     * Constructs a recurring task with no completed occurrences.
+     *
+     * @param description the description of the task
+     * @param start       date of the first occurrence
+     * @param step        time between occurrences, a positive number of days or of months
+     *                    (see {@link #parseEvery(String)})
+     * @param until       last date an occurrence may fall on, or null to repeat forever
+     */
+    public Recurring(String description, LocalDate start, Period step, LocalDate until) {
+        this(description, start, step, until, new TreeSet<>());
+    }
+
+    private Recurring(String description, LocalDate start, Period step, LocalDate until,
+            TreeSet<LocalDate> completed) {
+        super(description, TaskType.RECURRING);
+        assert step.getYears() == 0 && (step.getDays() > 0) != (step.getMonths() > 0)
+                : "Recurring: step must be whole days or whole months";
+        this.start = start;
+        this.step = step;
+        this.until = until;
+        this.completed = completed;
+        this.isDone = nextPending() == null;
+    }
+
+    /**
+     * Parses a repeat specification such as "daily", "week", "2 weeks" or "3 months".
+     *
+     * @param spec the specification
+     * @return the step between occurrences, or null if it is not recognised
+     */
+    static Period parseEvery(String spec) {
+        String s = spec.trim().toLowerCase();
+        switch (s) {
+        case "daily":
+            return Period.ofDays(1);
+        case "weekly":
+            return Period.ofWeeks(1);
+        case "monthly":
+            return Period.ofMonths(1);
+        default:
+            break;
+        }
+        String[] parts = s.split(" ");
+        if (parts.length > 2) {
+            return null;
+        }
+        int n;
+        try {
+            n = parts.length == 2 ? Integer.parseInt(parts[0]) : 1;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        if (n <= 0 || n > 1000) {
+            return null;
+        }
+        String word = parts[parts.length - 1];
+        switch (word.endsWith("s") ? word.substring(0, word.length() - 1) : word) {
+        case "day":
+            return Period.ofDays(n);
+        case "week":
+            return Period.ofWeeks(n);
+        case "month":
+            return Period.ofMonths(n);
+        default:
+            return null;
+        }
+    }
+
+    /**
+     * Returns the date of the first occurrence that comes after every completed one,
+     * or null if the rule has run out.
+     */
+    public LocalDate nextPending() {
+        long k = completed.isEmpty() ? 0 : firstIndexOnOrAfter(completed.last().plusDays(1));
+        LocalDate next = occurrence(k);
+        return until != null && next.isAfter(until) ? null : next;
+    }
+
+    @Override
+    public LocalDate getDueDate() {
+        return nextPending();
+    }
+
+    /**
+     * Returns the occurrences falling within {@code [from, to]}, computed from the rule.
+     *
+     * @param from first date (inclusive)
+     * @param to   last date (inclusive)
+     * @return occurrence dates in order
+     */
+    public List<LocalDate> occurrencesBetween(LocalDate from, LocalDate to) {
+        List<LocalDate> dates = new ArrayList<>();
+        LocalDate last = until != null && until.isBefore(to) ? until : to;
+        for (long k = firstIndexOnOrAfter(from); !occurrence(k).isAfter(last); k++) {
+            dates.add(occurrence(k));
+        }
+        return dates;
+    }
+
+    /**
+     * Returns whether the occurrence on {@code date} has been completed.
+     */
+    public boolean isCompletedOn(LocalDate date) {
+        return completed.contains(date);
+    }
+
+    /**
+     * Returns the date of the last occurrence once every occurrence is completed, else null.
+     */
+    @Override
+    public LocalDate getDoneOn() {
+        return isDone && !completed.isEmpty() ? completed.last() : null;
+    }
+
+    /**
+     * Returns a copy with the next pending occurrence completed.
+     *
+     * @return the updated task, or this task if nothing is pending
+     */
+    public Recurring withNextCompleted() {
+        LocalDate next = nextPending();
+        if (next == null) {
+            return this;
+        }
+        TreeSet<LocalDate> dates = new TreeSet<>(completed);
+        dates.add(next);
+        return withCompleted(dates);
+    }
+
+    /**
+     * Returns a copy with the most recently completed occurrence reopened.
+     *
+     * @return the updated task, or this task if nothing was completed
+     */
+    public Recurring withLastReopened() {
+        if (completed.isEmpty()) {
+            return this;
+        }
+        TreeSet<LocalDate> dates = new TreeSet<>(completed);
+        dates.pollLast();
+        return withCompleted(dates);
+    }
+
+    private Recurring withCompleted(TreeSet<LocalDate> dates) {
+        Recurring copy = new Recurring(description, start, step, until, dates);
+        copy.priority = priority;
+        return copy;
+    }
+
+    /**
+     * Encodes the rule and completed dates as the storage fields that follow the description:
+     * "START | EVERY | UNTIL | DONE_DATES", with "-" for an open end or no completed dates.
+     *
+     * @return the encoded fields
+     */
+    String encodeRule() {
+        StringBuilder done = new StringBuilder();
+        for (LocalDate d : completed) {
+            done.append(done.length() == 0 ? "" : ",").append(d);
+        }
+        return start + " | " + every() + " | " + (until == null ? NONE : until) + " | "
+                + (done.length() == 0 ? NONE : done);
+    }
+
+    /**
+     * Rebuilds a recurring task from its description and {@link #encodeRule()} fields.
+     *
+     * @param description the description
+     * @param fields      the encoded fields, already split
+     * @return the task
+     * @throws IllegalArgumentException if the fields are malformed
+     */
+    static Recurring decodeRule(String description, String[] fields) {
+        if (fields.length < 2) {
+            throw new IllegalArgumentException("Recurring rule needs a start and a repeat");
+        }
+        Period every = parseEvery(fields[1]);
+        if (every == null) {
+            throw new IllegalArgumentException("Bad repeat: " + fields[1]);
+        }
+        LocalDate until = fields.length < 3 || fields[2].equals(NONE) ? null : LocalDate.parse(fields[2]);
+        TreeSet<LocalDate> done = new TreeSet<>();
+        if (fields.length >= 4 && !fields[3].equals(NONE)) {
+            for (String d : fields[3].split(",")) {
+                done.add(LocalDate.parse(d.trim()));
+            }
+        }
+        return new Recurring(description, LocalDate.parse(fields[0]), every, until, done);
+    }
+
+    @Override
+    public void markAsDone() {
+        // Occurrences are completed through withNextCompleted(); the flag is derived.
+    }
+
+    @Override
+    public void markAsNotDone() {
+        // Occurrences are reopened through withLastReopened(); the flag is derived.
+    }
+
+    /**
+     * Builds the string representation of this recurring task.
+     *
+     * @return the rule and the next pending occurrence
+     */
+    @Override
+    protected String render() {
+        LocalDate next = nextPending();
+        return "[" + type + "][" + getStatusIcon() + "] " + description + " (every " + every() + " from "
+                + start.format(PRETTY) + (until == null ? "" : " until " + until.format(PRETTY))
+                + (next == null ? "; all done)" : "; next: " + next.format(PRETTY) + ")");
+    }
+
+    // "week", "3 days", "2 months": the form parseEvery() reads back.
+    private String every() {
+        int n;
+        String name;
+        if (step.getMonths() > 0) {
+            n = step.getMonths();
+            name = "month";
+        } else if (step.getDays() % 7 == 0) {
+            n = step.getDays() / 7;
+            name = "week";
+        } else {
+            n = step.getDays();
+            name = "day";
+        }
+        return n == 1 ? name : n + " " + name + "s";
+    }
+
+    private LocalDate occurrence(long k) {
+        // Months are added to the start each time so that e.g. Jan 31 gives Feb 28 then Mar 31.
+        return step.getMonths() > 0 ? start.plusMonths(k * step.getMonths()) : start.plusDays(k * step.getDays());
+    }
+
+    // Index of the first occurrence on or after date (0 if date is before the start).
+    private long firstIndexOnOrAfter(LocalDate date) {
+        if (!date.isAfter(start)) {
+            return 0;
+        }
+        long k = step.getMonths() > 0
+                ? ChronoUnit.MONTHS.between(start, date) / step.getMonths()
+                : ChronoUnit.DAYS.between(start, date) / step.getDays();
+        while (occurrence(k).isBefore(date)) {
+            k++;
+        }
+        while (k > 0 && !occurrence(k - 1).isBefore(date)) {
+            k--;
+        }
+        return k;
+    }
+}
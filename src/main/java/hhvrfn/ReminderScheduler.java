@@ -0,0 +1,158 @@
+package hhvrfn;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Schedules reminders for the undone deadlines of one task list.
+ * Recurring tasks count as a deadline on their next pending occurrence.
+ * Each undone deadline has one entry in a queue ordered by the date its next reminder is
+ * due: first a "due soon" reminder {@link #LEAD_DAYS} before the deadline, then an
+ * "overdue" one the day after it. The scheduler follows the list as a {@link TaskListener},
+ * so marking or snoozing a task re-queues only that task in O(log n), and polling looks at
+ * the head of the queue only. Updates that keep a task undone and its deadline unchanged
+ * leave its entry, and so its progress through the stages, as it was.
+ */
+public final class ReminderScheduler implements TaskListener {
+    /** Days before a deadline that the "due soon" reminder fires. */
+    public static final int LEAD_DAYS = 1;
+
+    private static final Comparator<Entry> BY_FIRE_DATE =
+            Comparator.comparing((Entry e) -> e.fireOn).thenComparingLong(e -> e.sequence);
+
+    /**
+     * A reminder that has come due.
+     */
+    public static final class Reminder {
+        private final String listName;
+        private final Task task;
+        private final boolean isOverdue;
+
+        private Reminder(String listName, Task task, boolean isOverdue) {
+            this.listName = listName;
+            this.task = task;
+            this.isOverdue = isOverdue;
+        }
+
+        public String getListName() {
+            return listName;
+        }
+
+        public Task getTask() {
+            return task;
+        }
+
+        public boolean isOverdue() {
+            return isOverdue;
+        }
+    }
+
+    private static final class Entry {
+        private Task task;
+        private final LocalDate by;
+        private final long sequence;
+        private LocalDate fireOn;
+        private boolean isQueued;
+
+        private Entry(Task task, LocalDate by, long sequence) {
+            this.task = task;
+            this.by = by;
+            this.sequence = sequence;
+            this.fireOn = by.minusDays(LEAD_DAYS);
+        }
+    }
+
+    private final String listName;
+    private final TreeSet<Entry> queue = new TreeSet<>(BY_FIRE_DATE);
+    // Entry of the task at each position, or null for tasks that need no reminder.
+    private final ArrayList<Entry> byPosition = new ArrayList<>();
+    private long nextSequence;
+
+    /**
+     * Constructs a scheduler for the named list; attach it with {@link TaskList#addListener}.
+     *
+     * @param listName name shown with this list's reminders
+     */
+    public ReminderScheduler(String listName) {
+        this.listName = listName;
+    }
+
+    @Override
+    public void taskInserted(int index, Task task) {
+        Entry e = entryFor(task);
+        byPosition.add(index, e);
+        enqueue(e);
+    }
+
+    @Override
+    public void taskRemoved(int index, Task task) {
+        dequeue(byPosition.remove(index));
+    }
+
+    @Override
+    public void taskUpdated(int index, Task task) {
+        Entry old = byPosition.get(index);
+        if (old != null && !task.isDone && old.by.equals(task.getDueDate())) {
+            // Same undone deadline, e.g. a new priority or tag: reminders already shown stay shown.
+            old.task = task;
+            return;
+        }
+        dequeue(old);
+        Entry e = entryFor(task);
+        byPosition.set(index, e);
+        enqueue(e);
+    }
+
+    /**
+     * Returns the reminders due on or before {@code today}, each at most once per stage.
+     *
+     * @param today the current date
+     * @return reminders in order of their due dates
+     */
+    public List<Reminder> pollDue(LocalDate today) {
+        List<Reminder> due = new ArrayList<>();
+        while (!queue.isEmpty() && !queue.first().fireOn.isAfter(today)) {
+            Entry e = queue.pollFirst();
+            e.isQueued = false;
+            boolean isOverdue = today.isAfter(e.by);
+            due.add(new Reminder(listName, e.task, isOverdue));
+            if (!isOverdue) {
+                e.fireOn = e.by.plusDays(1);
+                enqueue(e);
+            }
+        }
+        return due;
+    }
+
+    /**
+     * Returns the date the next reminder fires, or null if none is scheduled.
+     */
+    public LocalDate nextFireDate() {
+        return queue.isEmpty() ? null : queue.first().fireOn;
+    }
+
+    private Entry entryFor(Task task) {
+        LocalDate due = task.getDueDate();
+        if (due == null || task.isDone) {
+            return null;
+        }
+        return new Entry(task, due, nextSequence++);
+    }
+
+    private void enqueue(Entry e) {
+        if (e != null) {
+            queue.add(e);
+            e.isQueued = true;
+        }
+    }
+
+    private void dequeue(Entry e) {
+        if (e != null && e.isQueued) {
+            queue.remove(e);
+            e.isQueued = false;
+        }
+    }
+}
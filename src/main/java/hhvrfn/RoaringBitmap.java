@@ -0,0 +1,326 @@
+package hhvrfn;
+
+import java.util.Arrays;
+
+/**
+ * A compressed set of non-negative ints in the style of a Roaring bitmap. Values are grouped
+ * into chunks of 65,536 by their high 16 bits. A chunk with at most {@value #ARRAY_MAX} values
+ * is a sorted array of their low halves; a fuller one is a 65,536-bit bitmap. Sparse sets stay
+ * small, dense ones cost one bit per value, and an intersection only looks at chunks both sides
+ * have, ANDing whole words where both are bitmaps.
+ */
+final class RoaringBitmap {
+    // Above this many values a chunk is smaller as a bitmap (8 KiB) than as an array.
+    static final int ARRAY_MAX = 4096;
+    private static final int WORDS = 1024;
+
+    // Chunk keys (high 16 bits) in ascending order, and the chunk for each.
+    private char[] keys = new char[4];
+    private Chunk[] chunks = new Chunk[4];
+    private int chunkCount;
+    private int cardinality;
+
+    /**
+     * Adds a value.
+     *
+     * @param value non-negative value
+     * @return true if it was not already present
+     */
+    boolean add(int value) {
+        char high = (char) (value >>> 16);
+        int at = find(high);
+        if (at < 0) {
+            at = -at - 1;
+            insertChunk(at, high, new Chunk());
+        }
+        if (chunks[at].add((char) value)) {
+            cardinality++;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Removes a value.
+     *
+     * @param value value to remove
+     * @return true if it was present
+     */
+    boolean remove(int value) {
+        int at = find((char) (value >>> 16));
+        if (at < 0 || !chunks[at].remove((char) value)) {
+            return false;
+        }
+        cardinality--;
+        if (chunks[at].size == 0) {
+            System.arraycopy(keys, at + 1, keys, at, chunkCount - at - 1);
+            System.arraycopy(chunks, at + 1, chunks, at, chunkCount - at - 1);
+            chunks[--chunkCount] = null;
+        }
+        return true;
+    }
+
+    /**
+     * Returns whether a value is present.
+     */
+    boolean contains(int value) {
+        int at = find((char) (value >>> 16));
+        return at >= 0 && chunks[at].contains((char) value);
+    }
+
+    /**
+     * Returns the number of values.
+     */
+    int cardinality() {
+        return cardinality;
+    }
+
+    /**
+     * Returns whether there are no values.
+     */
+    boolean isEmpty() {
+        return cardinality == 0;
+    }
+
+    /**
+     * Returns the values present in both this set and {@code other}.
+     *
+     * @param other set to intersect with
+     * @return a new set
+     */
+    RoaringBitmap and(RoaringBitmap other) {
+        RoaringBitmap result = new RoaringBitmap();
+        int i = 0;
+        int j = 0;
+        while (i < chunkCount && j < other.chunkCount) {
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                Chunk both = Chunk.and(chunks[i], other.chunks[j]);
+                if (both.size > 0) {
+                    result.insertChunk(result.chunkCount, keys[i], both);
+                    result.cardinality += both.size;
+                }
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Adds {@code delta} to every value that is at least {@code from}, e.g. after a list
+     * position was inserted or removed. Chunks wholly below {@code from} are untouched.
+     * The caller ensures no value collides with or drops below another.
+     *
+     * @param from  smallest value to move
+     * @param delta amount to move by
+     */
+    void shift(int from, int delta) {
+        int first = find((char) (from >>> 16));
+        first = first < 0 ? -first - 1 : first;
+        if (first == chunkCount) {
+            return;
+        }
+        int moved = 0;
+        for (int c = first; c < chunkCount; c++) {
+            moved += chunks[c].size;
+        }
+        int[] values = new int[moved];
+        int n = 0;
+        for (int c = first; c < chunkCount; c++) {
+            n = chunks[c].copyTo(keys[c] << 16, values, n);
+            chunks[c] = null;
+        }
+        chunkCount = first;
+        cardinality -= moved;
+        for (int v : values) {
+            add(v >= from ? v + delta : v);
+        }
+    }
+
+    /**
+     * Returns the values in ascending order.
+     *
+     * @return a new array
+     */
+    int[] toArray() {
+        int[] values = new int[cardinality];
+        int n = 0;
+        for (int c = 0; c < chunkCount; c++) {
+            n = chunks[c].copyTo(keys[c] << 16, values, n);
+        }
+        return values;
+    }
+
+    private int find(char high) {
+        // Values are mostly appended, so check the last chunk before searching.
+        if (chunkCount > 0 && keys[chunkCount - 1] == high) {
+            return chunkCount - 1;
+        }
+        return Arrays.binarySearch(keys, 0, chunkCount, high);
+    }
+
+    private void insertChunk(int at, char high, Chunk chunk) {
+        if (chunkCount == keys.length) {
+            keys = Arrays.copyOf(keys, chunkCount * 2);
+            chunks = Arrays.copyOf(chunks, chunkCount * 2);
+        }
+        System.arraycopy(keys, at, keys, at + 1, chunkCount - at);
+        System.arraycopy(chunks, at, chunks, at + 1, chunkCount - at);
+        keys[at] = high;
+        chunks[at] = chunk;
+        chunkCount++;
+    }
+
+    /**
+     * The low halves of the values sharing one high half, as a sorted array or a bitmap.
+     */
+    private static final class Chunk {
+        private char[] values = new char[4];
+        private long[] bits;
+        private int size;
+
+        boolean add(char low) {
+            if (bits != null) {
+                long mask = 1L << low;
+                if ((bits[low >>> 6] & mask) != 0) {
+                    return false;
+                }
+                bits[low >>> 6] |= mask;
+                size++;
+                return true;
+            }
+            int at = Arrays.binarySearch(values, 0, size, low);
+            if (at >= 0) {
+                return false;
+            }
+            if (size == ARRAY_MAX) {
+                toBitmap();
+                return add(low);
+            }
+            at = -at - 1;
+            if (size == values.length) {
+                values = Arrays.copyOf(values, Math.min(ARRAY_MAX, size * 2));
+            }
+            System.arraycopy(values, at, values, at + 1, size - at);
+            values[at] = low;
+            size++;
+            return true;
+        }
+
+        boolean remove(char low) {
+            if (bits != null) {
+                long mask = 1L << low;
+                if ((bits[low >>> 6] & mask) == 0) {
+                    return false;
+                }
+                bits[low >>> 6] &= ~mask;
+                size--;
+                if (size == ARRAY_MAX) {
+                    toArrayChunk();
+                }
+                return true;
+            }
+            int at = Arrays.binarySearch(values, 0, size, low);
+            if (at < 0) {
+                return false;
+            }
+            System.arraycopy(values, at + 1, values, at, size - at - 1);
+            size--;
+            return true;
+        }
+
+        boolean contains(char low) {
+            if (bits != null) {
+                return (bits[low >>> 6] & (1L << low)) != 0;
+            }
+            return Arrays.binarySearch(values, 0, size, low) >= 0;
+        }
+
+        // Writes the full values (high | low) into out from offset n; returns the new offset.
+        int copyTo(int high, int[] out, int n) {
+            if (bits == null) {
+                for (int i = 0; i < size; i++) {
+                    out[n++] = high | values[i];
+                }
+                return n;
+            }
+            for (int w = 0; w < WORDS; w++) {
+                long word = bits[w];
+                while (word != 0) {
+                    out[n++] = high | (w << 6) | Long.numberOfTrailingZeros(word);
+                    word &= word - 1;
+                }
+            }
+            return n;
+        }
+
+        static Chunk and(Chunk a, Chunk b) {
+            Chunk result = new Chunk();
+            if (a.bits != null && b.bits != null) {
+                result.bits = new long[WORDS];
+                for (int w = 0; w < WORDS; w++) {
+                    result.bits[w] = a.bits[w] & b.bits[w];
+                    result.size += Long.bitCount(result.bits[w]);
+                }
+                result.values = null;
+                if (result.size <= ARRAY_MAX) {
+                    result.toArrayChunk();
+                }
+                return result;
+            }
+            if (a.bits != null) {
+                return and(b, a);
+            }
+            // a is an array: keep the values b also has.
+            result.values = new char[Math.max(4, Math.min(a.size, b.size))];
+            if (b.bits != null) {
+                for (int i = 0; i < a.size; i++) {
+                    if (b.contains(a.values[i])) {
+                        result.values[result.size++] = a.values[i];
+                    }
+                }
+                return result;
+            }
+            int i = 0;
+            int j = 0;
+            while (i < a.size && j < b.size) {
+                if (a.values[i] < b.values[j]) {
+                    i++;
+                } else if (a.values[i] > b.values[j]) {
+                    j++;
+                } else {
+                    result.values[result.size++] = a.values[i];
+                    i++;
+                    j++;
+                }
+            }
+            return result;
+        }
+
+        private void toBitmap() {
+            bits = new long[WORDS];
+            for (int i = 0; i < size; i++) {
+                bits[values[i] >>> 6] |= 1L << values[i];
+            }
+            values = null;
+        }
+
+        private void toArrayChunk() {
+            char[] array = new char[Math.max(4, size)];
+            int n = 0;
+            for (int w = 0; w < WORDS; w++) {
+                long word = bits[w];
+                while (word != 0) {
+                    array[n++] = (char) ((w << 6) | Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+            values = array;
+            bits = null;
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package hhvrfn;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+
+/**
+ * Records the commands of a session, with when they were entered, how long they took and
+ * what they printed, so that {@link SessionReplayer} can run real workloads again. Sessions
+ * are appended to a text file, one block per session:
+ * <pre>
+ * # hhvrfn session cli 2026-03-10T09:15:02.114
+ * &#64;0 1874 todo read book
+ * | ____________________________________________________________
+ * |  Got it. I've added this task:
+ * ...
+ * </pre>
+ * A step line holds the milliseconds since the session started, the command's latency in
+ * microseconds and the command; the output lines follow it. Each step is flushed as it is
+ * recorded, so a session survives a crash up to its last command.
+ */
+final class SessionRecorder implements AutoCloseable {
+    static final String HEADER = "# hhvrfn session ";
+    static final char STEP = '@';
+    static final String OUTPUT = "| ";
+
+    private BufferedWriter writer;
+    private final long startNanos = System.nanoTime();
+
+    private SessionRecorder(BufferedWriter writer) {
+        this.writer = writer;
+    }
+
+    /**
+     * Starts recording to the file named by {@link Hhvrfn#RECORD_PROPERTY}, if it is set.
+     * A file that cannot be opened is logged and the session goes unrecorded.
+     *
+     * @param ui which front end records, "cli" or "gui"; only CLI output can be compared on replay
+     * @return the recorder, or null if recording is off or unavailable
+     */
+    static SessionRecorder startConfigured(String ui) {
+        String file = System.getProperty(Hhvrfn.RECORD_PROPERTY);
+        if (file == null || file.isBlank()) {
+            return null;
+        }
+        try {
+            Path path = Paths.get(file);
+            Path parent = path.getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            writer.write(HEADER + ui + " " + LocalDateTime.now());
+            writer.newLine();
+            writer.flush();
+            Logger.info("Recording session to: " + path);
+            return new SessionRecorder(writer);
+        } catch (IOException e) {
+            Logger.error("Cannot record session to " + file, e);
+            return null;
+        }
+    }
+
+    /**
+     * Appends one step. A failed write is logged and ends the recording.
+     *
+     * @param command      the command as entered
+     * @param startNanos   {@link System#nanoTime()} when the command started
+     * @param latencyNanos how long the command took
+     * @param output       what the command printed
+     */
+    void record(String command, long startNanos, long latencyNanos, String output) {
+        if (writer == null) {
+            return;
+        }
+        try {
+            writer.write(STEP + Long.toString((startNanos - this.startNanos) / 1_000_000) + " "
+                    + latencyNanos / 1000 + " " + command);
+            writer.newLine();
+            for (String line : output.split("\\R", -1)) {
+                writer.write(OUTPUT + line);
+                writer.newLine();
+            }
+            writer.flush();
+        } catch (IOException e) {
+            Logger.error("Failed to record session step; recording stops", e);
+            close();
+        }
+    }
+
+    @Override
+    public void close() {
+        if (writer == null) {
+            return;
+        }
+        try {
+            writer.close();
+        } catch (IOException e) {
+            Logger.warn("Failed to close session recording: " + e.getMessage());
+        }
+        writer = null;
+    }
+
+    /**
+     * Runs {@code action} while collecting what it prints to {@link System#out}.
+     *
+     * @param action code that prints through {@link Ui}
+     * @param isEcho whether the output still reaches the console as well
+     * @return the printed text, without a trailing line break
+     */
+    static String capture(Runnable action, boolean isEcho) {
+        PrintStream console = System.out;
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        OutputStream sink = !isEcho ? buffer : new OutputStream() {
+            @Override
+            public void write(int b) {
+                buffer.write(b);
+                console.write(b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                buffer.write(b, off, len);
+                console.write(b, off, len);
+            }
+
+            @Override
+            public void flush() {
+                console.flush();
+            }
+        };
+        System.setOut(new PrintStream(sink, true, StandardCharsets.UTF_8));
+        try {
+            action.run();
+        } finally {
+            System.out.flush();
+            System.setOut(console);
+        }
+        String text = buffer.toString(StandardCharsets.UTF_8);
+        String newline = System.lineSeparator();
+        return text.endsWith(newline) ? text.substring(0, text.length() - newline.length()) : text;
+    }
+}
@@ -0,0 +1,279 @@
+package hhvrfn;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * Runs the commands of a session recorded by {@link SessionRecorder} again against a copy of
+ * a data file and the other lists next to it, at the recorded pace or as fast as possible, and
+ * reports the latency of each kind of command next to the recorded one together with any
+ * output that changed. The data files themselves are never modified. Output that depends on
+ * the current date, such as reminders, is only stable when replayed on the day of the recording.
+ */
+final class SessionReplayer {
+    // Differences shown in full; the rest are only counted.
+    private static final int MAX_SHOWN_DIFFS = 5;
+
+    private final List<Step> steps = new ArrayList<>();
+
+    /** One recorded command. */
+    static final class Step {
+        private final boolean isSessionStart;
+        private final long offsetMillis;
+        private final long recordedMicros;
+        private final String command;
+        private final boolean isComparable;
+        private final List<String> output = new ArrayList<>();
+        private long replayedNanos;
+        private String replayedOutput;
+
+        private Step(boolean isSessionStart, long offsetMillis, long recordedMicros, String command,
+                boolean isComparable) {
+            this.isSessionStart = isSessionStart;
+            this.offsetMillis = offsetMillis;
+            this.recordedMicros = recordedMicros;
+            this.command = command;
+            this.isComparable = isComparable;
+        }
+
+        private String kind() {
+            int space = command.indexOf(' ');
+            return space < 0 ? command : command.substring(0, space);
+        }
+
+        private String expectedOutput() {
+            return String.join(System.lineSeparator(), output);
+        }
+    }
+
+    /**
+     * Reads a recording.
+     *
+     * @param recording file written by {@link SessionRecorder}
+     * @throws IOException if the file cannot be read
+     * @throws HhvrfnException if the file is not a session recording
+     */
+    SessionReplayer(Path recording) throws IOException, HhvrfnException {
+        boolean isNewSession = false;
+        boolean isComparable = false;
+        try (BufferedReader br = Files.newBufferedReader(recording, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = br.readLine()) != null) {
+                if (line.startsWith(SessionRecorder.HEADER)) {
+                    isNewSession = true;
+                    isComparable = line.startsWith(SessionRecorder.HEADER + "cli ");
+                } else if (line.startsWith(SessionRecorder.OUTPUT) && !steps.isEmpty()) {
+                    steps.get(steps.size() - 1).output.add(line.substring(SessionRecorder.OUTPUT.length()));
+                } else if (line.length() > 0 && line.charAt(0) == SessionRecorder.STEP) {
+                    String[] parts = line.substring(1).split(" ", 3);
+                    try {
+                        steps.add(new Step(isNewSession, Long.parseLong(parts[0]), Long.parseLong(parts[1]),
+                                parts.length > 2 ? parts[2] : "", isComparable));
+                    } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+                        throw new HhvrfnException("Not a session recording, at: " + line);
+                    }
+                    isNewSession = false;
+                } else if (!line.isEmpty()) {
+                    throw new HhvrfnException("Not a session recording, at: " + line);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the recorded steps.
+     */
+    List<Step> getSteps() {
+        return steps;
+    }
+
+    /**
+     * Replays every step against a copy of {@code dataFile} in a temporary directory, together
+     * with what else a session on it can reach: the other lists in its directory, and each
+     * list's archive and page file.
+     *
+     * @param dataFile   data file to start from; it and its neighbours are copied, never changed
+     * @param isRealTime whether to wait between commands as the user did, rather than run flat out
+     * @return the number of steps whose output differs from the recording
+     * @throws IOException if the copy cannot be made
+     */
+    int replay(Path dataFile, boolean isRealTime) throws IOException {
+        Path dir = Files.createTempDirectory("hhvrfn-replay");
+        try {
+            Path copy = dir.resolve(dataFile.getFileName());
+            copyLists(dataFile, dir);
+            Hhvrfn app = null;
+            long sessionStart = 0;
+            int differences = 0;
+            for (Step step : steps) {
+                if (step.isSessionStart || app == null) {
+                    // Each recorded session was a fresh start of the app on the file the previous one left.
+                    if (app != null) {
+                        app.close();
+                    }
+                    app = start(copy);
+                    sessionStart = System.nanoTime();
+                }
+                Hhvrfn current = app;
+                if (isRealTime) {
+                    long waitMillis = step.offsetMillis - (System.nanoTime() - sessionStart) / 1_000_000;
+                    if (waitMillis > 0) {
+                        sleep(waitMillis);
+                    }
+                }
+                long[] elapsed = new long[1];
+                step.replayedOutput = SessionRecorder.capture(() -> {
+                    long start = System.nanoTime();
+                    current.handle(step.command);
+                    elapsed[0] = System.nanoTime() - start;
+                }, false);
+                step.replayedNanos = elapsed[0];
+                if (step.isComparable && !step.replayedOutput.equals(step.expectedOutput())) {
+                    differences++;
+                }
+            }
+            if (app != null) {
+                app.close();
+            }
+            return differences;
+        } finally {
+            try (Stream<Path> files = Files.walk(dir)) {
+                for (Path p : files.sorted(Comparator.reverseOrder()).toArray(Path[]::new)) {
+                    Files.deleteIfExists(p);
+                }
+            }
+        }
+    }
+
+    // Copies the data file, the other lists of its workspace and their archives and page files (not their locks).
+    private static void copyLists(Path dataFile, Path dir) throws IOException {
+        Path source = dataFile.toAbsolutePath().getParent();
+        if (source == null || !Files.isDirectory(source)) {
+            return;
+        }
+        String name = dataFile.getFileName().toString();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(source)) {
+            for (Path f : files) {
+                String list = f.getFileName().toString();
+                if (list.endsWith(Storage.ARCHIVE_SUFFIX)) {
+                    list = list.substring(0, list.length() - Storage.ARCHIVE_SUFFIX.length());
+                } else if (list.endsWith(BTreeStorage.PAGE_FILE_SUFFIX)) {
+                    list = list.substring(0, list.length() - BTreeStorage.PAGE_FILE_SUFFIX.length());
+                }
+                if ((list.equals(name) || list.endsWith(Workspace.EXTENSION)) && Files.isRegularFile(f)) {
+                    Files.copy(f, dir.resolve(f.getFileName()), StandardCopyOption.COPY_ATTRIBUTES);
+                }
+            }
+        }
+    }
+
+    // Opens the app as a session starts, dropping the startup output that was not recorded either.
+    private static Hhvrfn start(Path dataFile) {
+        Hhvrfn[] app = new Hhvrfn[1];
+        SessionRecorder.capture(() -> {
+            app[0] = new Hhvrfn(dataFile.toString());
+            app[0].showDueReminders();
+        }, false);
+        return app[0];
+    }
+
+    /**
+     * Prints per-command latency percentiles, replayed and recorded, and the first output differences.
+     *
+     * @param out where to print
+     */
+    void report(PrintStream out) {
+        Map<String, List<Step>> byKind = new TreeMap<>();
+        for (Step step : steps) {
+            byKind.computeIfAbsent(step.kind(), k -> new ArrayList<>()).add(step);
+        }
+        out.printf("%-12s %6s %9s %9s %9s %9s %12s%n", "command", "count", "p50 ms", "p90 ms", "p99 ms", "max ms",
+                "recorded p50");
+        for (Map.Entry<String, List<Step>> entry : byKind.entrySet()) {
+            List<Step> kind = entry.getValue();
+            long[] replayed = kind.stream().mapToLong(s -> s.replayedNanos / 1000).toArray();
+            long[] recorded = kind.stream().mapToLong(s -> s.recordedMicros).toArray();
+            out.printf("%-12s %6d %9.3f %9.3f %9.3f %9.3f %12.3f%n", entry.getKey(), kind.size(),
+                    percentile(replayed, 50) / 1000.0, percentile(replayed, 90) / 1000.0,
+                    percentile(replayed, 99) / 1000.0, percentile(replayed, 100) / 1000.0,
+                    percentile(recorded, 50) / 1000.0);
+        }
+        int compared = 0;
+        int differing = 0;
+        for (int i = 0; i < steps.size(); i++) {
+            Step step = steps.get(i);
+            if (!step.isComparable) {
+                continue;
+            }
+            compared++;
+            if (!step.replayedOutput.equals(step.expectedOutput()) && ++differing <= MAX_SHOWN_DIFFS) {
+                out.println("Output of step " + (i + 1) + " (" + step.command + ") differs:");
+                printDiff(out, step.output, Arrays.asList(step.replayedOutput.split("\\R", -1)));
+            }
+        }
+        if (compared == 0) {
+            out.println("No CLI output was recorded, so none was compared.");
+        } else {
+            out.println((compared - differing) + " of " + compared + " outputs matched the recording"
+                    + (differing > MAX_SHOWN_DIFFS ? "; only the first " + MAX_SHOWN_DIFFS + " differences are shown."
+                            : "."));
+        }
+    }
+
+    /**
+     * Returns the value below which {@code percent} percent of {@code values} fall, by nearest rank.
+     *
+     * @param values  samples; sorted in place
+     * @param percent percentile from 1 to 100
+     * @return the percentile, or 0 for no samples
+     */
+    static long percentile(long[] values, int percent) {
+        if (values.length == 0) {
+            return 0;
+        }
+        Arrays.sort(values);
+        int rank = (int) Math.ceil(percent / 100.0 * values.length);
+        return values[Math.max(0, rank - 1)];
+    }
+
+    // Lines from the first one that differs, expected then actual, as in a unified diff.
+    private static void printDiff(PrintStream out, List<String> expected, List<String> actual) {
+        int from = 0;
+        while (from < expected.size() && from < actual.size() && expected.get(from).equals(actual.get(from))) {
+            from++;
+        }
+        int toExpected = expected.size();
+        int toActual = actual.size();
+        while (toExpected > from && toActual > from && expected.get(toExpected - 1).equals(actual.get(toActual - 1))) {
+            toExpected--;
+            toActual--;
+        }
+        for (String line : expected.subList(from, toExpected)) {
+            out.println("  - " + line);
+        }
+        for (String line : actual.subList(from, toActual)) {
+            out.println("  + " + line);
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package hhvrfn;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * A task list's positions ordered by one sort key, ties broken by position.
+ * The order is built once with a parallel sort and then follows the list as a
+ * {@link TaskListener}: an insertion, removal or update moves just that task's entry,
+ * found by binary search, instead of sorting the whole list again. Changes anywhere but the
+ * end also renumber the later positions, a linear pass; bulk replacements therefore drop
+ * the view (see {@link TaskList#replaceFrom}) rather than follow it task by task.
+ */
+public final class SortedView implements TaskListener {
+    /**
+     * The orderings a view can be sorted by.
+     */
+    public enum Key {
+        /** Due date of deadlines and recurring tasks, start date of events; undated tasks last. */
+        DATE,
+        /** Task type in the order todo, deadline, event, recurring. */
+        TYPE,
+        /** Undone tasks first. */
+        STATUS,
+        /** Description, ignoring case. */
+        DESCRIPTION;
+
+        /**
+         * Returns the key with the given name, ignoring case, or null if there is none.
+         */
+        public static Key of(String name) {
+            for (Key k : values()) {
+                if (k.name().equalsIgnoreCase(name)) {
+                    return k;
+                }
+            }
+            return null;
+        }
+    }
+
+    private final Key key;
+    // Sort key of the task at each position: a number, or for DESCRIPTION a lower-case string.
+    private int[] ranks;
+    private String[] texts;
+    // Positions in sorted order.
+    private int[] order;
+    private int size;
+
+    private SortedView(Key key, int capacity) {
+        this.key = key;
+        int n = Math.max(capacity, 16);
+        if (key == Key.DESCRIPTION) {
+            texts = new String[n];
+        } else {
+            ranks = new int[n];
+        }
+        order = new int[n];
+    }
+
+    /**
+     * Builds the view over the current contents of a store. The caller registers it as a
+     * listener so that it stays current.
+     *
+     * @param key   sort key
+     * @param tasks tasks to order
+     * @return the view
+     */
+    static SortedView build(Key key, TaskStore tasks) {
+        int n = tasks.size();
+        SortedView view = new SortedView(key, n);
+        for (int i = 0; i < n; i++) {
+            view.setKey(i, tasks.get(i));
+        }
+        view.size = n;
+        if (key == Key.DESCRIPTION) {
+            Integer[] boxed = new Integer[n];
+            for (int i = 0; i < n; i++) {
+                boxed[i] = i;
+            }
+            Arrays.parallelSort(boxed, view::compare);
+            for (int i = 0; i < n; i++) {
+                view.order[i] = boxed[i];
+            }
+        } else {
+            // Rank in the high half, position in the low half: sorting the longs sorts by both.
+            long[] packed = new long[n];
+            for (int i = 0; i < n; i++) {
+                packed[i] = ((long) view.ranks[i] << 32) | i;
+            }
+            Arrays.parallelSort(packed);
+            for (int i = 0; i < n; i++) {
+                view.order[i] = (int) packed[i];
+            }
+        }
+        return view;
+    }
+
+    /**
+     * Returns the positions in sorted order.
+     *
+     * @return a copy of the order
+     */
+    int[] order() {
+        return Arrays.copyOf(order, size);
+    }
+
+    @Override
+    public void taskInserted(int index, Task task) {
+        if (size == order.length) {
+            grow();
+        }
+        shiftKeys(index, index + 1, size - index);
+        setKey(index, task);
+        if (index < size) {
+            for (int i = 0; i < size; i++) {
+                if (order[i] >= index) {
+                    order[i]++;
+                }
+            }
+        }
+        size++;
+        insertIntoOrder(index, size - 1);
+    }
+
+    @Override
+    public void taskRemoved(int index, Task task) {
+        removeFromOrder(slotOf(index), size);
+        size--;
+        shiftKeys(index + 1, index, size - index);
+        if (texts != null) {
+            texts[size] = null;
+        }
+        if (index == size) {
+            return; // the last position: no other position moves
+        }
+        for (int i = 0; i < size; i++) {
+            if (order[i] > index) {
+                order[i]--;
+            }
+        }
+    }
+
+    @Override
+    public void taskUpdated(int index, Task task) {
+        int slot = slotOf(index);
+        setKey(index, task);
+        boolean inPlace = (slot == 0 || compare(order[slot - 1], index) < 0)
+                && (slot == size - 1 || compare(index, order[slot + 1]) < 0);
+        if (!inPlace) {
+            removeFromOrder(slot, size);
+            insertIntoOrder(index, size - 1);
+        }
+    }
+
+    private void setKey(int position, Task task) {
+        switch (key) {
+        case DATE:
+            LocalDate date = dateOf(task);
+            ranks[position] = date == null ? Integer.MAX_VALUE : (int) date.toEpochDay();
+            break;
+        case TYPE:
+            ranks[position] = task.getType().ordinal();
+            break;
+        case STATUS:
+            ranks[position] = task.isDone ? 1 : 0;
+            break;
+        default:
+            texts[position] = task.description.toLowerCase();
+            break;
+        }
+    }
+
+    private static LocalDate dateOf(Task task) {
+        LocalDate due = task.getDueDate();
+        if (due == null && task instanceof Event && ((Event) task).hasTypedBounds()) {
+            return ((Event) task).getStart().toLocalDate();
+        }
+        return due;
+    }
+
+    private int compare(int a, int b) {
+        int c = key == Key.DESCRIPTION ? texts[a].compareTo(texts[b]) : Integer.compare(ranks[a], ranks[b]);
+        return c != 0 ? c : Integer.compare(a, b);
+    }
+
+    // Slot of a position in the order, found by binary search on its current key.
+    private int slotOf(int position) {
+        int lo = 0;
+        int hi = size - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int c = compare(order[mid], position);
+            if (c == 0) {
+                return mid;
+            } else if (c < 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        throw new IllegalStateException("SortedView: position " + position + " is not in the order");
+    }
+
+    // Inserts a position into the first `used` slots of the order, where it belongs.
+    private void insertIntoOrder(int position, int used) {
+        int lo = 0;
+        int hi = used;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (compare(order[mid], position) < 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        System.arraycopy(order, lo, order, lo + 1, used - lo);
+        order[lo] = position;
+    }
+
+    private void removeFromOrder(int slot, int used) {
+        System.arraycopy(order, slot + 1, order, slot, used - slot - 1);
+    }
+
+    private void shiftKeys(int from, int to, int count) {
+        if (texts != null) {
+            System.arraycopy(texts, from, texts, to, count);
+        } else {
+            System.arraycopy(ranks, from, ranks, to, count);
+        }
+    }
+
+    private void grow() {
+        order = Arrays.copyOf(order, order.length * 2);
+        if (texts != null) {
+            texts = Arrays.copyOf(texts, texts.length * 2);
+        } else {
+            ranks = Arrays.copyOf(ranks, ranks.length * 2);
+        }
+    }
+}
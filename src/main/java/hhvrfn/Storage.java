@@ -1,7 +1,13 @@
 package hhvrfn;
 
+import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.AccessDeniedException;
 import java.nio.file.FileSystemException;
@@ -9,19 +15,84 @@ import java.nio.file.Files;
 import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  * Handles persisting tasks to disk and loading them at startup.
  * Uses a simple line-based format, e.g.:
  * T | 1 | read book
  * D | 0 | return book | June 6th
- * E | 0 | project meeting | Aug 6th 2-4pm
+ * E | 0 | project meeting | Aug 6th 2pm | 4pm
+ * E | 0 | sprint review | 2019-10-15T14:00 | 2019-10-15T16:00
+ * R | 0 | water plants | 2026-01-05 | week | - | 2026-01-05,2026-01-12
+ * Legacy event rows with a single "FROM to TO" field are still read.
+ *
+ * <p>Several processes (e.g. the CLI and the GUI) may share one data file. Reads and writes
+ * hold an exclusive lock on a sidecar {@code .lock} file, and the size and modification time
+ * seen at the last read or write identify the file's generation. A save that finds a newer
+ * generation merges line by line instead of overwriting, and {@link #refresh(TaskList)}
+ * picks up other writers' changes, reading only the appended tail when that is all that changed.
+ *
+ * <p>A list saved through {@link #save(TaskList)} is written as segments of {@value #SEGMENT_TASKS}
+ * lines, each followed by a line of spaces that pads it to a fixed-size slot with room to grow.
+ * The list tracks which segments changed, so later saves overwrite just those slots in place;
+ * only a segment that outgrows its slot moves everything after it. Padding lines are blank,
+ * so the file reads as before.
  */
 public class Storage {
+    /** System property that disables the file watcher when set to "false". */
+    public static final String WATCH_PROPERTY = "hhvrfn.watch";
+    /** System property choosing how saves encode the data file: "plain", "gzip" or "deflate". */
+    public static final String COMPRESS_PROPERTY = "hhvrfn.compress";
+    /** System property with the deflate level (1-9) used when saving compressed files. */
+    public static final String COMPRESS_LEVEL_PROPERTY = "hhvrfn.compressLevel";
+    /** System property with the page cache size, in megabytes, of lists kept in B-tree page files. */
+    public static final String PAGE_CACHE_PROPERTY = "hhvrfn.pageCacheMb";
+    /** Tasks per segment of a segmented data file. */
+    static final int SEGMENT_TASKS = 1024;
+    /** Appended to the data file's name to name its archive. */
+    static final String ARCHIVE_SUFFIX = ".archive.gz";
+    private static final int TAIL_CHECK_BYTES = 256;
+    // Free bytes left in a freshly written segment slot: this much plus an eighth of its content.
+    private static final int SEGMENT_SLACK = 64;
+    private static final byte[] NEWLINE = System.lineSeparator().getBytes(StandardCharsets.UTF_8);
+    // Trailing field holding a task's priority, e.g. "T | 0 | read | p=2".
+    private static final String PRIORITY_FIELD = "p=";
+    // Trailing field holding the day a task was marked done, e.g. "T | 1 | read | d=2026-03-10".
+    private static final String DONE_ON_FIELD = "d=";
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
     private final Path dataFile;
+    private final Path lockFile;
+    private final Archive archive;
+    private StringPool.Stats lastLoadStats = new StringPool().stats();
+
+    // Generation of the file as last read or written by this process; knownSize < 0 means unknown.
+    private long knownSize = -1;
+    private FileTime knownModified;
+    private byte[] knownTail = new byte[0];
+    // Hash of each task line in that generation, in file order.
+    private long[] lineHashes = new long[0];
+    private int lineCount;
+    // Set when a save merged in other writers' changes that the in-memory list lacks.
+    private int pendingMergeFrom = -1;
+    private List<Task> pendingMergeTail;
+    private DataFileWatcher watcher;
+    // Where each segment slot of the file starts, then where the last one ends; null unless the file is segmented.
+    private long[] segmentStarts;
+    // The list whose dirty segments are tracked against this file.
+    private TaskList segmentOwner;
+    private int lastSegmentWrites;
 
     /**
      * Constructs a storage pointing to the given relative file path.
@@ -30,6 +101,8 @@ public class Storage {
      */
     public Storage(String relativePath) {
         this.dataFile = Paths.get(relativePath);
+        this.lockFile = Paths.get(relativePath + ".lock");
+        this.archive = new Archive(Paths.get(relativePath + ARCHIVE_SUFFIX));
     }
 
     /**
@@ -40,40 +113,114 @@ public class Storage {
      * @throws HhvrfnException If an unrecoverable I/O error occurs.
      */
     public ArrayList<Task> load() throws HhvrfnException {
-        Logger.info("Loading tasks from: " + dataFile);
         ArrayList<Task> result = new ArrayList<>();
+        readTasks(result::add);
+        return result;
+    }
+
+    /**
+     * Creates an empty list of the kind this storage loads into, using the store selected by
+     * {@link TaskList#STORE_PROPERTY}.
+     *
+     * @return a new, empty task list
+     * @throws HhvrfnException if the list's backing files cannot be opened
+     */
+    public TaskList newList() throws HhvrfnException {
+        return TaskList.createConfigured();
+    }
+
+    /**
+     * Streams tasks from disk straight into {@code target}, one line at a time,
+     * so that no intermediate list of all tasks is built. Loading is not an undoable step.
+     *
+     * @param target The task list to append loaded tasks to.
+     * @throws HhvrfnException If an unrecoverable I/O error occurs.
+     */
+    public void loadInto(TaskList target) throws HhvrfnException {
+        try {
+            readTasks(target::add);
+        } finally {
+            target.clearHistory();
+        }
+        segmentOwner = target;
+        target.trackSegments(SEGMENT_TASKS);
+    }
+
+    private void readTasks(Consumer<Task> sink) throws HhvrfnException {
+        Logger.info("Loading tasks from: " + dataFile);
         try {
             ensureFileExists();
-            for (String line : Files.readAllLines(dataFile, StandardCharsets.UTF_8)) {
-                Task t = parseLine(line);
+            long start = System.nanoTime();
+            StorageEvent event = new StorageEvent();
+            event.begin();
+            StringPool pool = new StringPool();
+            int[] counts = whileLocked(() -> readAll(sink, pool));
+            lastLoadStats = pool.stats();
+            commitEvent(event, "load", counts[0], counts[1], 0);
+            Logger.info("Successfully loaded " + counts[0] + " tasks (" + describeFile(start) + "); de-duplication: "
+                    + pool);
+            startWatching();
+        } catch (IOException e) {
+            throw toLoadException(e);
+        }
+    }
+
+    // Reads the whole file; returns the number of tasks read and of corrupted lines skipped.
+    private int[] readAll(Consumer<Task> sink, StringPool pool) throws IOException {
+        int count = 0;
+        int skipped = 0;
+        try (BufferedReader br = Compression.newReader(dataFile)) {
+            lineCount = 0;
+            SegmentScan scan = Compression.detect(dataFile) == Compression.Format.PLAIN ? new SegmentScan() : null;
+            String line;
+            while ((line = br.readLine()) != null) {
+                Task t = parseLine(line, pool);
                 if (t != null) {
-                    result.add(t);
+                    sink.accept(t);
+                    appendHash(hash(serialize(t)));
+                    count++;
+                } else if (!line.isBlank()) {
+                    skipped++;
+                }
+                if (scan != null) {
+                    scan.accept(line, t != null);
                 }
             }
-            Logger.info("Successfully loaded " + result.size() + " tasks");
-            return result;
+            segmentStarts = scan == null ? null : scan.starts(Files.size(dataFile));
+            rememberGeneration();
+        }
+        return new int[] {count, skipped};
+    }
+
+    // Translates load-time I/O failures into user-facing messages.
+    private HhvrfnException toLoadException(IOException ioe) {
+        try {
+            throw ioe;
         } catch (AccessDeniedException e) {
             Logger.error("Failed to load data - permission denied", e);
-            throw new HhvrfnException("Cannot load data: Permission denied. "
+            return new HhvrfnException("Cannot load data: Permission denied. "
                     + "Please check if you have read access to the file: " + dataFile);
         } catch (NoSuchFileException e) {
             Logger.warn("Data file not found, will create new file: " + dataFile);
-            throw new HhvrfnException("Cannot load data: Data file not found at expected location: "
+            return new HhvrfnException("Cannot load data: Data file not found at expected location: "
                     + dataFile + ". A new file will be created when you add tasks.");
         } catch (FileSystemException e) {
             Logger.error("File system error during load", e);
-            throw new HhvrfnException("Cannot load data: File system error. "
+            return new HhvrfnException("Cannot load data: File system error. "
                     + "The storage location might be on a read-only drive or network location is unavailable: "
                     + e.getMessage());
         } catch (IOException e) {
             Logger.error("I/O error during load", e);
-            throw new HhvrfnException("Cannot load data: An unexpected error occurred while reading the file. "
+            return new HhvrfnException("Cannot load data: An unexpected error occurred while reading the file. "
                     + "The file might be corrupted or in use by another program: " + e.getMessage());
         }
     }
 
     /**
      * Saves all tasks to disk, overwriting the file.
+     * If another process changed the file since this one last read or wrote it, the
+     * other writer's changes are merged with ours instead of being overwritten; call
+     * {@link #applyMerge(TaskList)} afterwards to bring the in-memory list up to date.
      *
      * @param tasks The tasks to persist.
      * @throws HhvrfnException If an I/O error occurs.
@@ -82,37 +229,674 @@ public class Storage {
         Logger.info("Saving " + tasks.size() + " tasks to: " + dataFile);
         try {
             ensureFileExists();
-            try (BufferedWriter bw = Files.newBufferedWriter(dataFile, StandardCharsets.UTF_8)) {
-                for (Task t : tasks) {
-                    bw.write(serialize(t));
-                    bw.newLine();
+            long start = System.nanoTime();
+            StorageEvent event = new StorageEvent();
+            event.begin();
+            whileLocked(() -> {
+                if (knownSize >= 0 && isChangedOnDisk()) {
+                    Logger.warn("Data file was changed by another process; merging before save");
+                    writeLines(merge(tasks));
+                } else {
+                    writeTasks(tasks);
                 }
-            }
-            Logger.info("Successfully saved tasks to file");
+                segmentStarts = null;
+                rememberGeneration();
+                return null;
+            });
+            commitEvent(event, "save", lineCount, 0, 0);
+            Logger.info("Successfully saved tasks to file (" + describeFile(start) + ")");
+        } catch (IOException e) {
+            throw toSaveException(e);
+        }
+    }
+
+    /**
+     * Saves the tasks of a list. For the list last loaded by this storage into a plain file,
+     * only the segments that changed since the previous save are rewritten, in place; other
+     * lists, compressed files and files another process changed are saved as by
+     * {@link #save(ArrayList)}.
+     *
+     * @param tasks the list to persist
+     * @throws HhvrfnException If an I/O error occurs.
+     */
+    public void save(TaskList tasks) throws HhvrfnException {
+        if (!savesSegments(tasks)) {
+            save(tasks.asList());
+            return;
+        }
+        DirtySegments dirty = tasks.dirtySegments();
+        Logger.info("Saving " + tasks.size() + " tasks to: " + dataFile);
+        try {
+            ensureFileExists();
+            long start = System.nanoTime();
+            StorageEvent event = new StorageEvent();
+            event.begin();
+            boolean isMerged = whileLocked(() -> {
+                boolean isChanged = knownSize >= 0 && isChangedOnDisk();
+                if (!isChanged) {
+                    // Size and time miss a rewrite of equal size within the clock's resolution, so
+                    // writeSegments also re-reads the slots it would overwrite and declines if they differ.
+                    lastSegmentWrites = writeSegments(tasks, segmentStarts == null ? null : dirty);
+                    isChanged = lastSegmentWrites < 0;
+                }
+                if (isChanged) {
+                    Logger.warn("Data file was changed by another process; merging before save");
+                    writeLines(merge(tasks.asList()));
+                    segmentStarts = null;
+                    lastSegmentWrites = 0;
+                }
+                dirty.clear();
+                rememberGeneration();
+                return isChanged;
+            });
+            commitEvent(event, isMerged ? "save" : "segment save", lineCount, 0, isMerged ? 0 : lastSegmentWrites);
+            Logger.info("Successfully saved tasks to file (" + lastSegmentWrites + " of "
+                    + (segmentStarts == null ? "?" : segmentStarts.length - 1) + " segments written, "
+                    + describeFile(start) + ")");
+        } catch (IOException e) {
+            throw toSaveException(e);
+        }
+    }
+
+    /**
+     * Returns whether the list's changes already live in this storage, so that a save only makes
+     * them durable. Such a save works on the list itself, not on a snapshot, and must not run
+     * while the list changes.
+     *
+     * @return false for the text file, which is written from a snapshot
+     */
+    public boolean savesInPlace() {
+        return false;
+    }
+
+    /**
+     * Returns whether {@link #save(TaskList)} would rewrite only the segments of the list that
+     * changed.
+     *
+     * @param tasks the list to save
+     * @return false if the whole file would be rewritten
+     */
+    boolean savesSegments(TaskList tasks) {
+        DirtySegments dirty = tasks.dirtySegments();
+        try {
+            return tasks == segmentOwner && dirty != null && dirty.segmentSize() == SEGMENT_TASKS && isPlainOnSave();
+        } catch (HhvrfnException e) {
+            return false; // the full save reports the error
+        }
+    }
+
+    // Translates save-time I/O failures into user-facing messages.
+    private HhvrfnException toSaveException(IOException ioe) {
+        try {
+            throw ioe;
         } catch (AccessDeniedException e) {
             Logger.error("Failed to save data - permission denied", e);
-            throw new HhvrfnException("Cannot save data: Permission denied. "
+            return new HhvrfnException("Cannot save data: Permission denied. "
                     + "Please check if you have write access to the file location: " + dataFile);
         } catch (FileSystemException e) {
             String message = e.getMessage();
             if (message != null && message.toLowerCase().contains("space")) {
                 Logger.error("Failed to save data - insufficient disk space", e);
-                throw new HhvrfnException("Cannot save data: Not enough disk space available. "
+                return new HhvrfnException("Cannot save data: Not enough disk space available. "
                         + "Please free up some space and try again.");
             } else {
                 Logger.error("File system error during save", e);
-                throw new HhvrfnException("Cannot save data: File system error. "
+                return new HhvrfnException("Cannot save data: File system error. "
                         + "The storage location might be on a read-only drive or network location is unavailable: "
                         + message);
             }
         } catch (IOException e) {
             Logger.error("I/O error during save", e);
-            throw new HhvrfnException("Cannot save data: An unexpected error occurred while writing to the file. "
+            return new HhvrfnException("Cannot save data: An unexpected error occurred while writing to the file. "
                     + "The file might be in use by another program or the storage device might have issues: "
                     + e.getMessage());
         }
     }
 
+    /**
+     * Applies the result of a merging {@link #save(ArrayList)} to the in-memory list.
+     *
+     * @param tasks the list that was saved
+     * @return true if the list changed
+     */
+    public boolean applyMerge(TaskList tasks) {
+        if (pendingMergeTail == null) {
+            return false;
+        }
+        tasks.replaceFrom(pendingMergeFrom, pendingMergeTail);
+        pendingMergeTail = null;
+        pendingMergeFrom = -1;
+        return true;
+    }
+
+    /**
+     * Brings {@code tasks} up to date with changes other processes wrote to the data file.
+     * Cheap when nothing changed: the watcher (or a stat of the file) short-circuits the check.
+     * If the file only grew, just the appended lines are read; otherwise the tasks from the
+     * first changed line onwards are replaced.
+     *
+     * @param tasks the list loaded from this storage
+     * @return true if the list changed
+     * @throws HhvrfnException if the file cannot be read
+     */
+    public boolean refresh(TaskList tasks) throws HhvrfnException {
+        if (knownSize < 0 || watcher != null && !watcher.consumeChange()) {
+            return false;
+        }
+        try {
+            if (!Files.exists(dataFile) || !isChangedOnDisk()) {
+                return false;
+            }
+            return whileLocked(() -> {
+                int from;
+                List<String> lines;
+                // Only a plain file can have been appended to; a compressed one is rewritten as a whole.
+                if (Files.size(dataFile) > knownSize && Compression.detect(dataFile) == Compression.Format.PLAIN
+                        && isTailUnchanged()) {
+                    from = lineCount;
+                    lines = readNormalizedLines(knownSize);
+                } else {
+                    List<String> all = readNormalizedLines(0);
+                    from = 0;
+                    while (from < all.size() && from < lineCount && hash(all.get(from)) == lineHashes[from]) {
+                        from++;
+                    }
+                    lines = all.subList(from, all.size());
+                }
+                boolean isChanged = from < lineCount || !lines.isEmpty();
+                if (isChanged) {
+                    Logger.info("Reloading " + lines.size() + " changed lines from position " + from);
+                    tasks.replaceFrom(from, parseAll(lines));
+                    segmentStarts = null;
+                    lineCount = from;
+                    for (String line : lines) {
+                        appendHash(hash(line));
+                    }
+                }
+                rememberGeneration();
+                return isChanged;
+            });
+        } catch (IOException e) {
+            throw toLoadException(e);
+        }
+    }
+
+    /**
+     * Moves the done tasks finished on or before {@code cutoff} out of {@code tasks} and into
+     * the list's compressed archive, {@code FILE.archive.gz}. Tasks done before done dates were
+     * kept count as old. The archive is appended to first, so a failure leaves the list as it
+     * was; the caller then saves the smaller list. Undo history is cleared, since undoing would
+     * bring back tasks that also remain in the archive.
+     *
+     * @param tasks  the list loaded from this storage
+     * @param cutoff latest done date to archive
+     * @return number of tasks archived
+     * @throws HhvrfnException if the archive cannot be written
+     */
+    public int archive(TaskList tasks, LocalDate cutoff) throws HhvrfnException {
+        List<Task> moved = new ArrayList<>();
+        List<Task> kept = new ArrayList<>();
+        int first = -1;
+        for (int i = 0; i < tasks.size(); i++) {
+            Task t = tasks.get(i);
+            LocalDate doneOn = t.getDoneOn();
+            if (t.isDone && (doneOn == null || !doneOn.isAfter(cutoff))) {
+                first = first < 0 ? i : first;
+                moved.add(t);
+            } else if (first >= 0) {
+                kept.add(t);
+            }
+        }
+        if (moved.isEmpty()) {
+            return 0;
+        }
+        Logger.info("Archiving " + moved.size() + " done tasks to: " + archive.getFile());
+        try {
+            whileLocked(() -> {
+                archive.append(moved);
+                return null;
+            });
+        } catch (IOException e) {
+            throw toSaveException(e);
+        }
+        // Only the tail from the first archived task on changes, so the rest of the list stays put.
+        tasks.replaceFrom(first, kept);
+        return moved.size();
+    }
+
+    /**
+     * Searches the archive for tasks whose display text contains {@code keyword}, ignoring case.
+     * The compressed file is streamed; only matches are kept in memory.
+     *
+     * @param keyword keyword to search for (non-empty)
+     * @return matching archived tasks, oldest first
+     * @throws HhvrfnException if the archive cannot be read
+     */
+    public List<Task> findArchived(String keyword) throws HhvrfnException {
+        String needle = keyword.toLowerCase();
+        List<Task> matches = new ArrayList<>();
+        try {
+            int scanned = archive.scan(t -> t.getSearchKey().contains(needle), matches);
+            Logger.info("Searched " + scanned + " archived tasks; " + matches.size() + " matched");
+        } catch (IOException e) {
+            throw toLoadException(e);
+        }
+        return matches;
+    }
+
+    /**
+     * Stops watching the data file, e.g. when its list is unloaded.
+     */
+    public void stopWatching() {
+        if (watcher != null) {
+            watcher.close();
+            watcher = null;
+        }
+    }
+
+    /**
+     * Releases the files this storage holds, e.g. when its list is unloaded. The text file only
+     * needs its watcher stopped. The list and the generation it was loaded from are forgotten
+     * too, so an unloaded list can be collected; the next load starts afresh.
+     */
+    public void close() {
+        stopWatching();
+        segmentOwner = null;
+        segmentStarts = null;
+        pendingMergeFrom = -1;
+        pendingMergeTail = null;
+        knownSize = -1;
+        knownModified = null;
+        knownTail = new byte[0];
+        lineHashes = new long[0];
+        lineCount = 0;
+    }
+
+    /**
+     * Returns the number of segments the most recent segmented save wrote.
+     */
+    int getLastSegmentWrites() {
+        return lastSegmentWrites;
+    }
+
+    /**
+     * Returns the de-duplication statistics of the most recent load.
+     *
+     * @return the counters of the pool used by the last load (all zero before the first load)
+     */
+    public StringPool.Stats getLastLoadStats() {
+        return lastLoadStats;
+    }
+
+    /* ===================== Generations and merging ===================== */
+
+    /** Work on the data file that other processes' loads and saves must not interleave with. */
+    @FunctionalInterface
+    private interface LockedAction<T> {
+        T run() throws IOException;
+    }
+
+    // Runs action while holding the exclusive lock on the data file's lock file.
+    private <T> T whileLocked(LockedAction<T> action) throws IOException {
+        try (FileChannel channel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            FileLock lock = channel.lock();
+            try {
+                return action.run();
+            } finally {
+                lock.release();
+            }
+        }
+    }
+
+    private void startWatching() {
+        if (watcher == null && !"false".equalsIgnoreCase(System.getProperty(WATCH_PROPERTY))) {
+            watcher = DataFileWatcher.start(dataFile);
+        }
+    }
+
+    private boolean isChangedOnDisk() throws IOException {
+        return Files.size(dataFile) != knownSize || !Files.getLastModifiedTime(dataFile).equals(knownModified);
+    }
+
+    // Records the current size, modification time and last bytes of the file as ours.
+    private void rememberGeneration() throws IOException {
+        knownSize = Files.size(dataFile);
+        knownModified = Files.getLastModifiedTime(dataFile);
+        knownTail = readBytes(Math.max(0, knownSize - TAIL_CHECK_BYTES), knownSize);
+    }
+
+    // True if the bytes that used to end the file are still in place, i.e. it was only appended to.
+    private boolean isTailUnchanged() throws IOException {
+        return Arrays.equals(knownTail, readBytes(Math.max(0, knownSize - TAIL_CHECK_BYTES), knownSize));
+    }
+
+    private byte[] readBytes(long from, long to) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate((int) (to - from));
+        try (FileChannel ch = FileChannel.open(dataFile, StandardOpenOption.READ)) {
+            while (buf.hasRemaining() && ch.read(buf, from + buf.position()) >= 0) {
+                // keep reading until the range is filled or the file ends
+            }
+        }
+        return Arrays.copyOf(buf.array(), buf.position());
+    }
+
+    // Reads task lines from a byte offset (0 for a compressed file), in the form serialize() would write them.
+    private List<String> readNormalizedLines(long fromByte) throws IOException {
+        List<String> lines = new ArrayList<>();
+        try (FileChannel ch = FileChannel.open(dataFile, StandardOpenOption.READ);
+                BufferedReader br = fromByte == 0 ? Compression.newReader(dataFile)
+                        : new BufferedReader(Channels.newReader(ch.position(fromByte), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = br.readLine()) != null) {
+                Task t = parseLine(line);
+                if (t != null) {
+                    lines.add(serialize(t));
+                }
+            }
+        }
+        return lines;
+    }
+
+    /*
+     * Three-way merge of our tasks with the file written by someone else, using the line
+     * hashes of the last generation we saw as the base. Lines we dropped are removed from
+     * theirs, lines we changed replace the originals in place, and lines we added go last.
+     */
+    private List<String> merge(List<Task> ours) throws IOException {
+        Map<Long, Integer> base = new HashMap<>();
+        for (int i = 0; i < lineCount; i++) {
+            base.merge(lineHashes[i], 1, Integer::sum);
+        }
+        List<String> ourLines = new ArrayList<>(ours.size());
+        List<String> added = new ArrayList<>();
+        for (Task t : ours) {
+            String line = serialize(t);
+            ourLines.add(line);
+            if (base.merge(hash(line), -1, Integer::sum) < 0) {
+                base.merge(hash(line), 1, Integer::sum);
+                added.add(line);
+            }
+        }
+        // What is left in base are the lines we removed or replaced.
+        List<String> result = new ArrayList<>();
+        int nextAdded = 0;
+        for (String line : readNormalizedLines(0)) {
+            Integer left = base.get(hash(line));
+            if (left != null && left > 0) {
+                base.put(hash(line), left - 1);
+                if (nextAdded < added.size()) {
+                    result.add(added.get(nextAdded++));
+                }
+            } else {
+                result.add(line);
+            }
+        }
+        result.addAll(added.subList(nextAdded, added.size()));
+
+        int from = 0;
+        while (from < result.size() && from < ourLines.size() && result.get(from).equals(ourLines.get(from))) {
+            from++;
+        }
+        if (from < result.size() || from < ourLines.size()) {
+            pendingMergeFrom = from;
+            pendingMergeTail = parseAll(result.subList(from, result.size()));
+        }
+        return result;
+    }
+
+    private void writeTasks(List<Task> tasks) throws IOException {
+        lineCount = 0;
+        try (BufferedWriter bw = newWriter()) {
+            for (Task t : tasks) {
+                String line = serialize(t);
+                bw.write(line);
+                bw.newLine();
+                appendHash(hash(line));
+            }
+        }
+    }
+
+    private void writeLines(List<String> lines) throws IOException {
+        lineCount = 0;
+        try (BufferedWriter bw = newWriter()) {
+            for (String line : lines) {
+                bw.write(line);
+                bw.newLine();
+                appendHash(hash(line));
+            }
+        }
+    }
+
+    // True if the next save writes plain text, the only format whose bytes can be overwritten in place.
+    private boolean isPlainOnSave() throws HhvrfnException {
+        Compression.Format format = Compression.configuredFormat();
+        try {
+            return (format == null ? Compression.detect(dataFile) : format) == Compression.Format.PLAIN;
+        } catch (IOException e) {
+            throw toSaveException(e);
+        }
+    }
+
+    /*
+     * Overwrites each dirty segment in its slot, padded to the slot's size. From the first one
+     * that no longer fits, or with no known layout (dirty == null), the segments are written
+     * afresh to the end of the file with new slack. Every slot about to be overwritten is first
+     * re-read and compared with the lines this process last saw there; if one differs, another
+     * writer got there first, nothing is written and -1 is returned. Otherwise returns the
+     * number of segments written.
+     */
+    private int writeSegments(TaskList tasks, DirtySegments dirty) throws IOException {
+        int count = (tasks.size() + SEGMENT_TASKS - 1) / SEGMENT_TASKS;
+        long[] old = dirty == null ? new long[] {0} : segmentStarts;
+        int oldCount = old.length - 1;
+        List<Integer> inPlace = new ArrayList<>();
+        List<byte[]> contents = new ArrayList<>();
+        List<long[]> hashes = new ArrayList<>();
+        int s = 0;
+        for (; s < count && s < oldCount; s++) {
+            if (dirty.isDirty(s)) {
+                long[] segmentHashes = new long[SEGMENT_TASKS];
+                byte[] content = encodeSegment(tasks, s, segmentHashes);
+                if (content.length + NEWLINE.length > old[s + 1] - old[s]) {
+                    break;
+                }
+                inPlace.add(s);
+                contents.add(content);
+                hashes.add(segmentHashes);
+            }
+        }
+        boolean isRelocating = s < count || count < oldCount;
+        for (int slot : inPlace) {
+            int first = slot * SEGMENT_TASKS;
+            try (BufferedReader br = new BufferedReader(new StringReader(
+                    new String(readBytes(old[slot], old[slot + 1]), StandardCharsets.UTF_8)))) {
+                if (!isGeneration(br, first, Math.min(lineCount, first + SEGMENT_TASKS))) {
+                    return -1;
+                }
+            }
+        }
+        // Relocating rewrites the file from the first slot that overflowed (without a layout, from the start).
+        int relocated = Math.min(s, oldCount);
+        if (isRelocating && knownSize >= 0) {
+            try (FileChannel ch = FileChannel.open(dataFile, StandardOpenOption.READ);
+                    BufferedReader br = new BufferedReader(
+                            Channels.newReader(ch.position(old[relocated]), StandardCharsets.UTF_8))) {
+                if (!isGeneration(br, relocated * SEGMENT_TASKS, lineCount)) {
+                    return -1;
+                }
+            }
+        }
+
+        long[] starts = Arrays.copyOf(old, count + 1);
+        if (lineHashes.length < tasks.size()) {
+            lineHashes = Arrays.copyOf(lineHashes, Math.max(16, tasks.size() + tasks.size() / 2));
+        }
+        lineCount = tasks.size();
+        int written = 0;
+        try (FileChannel ch = FileChannel.open(dataFile, StandardOpenOption.WRITE)) {
+            for (int i = 0; i < inPlace.size(); i++) {
+                int slot = inPlace.get(i);
+                writeAt(ch, old[slot], padded(contents.get(i), (int) (old[slot + 1] - old[slot])));
+                recordHashes(slot, hashes.get(i));
+                written++;
+            }
+            if (isRelocating) {
+                long at = old[relocated];
+                long[] segmentHashes = new long[SEGMENT_TASKS];
+                for (; s < count; s++) {
+                    byte[] content = encodeSegment(tasks, s, segmentHashes);
+                    recordHashes(s, segmentHashes);
+                    byte[] slot = padded(content, content.length + NEWLINE.length + content.length / 8 + SEGMENT_SLACK);
+                    starts[s] = at;
+                    writeAt(ch, at, slot);
+                    at += slot.length;
+                    written++;
+                }
+                starts[count] = at;
+                ch.truncate(at);
+            }
+        }
+        segmentStarts = starts;
+        return written;
+    }
+
+    // The lines of one segment, with the hash of each line put in `hashes`.
+    private static byte[] encodeSegment(TaskList tasks, int segment, long[] hashes) {
+        StringBuilder sb = new StringBuilder();
+        int first = segment * SEGMENT_TASKS;
+        int end = Math.min(tasks.size(), first + SEGMENT_TASKS);
+        for (int i = first; i < end; i++) {
+            String line = serialize(tasks.get(i));
+            hashes[i - first] = hash(line);
+            sb.append(line).append(System.lineSeparator());
+        }
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    // Makes a written segment's line hashes the current generation's; lineCount is already the new one.
+    private void recordHashes(int segment, long[] hashes) {
+        int first = segment * SEGMENT_TASKS;
+        System.arraycopy(hashes, 0, lineHashes, first, Math.min(SEGMENT_TASKS, lineCount - first));
+    }
+
+    // True if the reader's task lines are, in order, the current generation's from line `first` up to `end`.
+    private boolean isGeneration(BufferedReader br, int first, int end) throws IOException {
+        int line = first;
+        String text;
+        while ((text = br.readLine()) != null) {
+            if (text.isBlank()) {
+                continue; // padding
+            }
+            if (line < end && hash(text) == lineHashes[line]) {
+                line++;
+                continue;
+            }
+            // Not as serialize() writes it, or not what we saw: compare the task it holds, as a load would.
+            Task t = parseLine(text);
+            if (t == null) {
+                continue;
+            }
+            if (line >= end || hash(serialize(t)) != lineHashes[line]) {
+                return false;
+            }
+            line++;
+        }
+        return line == end;
+    }
+
+    // Fills a slot of `size` bytes with the content and a padding line of spaces.
+    private static byte[] padded(byte[] content, int size) {
+        byte[] slot = Arrays.copyOf(content, size);
+        Arrays.fill(slot, content.length, size - NEWLINE.length, (byte) ' ');
+        System.arraycopy(NEWLINE, 0, slot, size - NEWLINE.length, NEWLINE.length);
+        return slot;
+    }
+
+    // Bytes a line takes in UTF-8, without encoding it.
+    private static int utf8Length(String line) {
+        int bytes = 0;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c < 0x80) {
+                bytes++;
+            } else if (c < 0x800) {
+                bytes += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < line.length()) {
+                bytes += 4;
+                i++;
+            } else {
+                bytes += 3;
+            }
+        }
+        return bytes;
+    }
+
+    private static void writeAt(FileChannel ch, long position, byte[] bytes) throws IOException {
+        ByteBuffer buf = ByteBuffer.wrap(bytes);
+        while (buf.hasRemaining()) {
+            ch.write(buf, position + buf.position());
+        }
+    }
+
+    // Saves in the configured format, or else in the one the file already has.
+    private BufferedWriter newWriter() throws IOException {
+        Compression.Format format = Compression.configuredFormat();
+        if (format == null) {
+            format = Compression.detect(dataFile);
+        }
+        return Compression.newWriter(dataFile, format, Compression.configuredLevel());
+    }
+
+    // Size on disk, format and elapsed time of the load or save that started at startNanos, for the log.
+    private String describeFile(long startNanos) throws IOException {
+        long micros = (System.nanoTime() - startNanos) / 1000;
+        Compression.Format format = Compression.detect(dataFile);
+        return Files.size(dataFile) + " bytes on disk, " + format.name().toLowerCase()
+                + (format == Compression.Format.PLAIN ? "" : " level " + Compression.configuredLevel())
+                + ", " + micros / 1000 + "." + String.format("%03d", micros % 1000) + " ms";
+    }
+
+    // Ends the Flight Recorder event of an access that just finished and commits it if it is recorded.
+    private void commitEvent(StorageEvent event, String operation, int lines, int skippedLines, int segmentsWritten)
+            throws IOException {
+        event.end();
+        if (event.shouldCommit()) {
+            event.operation = operation;
+            event.file = dataFile.toString();
+            event.format = Compression.detect(dataFile).name().toLowerCase();
+            event.bytes = Files.size(dataFile);
+            event.lines = lines;
+            event.skippedLines = skippedLines;
+            event.segmentsWritten = segmentsWritten;
+            event.commit();
+        }
+    }
+
+    private void appendHash(long h) {
+        if (lineCount == lineHashes.length) {
+            lineHashes = Arrays.copyOf(lineHashes, Math.max(16, lineCount * 2));
+        }
+        lineHashes[lineCount++] = h;
+    }
+
+    private static List<Task> parseAll(List<String> lines) {
+        List<Task> tasks = new ArrayList<>(lines.size());
+        for (String line : lines) {
+            tasks.add(parseLine(line));
+        }
+        return tasks;
+    }
+
+    // 64-bit FNV-1a; collisions are astronomically unlikely for the lines of one file.
+    static long hash(String line) {
+        long h = FNV_OFFSET;
+        for (int i = 0; i < line.length(); i++) {
+            h ^= line.charAt(i);
+            h *= FNV_PRIME;
+        }
+        return h;
+    }
+
     private void ensureFileExists() throws IOException {
         Path parent = dataFile.getParent();
         if (parent != null && !Files.exists(parent)) {
@@ -137,10 +921,29 @@ public class Storage {
         }
     }
 
-    // --- Format helpers: "T|1|desc", "D|0|desc|by", "E|0|desc|from-to"
+    // --- Format helpers: "T|1|desc", "D|0|desc|by", "E|0|desc|from|to", each optionally followed by
+    // "|d=yyyy-MM-dd" (done date) and "|p=N" (priority)
 
-    private String serialize(Task t) {
+    /**
+     * Serializes one task into a single data-file line.
+     *
+     * @param t task to serialize (non-null)
+     * @return the line, without a trailing newline
+     */
+    static String serialize(Task t) {
         assert t != null : "Storage.serialize(): task must be non-null";
+        StringBuilder line = new StringBuilder(serializeFields(t));
+        // Optional attributes trail the type's own fields, so files without them read as before.
+        if (t.isDone && t.doneOn != null && !(t instanceof Recurring)) {
+            line.append(" | ").append(DONE_ON_FIELD).append(t.doneOn.format(DateTimeFormatter.ISO_LOCAL_DATE));
+        }
+        if (t.priority > 0) {
+            line.append(" | ").append(PRIORITY_FIELD).append(t.priority);
+        }
+        return line.toString();
+    }
+
+    private static String serializeFields(Task t) {
         String done = t.getStatusIcon().equals("X") ? "1" : "0";
         if (t instanceof Deadline) {
             Deadline d = (Deadline) t;
@@ -151,13 +954,34 @@ public class Storage {
         } else if (t instanceof Event) {
             Event e = (Event) t;
             assert e.from != null && e.to != null : "Storage.serialize(): event 'from/to' is null";
-            return "E | " + done + " | " + e.description + " | " + e.from + " to " + e.to;
+            // from and to get their own fields; typed bounds are already in ISO form
+            return "E | " + done + " | " + e.description + " | " + e.from + " | " + e.to;
+        } else if (t instanceof Recurring) {
+            // the rule and completed dates; the done flag is derived from them
+            return "R | " + done + " | " + t.description + " | " + ((Recurring) t).encodeRule();
         } else { // Todo or legacy Task treated as TODO
             return "T | " + done + " | " + t.description;
         }
     }
 
-    private Task parseLine(String line) {
+    /**
+     * Parses one data-file line back into a task.
+     *
+     * @param line raw line from the data file
+     * @return the task, or null if the line is blank or corrupted
+     */
+    static Task parseLine(String line) {
+        return parseLine(line, null);
+    }
+
+    /**
+     * Parses one data-file line, sharing repeated descriptions and event times through {@code pool}.
+     *
+     * @param line raw line from the data file
+     * @param pool pool to de-duplicate strings with, or null to keep every string
+     * @return the task, or null if the line is blank or corrupted
+     */
+    static Task parseLine(String line, StringPool pool) {
         if (line == null) {
             return null;
         }
@@ -168,12 +992,25 @@ public class Storage {
         // Split only on " | " to keep user text intact.
         String[] parts = trimmed.split("\\s\\|\\s");
         try {
+            int priority = 0;
+            LocalDate doneOn = null;
+            while (parts.length > 3) {
+                String field = parts[parts.length - 1];
+                if (field.matches(PRIORITY_FIELD + "[1-9]")) {
+                    priority = field.charAt(PRIORITY_FIELD.length()) - '0';
+                } else if (field.matches(DONE_ON_FIELD + "\\d{4}-\\d{2}-\\d{2}")) {
+                    doneOn = LocalDate.parse(field.substring(DONE_ON_FIELD.length()));
+                } else {
+                    break;
+                }
+                parts = Arrays.copyOf(parts, parts.length - 1);
+            }
             if (parts.length < 3) {
                 return null; // corrupted
             }
             String type = parts[0];
             boolean done = "1".equals(parts[1]);
-            String desc = parts[2];
+            String desc = intern(pool, parts[2]);
 
             Task t;
             switch (type) {
@@ -191,24 +1028,80 @@ public class Storage {
                 if (parts.length < 4) {
                     return null;
                 }
-                // We stored "from to to" as one field; try to split by " to " once
-                String field = parts[3];
-                int sep = field.indexOf(" to ");
-                String from = sep >= 0 ? field.substring(0, sep) : field;
-                String to = sep >= 0 ? field.substring(sep + 4) : "";
-                t = new Event(desc, from, to);
+                String from;
+                String to;
+                if (parts.length >= 5) {
+                    from = parts[3];
+                    to = parts[4];
+                } else {
+                    // Legacy rows stored "from to to" as one field; split by " to " once
+                    String field = parts[3];
+                    int sep = field.indexOf(" to ");
+                    from = sep >= 0 ? field.substring(0, sep) : field;
+                    to = sep >= 0 ? field.substring(sep + 4) : "";
+                }
+                t = new Event(desc, intern(pool, from), intern(pool, to));
                 break;
+            case "R":
+                t = Recurring.decodeRule(desc, Arrays.copyOfRange(parts, 3, parts.length));
+                t.setPriority(priority);
+                return t;
             default:
                 return null; // unknown type
             }
 
             if (done) {
                 t.markAsDone();
+                t.doneOn = doneOn;
             }
+            t.setPriority(priority);
             return t;
         } catch (Exception ex) {
             // Corrupted: skip line
             return null;
         }
     }
+
+    private static String intern(StringPool pool, String s) {
+        return pool == null ? s : pool.intern(s);
+    }
+
+    /**
+     * Recognises the slots of a segmented file while it is read line by line: runs of
+     * {@value #SEGMENT_TASKS} task lines, fewer only in the last, each closed by one blank padding
+     * line. Summing the line lengths gives the slot offsets; a file of any other shape, e.g. one
+     * written by {@link #save(ArrayList)}, has no segments.
+     */
+    private static final class SegmentScan {
+        private long[] starts = new long[16];
+        private int count;
+        private long offset;
+        private int inSegment;
+        private boolean isShort;
+        private boolean isValid = true;
+
+        private void accept(String line, boolean isTask) {
+            if (!isValid) {
+                return;
+            }
+            offset += utf8Length(line) + NEWLINE.length;
+            if (isTask) {
+                isValid = !isShort && ++inSegment <= SEGMENT_TASKS;
+            } else if (line.isBlank() && inSegment > 0) {
+                isShort = inSegment < SEGMENT_TASKS;
+                inSegment = 0;
+                if (count + 1 == starts.length) {
+                    starts = Arrays.copyOf(starts, starts.length * 2);
+                }
+                starts[++count] = offset;
+            } else {
+                isValid = false;
+            }
+        }
+
+        // The slot offsets, or null if the lines did not add up to a segmented file of this size.
+        private long[] starts(long fileSize) {
+            return isValid && inSegment == 0 && offset == fileSize ? Arrays.copyOf(starts, count + 1) : null;
+        }
+    }
 }
@@ -0,0 +1,70 @@
+package hhvrfn;
+
+import java.io.IOException;
+import java.util.function.Consumer;
+
+/**
+ * A durable, positional store of tasks that is changed one task at a time, as opposed to
+ * {@link Storage}, which rewrites a whole text file per save. Changes take effect immediately
+ * for readers of the backend and become durable on {@link #commit()}. The per-task operations
+ * report I/O failures as {@link java.io.UncheckedIOException}, since they are reached through
+ * {@link TaskStore}, which cannot throw checked exceptions.
+ */
+interface StorageBackend extends AutoCloseable {
+
+    /**
+     * Returns the number of tasks.
+     */
+    int size();
+
+    /**
+     * Reads the task at a zero-based index. The result is a fresh copy; change it through the backend.
+     */
+    Task get(int index);
+
+    /**
+     * Adds a task after the last one.
+     */
+    void append(Task task);
+
+    /**
+     * Inserts a task at a zero-based index, shifting later tasks up.
+     */
+    void insert(int index, Task task);
+
+    /**
+     * Replaces the stored state of the task at a zero-based index.
+     */
+    void update(int index, Task task);
+
+    /**
+     * Deletes the task at a zero-based index, shifting later tasks down.
+     */
+    void delete(int index);
+
+    /**
+     * Streams the tasks from position {@code from} to the end, in order, without holding them all.
+     * {@code sink} must not change the backend.
+     */
+    void scan(int from, Consumer<Task> sink);
+
+    /**
+     * Makes all changes so far durable.
+     *
+     * @throws IOException if they cannot be written
+     */
+    void commit() throws IOException;
+
+    /**
+     * Returns the approximate heap bytes the backend holds, e.g. in caches.
+     */
+    long cachedBytes();
+
+    /**
+     * Commits and releases the backend's files.
+     *
+     * @throws IOException if pending changes cannot be written
+     */
+    @Override
+    void close() throws IOException;
+}
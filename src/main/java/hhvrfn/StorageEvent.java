@@ -0,0 +1,42 @@
+package hhvrfn;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event for one load or save of a data file by {@link Storage}.
+ */
+@Name("hhvrfn.Storage")
+@Label("Data File Access")
+@Category({"Hhvrfn", "Storage"})
+@Description("A load or save of a task list's data file")
+class StorageEvent extends jdk.jfr.Event {
+    @Label("Operation")
+    @Description("load, save, or segment save when only changed segments were written")
+    protected String operation;
+
+    @Label("File")
+    protected String file;
+
+    @Label("Format")
+    protected String format;
+
+    @Label("Bytes")
+    @Description("Size of the file on disk afterwards")
+    @DataAmount
+    protected long bytes;
+
+    @Label("Lines")
+    @Description("Task lines read or written")
+    protected int lines;
+
+    @Label("Skipped Lines")
+    @Description("Corrupted lines a load left out")
+    protected int skippedLines;
+
+    @Label("Segments Written")
+    protected int segmentsWritten;
+}
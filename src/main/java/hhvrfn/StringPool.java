@@ -0,0 +1,105 @@
+package hhvrfn;
+
+import java.util.HashMap;
+
+/**
+ * De-duplicates equal strings while a data file is loaded, so recurring descriptions and
+ * event times share one instance instead of one copy per line.
+ * The pool itself is meant to be discarded after the load; only the shared strings remain.
+ */
+public class StringPool {
+    // Object header + hash/coder fields of a String, plus the header of its backing byte[].
+    private static final int STRING_OVERHEAD_BYTES = 24 + 16;
+
+    private final HashMap<String, String> pool = new HashMap<>();
+    private long lookups;
+    private long hits;
+    private long bytesSaved;
+
+    /**
+     * The counters of a pool, kept after the pool and its table are discarded.
+     */
+    public static final class Stats {
+        private final long lookups;
+        private final long hits;
+        private final int distinct;
+        private final long bytesSaved;
+
+        private Stats(long lookups, long hits, int distinct, long bytesSaved) {
+            this.lookups = lookups;
+            this.hits = hits;
+            this.distinct = distinct;
+            this.bytesSaved = bytesSaved;
+        }
+
+        public long getLookups() {
+            return lookups;
+        }
+
+        public long getHits() {
+            return hits;
+        }
+
+        /**
+         * Returns the number of distinct strings seen.
+         */
+        public int getDistinct() {
+            return distinct;
+        }
+
+        /**
+         * Returns the estimated heap bytes no longer retained thanks to de-duplication.
+         */
+        public long getBytesSaved() {
+            return bytesSaved;
+        }
+
+        @Override
+        public String toString() {
+            return hits + "/" + lookups + " strings shared (" + distinct + " distinct), ~"
+                    + bytesSaved / 1024 + " KiB saved";
+        }
+    }
+
+    /**
+     * Returns the canonical instance equal to {@code s}, registering {@code s} if it is new.
+     *
+     * @param s string to de-duplicate; null is returned as is
+     * @return the shared instance
+     */
+    public String intern(String s) {
+        if (s == null) {
+            return null;
+        }
+        lookups++;
+        String existing = pool.putIfAbsent(s, s);
+        if (existing == null) {
+            return s;
+        }
+        hits++;
+        bytesSaved += STRING_OVERHEAD_BYTES + estimatedPayload(s);
+        return existing;
+    }
+
+    /**
+     * Returns the current counters, which do not hold on to the pooled strings.
+     */
+    public Stats stats() {
+        return new Stats(lookups, hits, pool.size(), bytesSaved);
+    }
+
+    @Override
+    public String toString() {
+        return stats().toString();
+    }
+
+    // Compact strings store Latin-1 text in one byte per char, anything else in two.
+    private static int estimatedPayload(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            if (s.charAt(i) > 0xFF) {
+                return s.length() * 2;
+            }
+        }
+        return s.length();
+    }
+}
@@ -0,0 +1,95 @@
+package hhvrfn;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The positions of the tasks carrying each tag, one {@link RoaringBitmap} per tag, kept current
+ * as a {@link TaskListener}. Filtering by several tags intersects their bitmaps, smallest first,
+ * instead of scanning the tasks. The tags each position was indexed under are kept as well, so
+ * that an update which leaves them alone, the usual case, costs one comparison.
+ */
+final class TagIndex implements TaskListener {
+    private final Map<String, RoaringBitmap> byTag = new HashMap<>();
+    // Per position: the tags it is indexed under.
+    private final List<List<String>> tagsAt = new ArrayList<>();
+
+    /**
+     * Returns the positions of the tasks that carry every one of {@code tags}, in list order.
+     *
+     * @param tags tags to require, without {@code #}; matched ignoring case
+     * @return sorted positions
+     */
+    int[] positionsWithAll(List<String> tags) {
+        RoaringBitmap[] sets = new RoaringBitmap[tags.size()];
+        for (int i = 0; i < sets.length; i++) {
+            sets[i] = byTag.get(tags.get(i).toLowerCase());
+            if (sets[i] == null) {
+                return new int[0];
+            }
+        }
+        if (sets.length == 0) {
+            return new int[0];
+        }
+        // The smallest set bounds the result, so starting there keeps every step small.
+        Arrays.sort(sets, Comparator.comparingInt(RoaringBitmap::cardinality));
+        RoaringBitmap result = sets[0];
+        for (int i = 1; i < sets.length && !result.isEmpty(); i++) {
+            result = result.and(sets[i]);
+        }
+        return result.toArray();
+    }
+
+    @Override
+    public void taskInserted(int index, Task task) {
+        if (index < tagsAt.size()) {
+            for (RoaringBitmap set : byTag.values()) {
+                set.shift(index, 1);
+            }
+        }
+        tagsAt.add(index, task.getTags());
+        addTags(index, task.getTags());
+    }
+
+    @Override
+    public void taskRemoved(int index, Task task) {
+        removeTags(index, tagsAt.remove(index));
+        if (index < tagsAt.size()) {
+            for (RoaringBitmap set : byTag.values()) {
+                set.shift(index + 1, -1);
+            }
+        }
+    }
+
+    @Override
+    public void taskUpdated(int index, Task task) {
+        List<String> tags = task.getTags();
+        List<String> old = tagsAt.get(index);
+        if (tags.equals(old)) {
+            return;
+        }
+        // A replacement (e.g. a recurring task's next state) may in principle carry other tags.
+        removeTags(index, old);
+        tagsAt.set(index, tags);
+        addTags(index, tags);
+    }
+
+    private void addTags(int index, List<String> tags) {
+        for (String tag : tags) {
+            byTag.computeIfAbsent(tag, k -> new RoaringBitmap()).add(index);
+        }
+    }
+
+    private void removeTags(int index, List<String> tags) {
+        for (String tag : tags) {
+            RoaringBitmap set = byTag.get(tag);
+            if (set != null && set.remove(index) && set.isEmpty()) {
+                byTag.remove(tag);
+            }
+        }
+    }
+}
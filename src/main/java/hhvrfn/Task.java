@@ -1,12 +1,30 @@
 package hhvrfn;
 
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
 /**
  * Represents a task with a description and a completion status.
  */
 public class Task {
+    /** Most urgent priority; 0 means the task has none. */
+    public static final int MAX_PRIORITY = 1;
+    /** Least urgent priority. */
+    public static final int MIN_PRIORITY = 9;
+
     protected String description;
     protected boolean isDone;
     protected TaskType type;
+    protected int priority;
+    // Day the task was last marked done, or null if unknown (e.g. done before dates were kept).
+    protected LocalDate doneOn;
+    // Display and search forms are cached until the next state change.
+    private String display;
+    private String searchKey;
+    // Tags come from the description, which never changes, so they are parsed at most once.
+    private List<String> tags;
 
     /**
      * Constructs a task with the given description and type.
@@ -34,14 +52,50 @@ public class Task {
      * Marks this task as done.
      */
     public void markAsDone() {
-        isDone = true;
+        if (!isDone) {
+            isDone = true;
+            invalidateDisplay();
+        }
     }
 
     /**
      * Marks this task as not done.
      */
     public void markAsNotDone() {
-        isDone = false;
+        if (isDone) {
+            isDone = false;
+            invalidateDisplay();
+        }
+    }
+
+    /**
+     * Returns the day the task was marked done, or null if it is not done or the day is unknown.
+     */
+    public LocalDate getDoneOn() {
+        return isDone ? doneOn : null;
+    }
+
+    /**
+     * Returns the priority, from {@value #MAX_PRIORITY} (most urgent) to {@value #MIN_PRIORITY},
+     * or 0 if none was set.
+     */
+    public int getPriority() {
+        return priority;
+    }
+
+    /**
+     * Sets the priority; change it through {@link TaskList#setPriority(int, int)} so that
+     * every store and index sees it.
+     *
+     * @param priority new priority, or 0 for none
+     */
+    void setPriority(int priority) {
+        assert priority == 0 || (priority >= MAX_PRIORITY && priority <= MIN_PRIORITY)
+            : "Task.setPriority(): priority out of range";
+        if (this.priority != priority) {
+            this.priority = priority;
+            invalidateDisplay();
+        }
     }
 
     /**
@@ -52,13 +106,101 @@ public class Task {
     }
 
     /**
-     * Returns the string representation of the task.
-     * Format: "[{type}][{status}] {description}" where type is "T"/"D"/"E"
+     * Returns the date this task is next due, or null if it has none.
+     * Deadlines are due on their date and recurring tasks on their next pending occurrence.
+     */
+    public LocalDate getDueDate() {
+        return null;
+    }
+
+    /**
+     * Returns the tags written in the description as {@code #word}, lower-cased and in order
+     * of first appearance. A tag starts the description or follows a space, and runs over
+     * letters, digits, {@code -} and {@code _}.
+     *
+     * @return the tags, possibly empty
+     */
+    public List<String> getTags() {
+        if (tags == null) {
+            tags = parseTags(description);
+        }
+        return tags;
+    }
+
+    /**
+     * Extracts the {@code #word} tags from a text, as described for {@link #getTags()}.
+     *
+     * @param text text to scan
+     * @return an unmodifiable list of distinct lower-case tags
+     */
+    static List<String> parseTags(String text) {
+        List<String> found = null;
+        for (int i = text.indexOf('#'); i >= 0; i = text.indexOf('#', i + 1)) {
+            if (i > 0 && !Character.isWhitespace(text.charAt(i - 1))) {
+                continue;
+            }
+            int end = i + 1;
+            while (end < text.length() && isTagChar(text.charAt(end))) {
+                end++;
+            }
+            if (end > i + 1) {
+                String tag = text.substring(i + 1, end).toLowerCase();
+                if (found == null) {
+                    found = new ArrayList<>(2);
+                }
+                if (!found.contains(tag)) {
+                    found.add(tag);
+                }
+            }
+        }
+        return found == null ? Collections.emptyList() : Collections.unmodifiableList(found);
+    }
+
+    private static boolean isTagChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '-' || c == '_';
+    }
+
+    /**
+     * Returns the lower-cased display text used for case-insensitive keyword search.
+     *
+     * @return the cached search key
+     */
+    public String getSearchKey() {
+        if (searchKey == null) {
+            searchKey = toString().toLowerCase();
+        }
+        return searchKey;
+    }
+
+    /**
+     * Returns the string representation of the task, built once and cached until
+     * the task changes.
      *
      * @return The string representation of the task.
      */
     @Override
     public String toString() {
+        if (display == null) {
+            display = priority > 0 ? render() + " (priority: " + priority + ")" : render();
+        }
+        return display;
+    }
+
+    /**
+     * Builds the string representation of the task.
+     * Format: "[{type}][{status}] {description}" where type is "T"/"D"/"E"
+     *
+     * @return The string representation of the task.
+     */
+    protected String render() {
         return "[" + type + "][" + getStatusIcon() + "] " + description;
     }
+
+    /**
+     * Drops the cached display and search forms; call after any change that affects them.
+     */
+    protected void invalidateDisplay() {
+        display = null;
+        searchKey = null;
+    }
 }
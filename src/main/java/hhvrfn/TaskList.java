@@ -1,19 +1,40 @@
 package hhvrfn;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
 
 /**
  * Wraps the list of tasks and provides basic operations.
+ * State changes (mark, unmark, reschedule) should go through this class so that
+ * every backing store, including the packed one, sees them.
  */
 public class TaskList {
-    private final ArrayList<Task> tasks;
+    /** System property selecting the backing store for the app's list ("list", "packed" or "btree"). */
+    public static final String STORE_PROPERTY = "hhvrfn.store";
+    // Tasks per unit of work when a query has to scan the whole list.
+    private static final int PARTITION_SIZE = 16_384;
+
+    private final TaskStore tasks;
+    private EventIndex eventIndex;
+    private FuzzyIndex fuzzyIndex;
+    private final UndoHistory history = new UndoHistory(UndoHistory.DEFAULT_LIMIT);
+    private final List<TaskListener> listeners = new ArrayList<>(1);
+    private TaskStats stats;
+    private TagIndex tagIndex;
+    private NextQueue nextQueue;
+    private DirtySegments dirtySegments;
+    private final Map<SortedView.Key, SortedView> sortedViews = new EnumMap<>(SortedView.Key.class);
 
     /**
      * Constructs an empty task list.
      */
     public TaskList() {
-        this.tasks = new ArrayList<>();
+        this.tasks = new ListTaskStore(new ArrayList<>());
     }
 
     /**
@@ -22,7 +43,41 @@ public class TaskList {
      * @param initial Tasks to populate with.
      */
     public TaskList(ArrayList<Task> initial) {
-        this.tasks = new ArrayList<>(initial);
+        this.tasks = new ListTaskStore(initial);
+    }
+
+    private TaskList(TaskStore store) {
+        this.tasks = store;
+    }
+
+    /**
+     * Constructs an empty task list backed by the compact columnar store.
+     * Tasks returned by {@link #get(int)} are then detached snapshots.
+     *
+     * @return a new, empty packed task list
+     */
+    public static TaskList packed() {
+        return new TaskList(new PackedTaskStore());
+    }
+
+    /**
+     * Constructs a task list that reads and writes its tasks through {@code backend}, holding
+     * none of them itself. Tasks returned by {@link #get(int)} are then detached copies.
+     *
+     * @param backend where the tasks live
+     * @return a task list over the backend's current tasks
+     */
+    static TaskList onBackend(StorageBackend backend) {
+        return new TaskList(new BackendTaskStore(backend));
+    }
+
+    /**
+     * Constructs an empty task list using the store selected by {@link #STORE_PROPERTY}.
+     *
+     * @return a new, empty task list
+     */
+    public static TaskList createConfigured() {
+        return "packed".equalsIgnoreCase(System.getProperty(STORE_PROPERTY)) ? packed() : new TaskList();
     }
 
     /**
@@ -40,7 +95,7 @@ public class TaskList {
      * @return true if empty, false otherwise
      */
     public boolean isEmpty() {
-        return tasks.isEmpty();
+        return tasks.size() == 0;
     }
 
     /**
@@ -61,7 +116,9 @@ public class TaskList {
      * @param task the task to add
      */
     public void add(Task task) {
-        tasks.add(task);
+        int index = tasks.size();
+        insertAt(index, task);
+        history.record(change(() -> removeAt(index), () -> insertAt(index, task)));
     }
 
     /**
@@ -76,7 +133,7 @@ public class TaskList {
         }
         for (Task t : tasksToAdd) {
             assert t != null : "TaskList.add(): null task element";
-            tasks.add(t);
+            add(t);
         }
     }
 
@@ -89,16 +146,173 @@ public class TaskList {
     public Task remove(int indexZeroBased) {
         assert indexZeroBased >= 0 && indexZeroBased < tasks.size()
             : "TaskList.remove(): index out of bounds after prior validation";
-        return tasks.remove(indexZeroBased);
+        Task removed = removeAt(indexZeroBased);
+        history.record(change(() -> insertAt(indexZeroBased, removed), () -> removeAt(indexZeroBased)));
+        return removed;
+    }
+
+    /**
+     * Marks the task at a zero-based index as done.
+     * For a recurring task this completes its next pending occurrence.
+     *
+     * @param indexZeroBased index of the task
+     * @return the updated task
+     */
+    public Task markAsDone(int indexZeroBased) {
+        Task t = tasks.get(indexZeroBased);
+        if (t instanceof Recurring) {
+            return replace(indexZeroBased, ((Recurring) t).withNextCompleted());
+        }
+        return setDone(indexZeroBased, true);
+    }
+
+    /**
+     * Marks the task at a zero-based index as not done.
+     * For a recurring task this reopens its most recently completed occurrence.
+     *
+     * @param indexZeroBased index of the task
+     * @return the updated task
+     */
+    public Task markAsNotDone(int indexZeroBased) {
+        Task t = tasks.get(indexZeroBased);
+        if (t instanceof Recurring) {
+            return replace(indexZeroBased, ((Recurring) t).withLastReopened());
+        }
+        return setDone(indexZeroBased, false);
+    }
+
+    /**
+     * Moves the deadline at a zero-based index to a new date.
+     *
+     * @param indexZeroBased index of a {@link Deadline}
+     * @param newDate        new due date (non-null)
+     * @return the updated task
+     */
+    public Task reschedule(int indexZeroBased, LocalDate newDate) {
+        Task t = tasks.get(indexZeroBased);
+        assert t instanceof Deadline : "TaskList.reschedule(): not a deadline";
+        LocalDate oldDate = ((Deadline) t).by;
+        rescheduleAt(indexZeroBased, newDate);
+        Runnable undo = () -> rescheduleAt(indexZeroBased, oldDate);
+        history.record(change(undo, () -> rescheduleAt(indexZeroBased, newDate)));
+        return tasks.get(indexZeroBased);
+    }
+
+    /**
+     * Sets the priority of the task at a zero-based index.
+     *
+     * @param indexZeroBased index of the task
+     * @param priority       from {@link Task#MAX_PRIORITY} to {@link Task#MIN_PRIORITY}, or 0 for none
+     * @return the updated task
+     */
+    public Task setPriority(int indexZeroBased, int priority) {
+        int old = tasks.get(indexZeroBased).priority;
+        setPriorityAt(indexZeroBased, priority);
+        Runnable undo = () -> setPriorityAt(indexZeroBased, old);
+        history.record(change(undo, () -> setPriorityAt(indexZeroBased, priority)));
+        return tasks.get(indexZeroBased);
+    }
+
+    /**
+     * Replaces every task from {@code indexZeroBased} onwards with {@code tail}, e.g. after
+     * another process changed the data file. Undo history is cleared, since its steps may
+     * refer to positions that no longer hold the same tasks. Sorted orders are dropped and
+     * sorted again on next use, which is cheaper than moving each replaced task in them.
+     *
+     * @param indexZeroBased first position to replace
+     * @param tail           tasks that now follow it
+     */
+    public void replaceFrom(int indexZeroBased, List<Task> tail) {
+        listeners.removeAll(sortedViews.values());
+        sortedViews.clear();
+        for (int i = tasks.size() - 1; i >= indexZeroBased; i--) {
+            removeAt(i);
+        }
+        for (Task t : tail) {
+            insertAt(tasks.size(), t);
+        }
+        history.clear();
+    }
+
+    /**
+     * Registers a listener that is told about every subsequent change, and replays the
+     * current contents to it as insertions.
+     *
+     * @param listener listener to add
+     */
+    public void addListener(TaskListener listener) {
+        listeners.add(listener);
+        for (int i = 0; i < tasks.size(); i++) {
+            listener.taskInserted(i, tasks.get(i));
+        }
+    }
+
+    /**
+     * Returns counts by type, done state and due date. The counters are built by one pass
+     * on the first call and then kept up to date by every change, so later calls are O(1).
+     *
+     * @param today reference day for the overdue and due-this-week counts
+     * @return a snapshot of the counters
+     */
+    public TaskStats.Summary summary(LocalDate today) {
+        if (stats == null) {
+            stats = new TaskStats(today);
+            addListener(stats);
+        }
+        return stats.snapshot(today);
+    }
+
+    /**
+     * Returns the approximate heap bytes retained by this list's tasks.
+     *
+     * @return estimated footprint in bytes
+     */
+    public long footprintBytes() {
+        return tasks.footprintBytes();
+    }
+
+    /**
+     * Starts a new undo step; all changes until the next call are undone together.
+     *
+     * @param label description of the step, usually the command text
+     */
+    public void beginChange(String label) {
+        history.begin(label);
+    }
+
+    /**
+     * Forgets all undo and redo steps, e.g. after the list was filled from storage.
+     */
+    public void clearHistory() {
+        history.clear();
+    }
+
+    /**
+     * Reverts the most recent undo step.
+     *
+     * @return the label of the reverted step, or null if there is nothing to undo
+     */
+    public String undo() {
+        return history.undo();
+    }
+
+    /**
+     * Re-applies the most recently undone step.
+     *
+     * @return the label of the re-applied step, or null if there is nothing to redo
+     */
+    public String redo() {
+        return history.redo();
     }
 
     /**
      * Returns the underlying list (for storage).
+     * For a packed list this is a freshly materialized copy.
      *
      * @return the internal ArrayList of tasks
      */
     public ArrayList<Task> asList() {
-        return tasks;
+        return tasks.asList();
     }
 
     /**
@@ -114,10 +328,283 @@ public class TaskList {
         List<Task> result = new ArrayList<>();
         for (int i = 0; i < tasks.size(); i++) {
             Task t = tasks.get(i);
-            if (t.toString().toLowerCase().contains(needle)) {
+            if (t.getSearchKey().contains(needle)) {
                 result.add(t);
             }
         }
         return result;
     }
+
+    /**
+     * Returns the zero-based positions of the tasks whose descriptions best match
+     * {@code query} while tolerating typos, best match first. Backed by a trigram index
+     * over description words that is built on the first call and then updated task by task.
+     *
+     * @param query words to look for
+     * @param limit maximum number of results
+     * @return positions of matching tasks, ranked by edit distance
+     */
+    public List<Integer> findFuzzy(String query, int limit) {
+        List<Integer> result = new ArrayList<>();
+        for (FuzzyIndex.Match m : fuzzyIndex().search(query, limit)) {
+            result.add(m.getPosition());
+        }
+        return result;
+    }
+
+    /**
+     * Returns the zero-based positions of the tasks matching {@code query}, in list order.
+     * Uses the candidates the query's index-aware terms provide; otherwise the list is
+     * split into partitions that are scanned in parallel, or scanned in one go if its
+     * store cannot be read from several threads.
+     *
+     * @param query compiled query
+     * @return positions of matching tasks
+     */
+    public List<Integer> findMatching(TaskQuery query) {
+        int[] candidates = query.candidates(this);
+        if (candidates != null) {
+            List<Integer> result = new ArrayList<>();
+            for (int position : candidates) {
+                if (query.test(tasks.get(position))) {
+                    result.add(position);
+                }
+            }
+            return result;
+        }
+        int n = tasks.size();
+        if (n < PARTITION_SIZE || !tasks.allowsConcurrentReads()) {
+            return scan(query, 0, n);
+        }
+        int partitions = (n + PARTITION_SIZE - 1) / PARTITION_SIZE;
+        List<Integer> result = new ArrayList<>();
+        IntStream.range(0, partitions)
+                .parallel()
+                .mapToObj(p -> scan(query, p * PARTITION_SIZE, Math.min(n, (p + 1) * PARTITION_SIZE)))
+                .forEachOrdered(result::addAll);
+        return result;
+    }
+
+    /**
+     * Returns the zero-based positions of all tasks ordered by {@code key}, ties in list order.
+     * The order for each key is sorted (in parallel) on first use and afterwards updated
+     * task by task as the list changes.
+     *
+     * @param key sort key
+     * @return positions in sorted order
+     */
+    public int[] sortedOrder(SortedView.Key key) {
+        SortedView view = sortedViews.get(key);
+        if (view == null) {
+            view = SortedView.build(key, tasks);
+            listeners.add(view);
+            sortedViews.put(key, view);
+        }
+        return view.order();
+    }
+
+    /**
+     * Returns the zero-based positions of the {@code k} most urgent undone tasks: by priority,
+     * tasks without one last, then by due date, undated last, then by position. Backed by an
+     * indexed heap that is built on the first call and then updated task by task.
+     *
+     * @param k maximum number of tasks to return
+     * @return positions, most urgent first
+     */
+    public int[] next(int k) {
+        if (nextQueue == null) {
+            nextQueue = new NextQueue();
+            addListener(nextQueue);
+        }
+        return nextQueue.top(k);
+    }
+
+    /**
+     * Starts tracking which segments of {@code segmentSize} consecutive positions change, for
+     * a saver that rewrites only those. Unlike the indexes above, nothing is replayed: tracking
+     * starts clean, as of now, and calling this again restarts it.
+     *
+     * @param segmentSize positions per segment
+     * @return the tracker
+     */
+    DirtySegments trackSegments(int segmentSize) {
+        if (dirtySegments == null || dirtySegments.segmentSize() != segmentSize) {
+            listeners.remove(dirtySegments);
+            dirtySegments = new DirtySegments(segmentSize);
+            listeners.add(dirtySegments);
+        }
+        dirtySegments.clear();
+        return dirtySegments;
+    }
+
+    /**
+     * Returns the tracker started by {@link #trackSegments(int)}, or null if there is none.
+     */
+    DirtySegments dirtySegments() {
+        return dirtySegments;
+    }
+
+    /**
+     * Returns the zero-based positions of the tasks tagged with every one of {@code tags},
+     * in list order. The per-tag bitmaps are built by one pass on the first call and then
+     * kept up to date by every change, so a filter costs an intersection, not a scan.
+     *
+     * @param tags tags without the leading {@code #}, matched ignoring case
+     * @return positions of matching tasks
+     */
+    public int[] positionsTagged(List<String> tags) {
+        if (tagIndex == null) {
+            tagIndex = new TagIndex();
+            addListener(tagIndex);
+        }
+        return tagIndex.positionsWithAll(tags);
+    }
+
+    /**
+     * Returns the sorted positions of tasks with a description word containing {@code needle}.
+     */
+    int[] positionsWithWordContaining(String needle) {
+        return fuzzyIndex().positionsWithWordContaining(needle);
+    }
+
+    /**
+     * Returns the zero-based positions of events with typed bounds that overlap
+     * {@code [from, to]}, ordered by event start. Backed by an interval tree that is
+     * built on the first call and then updated event by event as the list changes.
+     *
+     * @param from window start (inclusive)
+     * @param to   window end (inclusive)
+     * @return positions of overlapping events
+     */
+    public List<Integer> findOverlappingEvents(LocalDateTime from, LocalDateTime to) {
+        List<Integer> result = new ArrayList<>();
+        if (eventIndex == null) {
+            eventIndex = new EventIndex();
+            addListener(eventIndex);
+        }
+        eventIndex.query(from, to, result::add);
+        return result;
+    }
+
+    /**
+     * Returns the zero-based positions of deadlines due on the given date, in list order.
+     *
+     * @param date due date to look for
+     * @return positions of matching deadlines
+     */
+    public List<Integer> findDeadlinesOn(LocalDate date) {
+        List<Integer> result = new ArrayList<>();
+        for (int i = 0; i < tasks.size(); i++) {
+            Task t = tasks.get(i);
+            if (t instanceof Deadline && date.equals(((Deadline) t).by)) {
+                result.add(i);
+            }
+        }
+        return result;
+    }
+
+    private Task replace(int index, Task next) {
+        Task old = tasks.get(index);
+        replaceAt(index, next);
+        history.record(change(() -> replaceAt(index, old), () -> replaceAt(index, next)));
+        return next;
+    }
+
+    /**
+     * Returns the zero-based positions of recurring tasks with an occurrence on the given date,
+     * in list order. Occurrences are computed from each rule rather than stored.
+     *
+     * @param date date to look for
+     * @return positions of matching recurring tasks
+     */
+    public List<Integer> findOccurrencesOn(LocalDate date) {
+        List<Integer> result = new ArrayList<>();
+        for (int i = 0; i < tasks.size(); i++) {
+            Task t = tasks.get(i);
+            if (t instanceof Recurring && !((Recurring) t).occurrencesBetween(date, date).isEmpty()) {
+                result.add(i);
+            }
+        }
+        return result;
+    }
+
+    private Task setDone(int index, boolean isDone) {
+        Task t = tasks.get(index);
+        boolean wasDone = t.isDone;
+        LocalDate wasDoneOn = t.doneOn;
+        LocalDate doneOn = isDone ? LocalDate.now() : null;
+        setDoneAt(index, isDone, doneOn);
+        history.record(change(() -> setDoneAt(index, wasDone, wasDoneOn), () -> setDoneAt(index, isDone, doneOn)));
+        return tasks.get(index);
+    }
+
+    /* ===== Unrecorded primitives; every change to the store goes through these ===== */
+
+    private void insertAt(int index, Task task) {
+        tasks.insert(index, task);
+        for (TaskListener l : listeners) {
+            l.taskInserted(index, task);
+        }
+    }
+
+    private Task removeAt(int index) {
+        Task removed = tasks.remove(index);
+        for (TaskListener l : listeners) {
+            l.taskRemoved(index, removed);
+        }
+        return removed;
+    }
+
+    private void setDoneAt(int index, boolean isDone, LocalDate doneOn) {
+        tasks.setDone(index, isDone);
+        tasks.setDoneOn(index, doneOn);
+        fireUpdated(index);
+    }
+
+    private void rescheduleAt(int index, LocalDate date) {
+        tasks.reschedule(index, date);
+        fireUpdated(index);
+    }
+
+    private void setPriorityAt(int index, int priority) {
+        tasks.setPriority(index, priority);
+        fireUpdated(index);
+    }
+
+    private void replaceAt(int index, Task task) {
+        tasks.replace(index, task);
+        fireUpdated(index);
+    }
+
+    private void fireUpdated(int index) {
+        if (listeners.isEmpty()) {
+            return;
+        }
+        Task t = tasks.get(index);
+        for (TaskListener l : listeners) {
+            l.taskUpdated(index, t);
+        }
+    }
+
+    private static UndoHistory.Change change(Runnable undo, Runnable redo) {
+        return new UndoHistory.Change(undo, redo);
+    }
+
+    private List<Integer> scan(TaskQuery query, int from, int to) {
+        List<Integer> result = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            if (query.test(tasks.get(i))) {
+                result.add(i);
+            }
+        }
+        return result;
+    }
+
+    private FuzzyIndex fuzzyIndex() {
+        if (fuzzyIndex == null) {
+            fuzzyIndex = new FuzzyIndex();
+            addListener(fuzzyIndex);
+        }
+        return fuzzyIndex;
+    }
 }
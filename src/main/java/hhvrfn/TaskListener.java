@@ -0,0 +1,32 @@
+package hhvrfn;
+
+/**
+ * Receives every change made to a {@link TaskList}, so derived structures can be kept
+ * up to date incrementally instead of rescanning the list.
+ * Positions are zero-based and refer to the list after the change.
+ */
+public interface TaskListener {
+    /**
+     * Called after {@code task} was inserted at {@code index}; later tasks moved up by one.
+     *
+     * @param index position of the new task
+     * @param task  the inserted task
+     */
+    void taskInserted(int index, Task task);
+
+    /**
+     * Called after the task at {@code index} was removed; later tasks moved down by one.
+     *
+     * @param index former position of the task
+     * @param task  the removed task
+     */
+    void taskRemoved(int index, Task task);
+
+    /**
+     * Called after the task at {@code index} changed in place (done state or date).
+     *
+     * @param index position of the task
+     * @param task  the task as it is now
+     */
+    void taskUpdated(int index, Task task);
+}
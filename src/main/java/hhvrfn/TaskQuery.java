@@ -0,0 +1,404 @@
+package hhvrfn;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * A filter expression over tasks, parsed once into a predicate tree.
+ *
+ * <p>Terms are {@code type:T|D|E|R}, {@code done:true|false}, {@code by<DATE} (also
+ * {@code <=}, {@code >}, {@code >=}, {@code =} or {@code :}; matches deadlines, and recurring
+ * tasks by their next pending occurrence) and
+ * {@code text:WORD} or {@code text:"some phrase"}; a bare word is short for {@code text:}.
+ * Terms combine with {@code AND} (also implied by juxtaposition), {@code OR}, {@code NOT}
+ * and parentheses, e.g. {@code type:D done:false by<2026-12-01 text:invoice}.
+ *
+ * <p>Before evaluation the tree is asked for candidate positions: single-word text terms
+ * can be answered from the task list's word index, {@code AND} intersects and {@code OR}
+ * unites its children's candidates. Only when no index applies is every task tested.
+ */
+public final class TaskQuery {
+    private static final String USAGE = "Query terms: type:T|D|E|R, done:true|false, by<yyyy-MM-dd (<, <=, >, >=, =), "
+            + "text:WORD or text:\"PHRASE\", combined with AND, OR, NOT and parentheses.";
+
+    /** A node of the predicate tree. */
+    private interface Node {
+        boolean test(Task t);
+
+        /** Sorted positions that may match, or null if this node cannot use an index. */
+        int[] candidates(TaskList tasks);
+    }
+
+    private final Node root;
+    private final String source;
+
+    private TaskQuery(Node root, String source) {
+        this.root = root;
+        this.source = source;
+    }
+
+    /**
+     * Parses a query expression.
+     *
+     * @param text the expression
+     * @return the compiled query
+     * @throws HhvrfnException if the expression is malformed
+     */
+    public static TaskQuery parse(String text) throws HhvrfnException {
+        QueryParser parser = new QueryParser(tokenize(text));
+        Node root = parser.parseOr();
+        if (parser.hasMore()) {
+            throw new HhvrfnException("Unexpected '" + parser.peek() + "' in query. " + USAGE);
+        }
+        return new TaskQuery(root, text);
+    }
+
+    /**
+     * Returns whether the task satisfies this query.
+     *
+     * @param task task to test
+     * @return true if it matches
+     */
+    public boolean test(Task task) {
+        return root.test(task);
+    }
+
+    /**
+     * Returns the sorted positions an index says may match, or null if every task must be tested.
+     */
+    int[] candidates(TaskList tasks) {
+        return root.candidates(tasks);
+    }
+
+    @Override
+    public String toString() {
+        return source;
+    }
+
+    /* ===================== Lexing and parsing ===================== */
+
+    private static List<String> tokenize(String text) throws HhvrfnException {
+        List<String> tokens = new ArrayList<>();
+        int i = 0;
+        while (i < text.length()) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '(' || c == ')') {
+                tokens.add(String.valueOf(c));
+                i++;
+            } else {
+                StringBuilder token = new StringBuilder();
+                while (i < text.length() && !Character.isWhitespace(text.charAt(i))
+                        && text.charAt(i) != '(' && text.charAt(i) != ')') {
+                    if (text.charAt(i) == '"') {
+                        int close = text.indexOf('"', i + 1);
+                        if (close < 0) {
+                            throw new HhvrfnException("Unterminated quote in query.");
+                        }
+                        token.append(text, i, close + 1);
+                        i = close + 1;
+                    } else {
+                        token.append(text.charAt(i++));
+                    }
+                }
+                tokens.add(token.toString());
+            }
+        }
+        return tokens;
+    }
+
+    /** Recursive-descent parser: or := and (OR and)*, and := not (AND? not)*, not := NOT not | atom. */
+    private static final class QueryParser {
+        private final List<String> tokens;
+        private int pos;
+
+        private QueryParser(List<String> tokens) {
+            this.tokens = tokens;
+        }
+
+        private boolean hasMore() {
+            return pos < tokens.size();
+        }
+
+        private String peek() {
+            return tokens.get(pos);
+        }
+
+        private boolean accept(String keyword) {
+            if (hasMore() && peek().equalsIgnoreCase(keyword)) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        private Node parseOr() throws HhvrfnException {
+            List<Node> children = new ArrayList<>();
+            children.add(parseAnd());
+            while (accept("OR")) {
+                children.add(parseAnd());
+            }
+            return children.size() == 1 ? children.get(0) : new Or(children);
+        }
+
+        private Node parseAnd() throws HhvrfnException {
+            List<Node> children = new ArrayList<>();
+            children.add(parseNot());
+            while (hasMore() && !peek().equals(")") && !peek().equalsIgnoreCase("OR")) {
+                accept("AND");
+                children.add(parseNot());
+            }
+            return children.size() == 1 ? children.get(0) : new And(children);
+        }
+
+        private Node parseNot() throws HhvrfnException {
+            if (accept("NOT")) {
+                return new Not(parseNot());
+            }
+            if (!hasMore()) {
+                throw new HhvrfnException("Query ended early. " + USAGE);
+            }
+            if (accept("(")) {
+                Node inner = parseOr();
+                if (!accept(")")) {
+                    throw new HhvrfnException("Missing ')' in query.");
+                }
+                return inner;
+            }
+            return parseTerm(tokens.get(pos++));
+        }
+
+        private Node parseTerm(String token) throws HhvrfnException {
+            String lower = token.toLowerCase();
+            if (lower.startsWith("type:")) {
+                return parseType(token.substring(5));
+            }
+            if (lower.startsWith("done:")) {
+                String value = lower.substring(5);
+                if (!value.equals("true") && !value.equals("false")) {
+                    throw new HhvrfnException("done: expects true or false, got '" + token.substring(5) + "'.");
+                }
+                boolean isDone = value.equals("true");
+                return leaf(t -> t.isDone == isDone);
+            }
+            if (lower.matches("by[<>=:].*")) {
+                return parseBy(token, token.substring(2));
+            }
+            if (lower.startsWith("text:")) {
+                return new Text(unquote(token.substring(5)));
+            }
+            if (token.contains(":")) {
+                throw new HhvrfnException("Unknown query field in '" + token + "'. " + USAGE);
+            }
+            return new Text(unquote(token));
+        }
+
+        private static Node parseType(String value) throws HhvrfnException {
+            for (TaskType type : TaskType.values()) {
+                if (type.toString().equalsIgnoreCase(value) || type.name().equalsIgnoreCase(value)) {
+                    return leaf(t -> t.getType() == type);
+                }
+            }
+            throw new HhvrfnException("type: expects T, D, E or R, got '" + value + "'.");
+        }
+
+        private static Node parseBy(String token, String rest) throws HhvrfnException {
+            String op = rest.startsWith("<=") || rest.startsWith(">=") ? rest.substring(0, 2)
+                    : rest.isEmpty() ? "" : rest.substring(0, 1);
+            if (!Arrays.asList("<", "<=", ">", ">=", "=", ":").contains(op)) {
+                throw new HhvrfnException("Unknown query term '" + token + "'. " + USAGE);
+            }
+            LocalDate date;
+            try {
+                date = LocalDate.parse(rest.substring(op.length()));
+            } catch (DateTimeParseException e) {
+                throw new HhvrfnException("Invalid date in '" + token + "'. Use yyyy-MM-dd, e.g., 2026-12-01.");
+            }
+            return leaf(t -> t.getDueDate() != null && compare(t.getDueDate(), op, date));
+        }
+
+        private static boolean compare(LocalDate by, String op, LocalDate date) {
+            int c = by.compareTo(date);
+            switch (op) {
+            case "<":
+                return c < 0;
+            case "<=":
+                return c <= 0;
+            case ">":
+                return c > 0;
+            case ">=":
+                return c >= 0;
+            default:
+                return c == 0;
+            }
+        }
+
+        private static String unquote(String value) throws HhvrfnException {
+            String v = value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")
+                    ? value.substring(1, value.length() - 1)
+                    : value;
+            if (v.isEmpty()) {
+                throw new HhvrfnException("text: needs a non-empty word or \"phrase\".");
+            }
+            return v;
+        }
+    }
+
+    /* ===================== Predicate tree ===================== */
+
+    // A predicate no index can answer.
+    private static Node leaf(Predicate<Task> predicate) {
+        return new Node() {
+            @Override
+            public boolean test(Task t) {
+                return predicate.test(t);
+            }
+
+            @Override
+            public int[] candidates(TaskList tasks) {
+                return null;
+            }
+        };
+    }
+
+    private static final class Text implements Node {
+        private final String needle;
+
+        private Text(String needle) {
+            this.needle = needle.toLowerCase();
+        }
+
+        @Override
+        public boolean test(Task t) {
+            return t.description.toLowerCase().contains(needle);
+        }
+
+        @Override
+        public int[] candidates(TaskList tasks) {
+            // A needle made only of word characters must lie within a single word.
+            if (needle.length() < 3 || !needle.chars().allMatch(Character::isLetterOrDigit)) {
+                return null;
+            }
+            return tasks.positionsWithWordContaining(needle);
+        }
+    }
+
+    private static final class Not implements Node {
+        private final Node child;
+
+        private Not(Node child) {
+            this.child = child;
+        }
+
+        @Override
+        public boolean test(Task t) {
+            return !child.test(t);
+        }
+
+        @Override
+        public int[] candidates(TaskList tasks) {
+            return null;
+        }
+    }
+
+    private static final class And implements Node {
+        private final List<Node> children;
+
+        private And(List<Node> children) {
+            this.children = children;
+        }
+
+        @Override
+        public boolean test(Task t) {
+            for (Node child : children) {
+                if (!child.test(t)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public int[] candidates(TaskList tasks) {
+            int[] result = null;
+            for (Node child : children) {
+                int[] c = child.candidates(tasks);
+                if (c != null) {
+                    result = result == null ? c : intersect(result, c);
+                }
+            }
+            return result;
+        }
+    }
+
+    private static final class Or implements Node {
+        private final List<Node> children;
+
+        private Or(List<Node> children) {
+            this.children = children;
+        }
+
+        @Override
+        public boolean test(Task t) {
+            for (Node child : children) {
+                if (child.test(t)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public int[] candidates(TaskList tasks) {
+            int[] result = new int[0];
+            for (Node child : children) {
+                int[] c = child.candidates(tasks);
+                if (c == null) {
+                    return null;
+                }
+                result = union(result, c);
+            }
+            return result;
+        }
+    }
+
+    private static int[] intersect(int[] a, int[] b) {
+        int[] out = new int[Math.min(a.length, b.length)];
+        int n = 0;
+        for (int i = 0, j = 0; i < a.length && j < b.length;) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                out[n++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    private static int[] union(int[] a, int[] b) {
+        int[] out = new int[a.length + b.length];
+        int n = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.length || j < b.length) {
+            if (j == b.length || i < a.length && a[i] < b[j]) {
+                out[n++] = a[i++];
+            } else if (i == a.length || b[j] < a[i]) {
+                out[n++] = b[j++];
+            } else {
+                out[n++] = a[i++];
+                j++;
+            }
+        }
+        return Arrays.copyOf(out, n);
+    }
+}
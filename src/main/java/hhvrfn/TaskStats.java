@@ -0,0 +1,223 @@
+package hhvrfn;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Counters over one task list, kept up to date as a {@link TaskListener}: tasks per type,
+ * done tasks, and undone tasks with a due date that are overdue or due within the week.
+ * Every change adjusts the counters for just the task involved, so a {@link Summary} costs
+ * O(1) however long the list is. The date buckets are relative to a reference day; when the
+ * day moves on only the due dates that crossed a bucket boundary are re-counted.
+ */
+public final class TaskStats implements TaskListener {
+    /** Days, starting today, that count as "due this week". */
+    public static final int WEEK_DAYS = 7;
+
+    private static final int NO_DUE = Integer.MIN_VALUE;
+    private static final int TYPE_COUNT = TaskType.values().length;
+
+    /**
+     * An immutable snapshot of the counters.
+     */
+    public static final class Summary {
+        private final int[] byType;
+        private final int total;
+        private final int done;
+        private final int overdue;
+        private final int dueThisWeek;
+
+        private Summary(int[] byType, int done, int overdue, int dueThisWeek) {
+            this.byType = byType.clone();
+            this.total = Arrays.stream(byType).sum();
+            this.done = done;
+            this.overdue = overdue;
+            this.dueThisWeek = dueThisWeek;
+        }
+
+        public int getTotal() {
+            return total;
+        }
+
+        /**
+         * Returns the number of tasks of the given type.
+         */
+        public int count(TaskType type) {
+            return byType[type.ordinal()];
+        }
+
+        public int getDone() {
+            return done;
+        }
+
+        /**
+         * Returns the fraction of tasks that are done, or 0 for an empty list.
+         */
+        public double doneRatio() {
+            return total == 0 ? 0 : (double) done / total;
+        }
+
+        public int getOverdue() {
+            return overdue;
+        }
+
+        public int getDueThisWeek() {
+            return dueThisWeek;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Summary)) {
+                return false;
+            }
+            Summary s = (Summary) o;
+            return Arrays.equals(byType, s.byType) && done == s.done && overdue == s.overdue
+                    && dueThisWeek == s.dueThisWeek;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Arrays.hashCode(byType) + 7 * done + 3 * overdue + dueThisWeek;
+        }
+
+        @Override
+        public String toString() {
+            return "Summary" + Arrays.toString(byType) + " done=" + done + " overdue=" + overdue
+                    + " week=" + dueThisWeek;
+        }
+    }
+
+    private final int[] byType = new int[TYPE_COUNT];
+    private int done;
+    // Undone due dates (as epoch days) with their multiplicities.
+    private final TreeMap<Integer, Integer> undueByDay = new TreeMap<>();
+    private long today;
+    private int overdue;
+    private int dueThisWeek;
+    // Packed contribution of the task at each position: see key().
+    private long[] keys = new long[16];
+    private int size;
+
+    /**
+     * Constructs empty counters with {@code today} as the reference day; attach them with
+     * {@link TaskList#addListener}.
+     *
+     * @param today reference day for the overdue and due-this-week buckets
+     */
+    public TaskStats(LocalDate today) {
+        this.today = today.toEpochDay();
+    }
+
+    /**
+     * Counts the list from scratch, for checking the incremental counters against.
+     *
+     * @param tasks the list
+     * @param today reference day for the date buckets
+     * @return the recounted summary
+     */
+    public static Summary recount(TaskList tasks, LocalDate today) {
+        TaskStats fresh = new TaskStats(today);
+        for (int i = 0; i < tasks.size(); i++) {
+            fresh.taskInserted(i, tasks.get(i));
+        }
+        return fresh.snapshot(today);
+    }
+
+    @Override
+    public void taskInserted(int index, Task task) {
+        long key = key(task);
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+        }
+        System.arraycopy(keys, index, keys, index + 1, size - index);
+        keys[index] = key;
+        size++;
+        apply(key, 1);
+    }
+
+    @Override
+    public void taskRemoved(int index, Task task) {
+        long key = keys[index];
+        System.arraycopy(keys, index + 1, keys, index, size - index - 1);
+        size--;
+        apply(key, -1);
+    }
+
+    @Override
+    public void taskUpdated(int index, Task task) {
+        apply(keys[index], -1);
+        keys[index] = key(task);
+        apply(keys[index], 1);
+    }
+
+    /**
+     * Returns the current counters, with the date buckets relative to {@code day}.
+     *
+     * @param day the current date
+     * @return a snapshot of the counters
+     */
+    public Summary snapshot(LocalDate day) {
+        moveTo(day.toEpochDay());
+        return new Summary(byType, done, overdue, dueThisWeek);
+    }
+
+    // Type ordinal, done flag and due day (or NO_DUE) of one task, packed into a long.
+    private static long key(Task task) {
+        LocalDate due = task.getDueDate();
+        int day = due == null ? NO_DUE : (int) due.toEpochDay();
+        return ((long) day << 32) | (task.getType().ordinal() << 1) | (task.isDone ? 1 : 0);
+    }
+
+    private void apply(long key, int delta) {
+        byType[(int) (key & 0xffff) >> 1] += delta;
+        boolean isDone = (key & 1) != 0;
+        if (isDone) {
+            done += delta;
+        }
+        int day = (int) (key >> 32);
+        if (isDone || day == NO_DUE) {
+            return;
+        }
+        undueByDay.merge(day, delta, (a, b) -> a + b == 0 ? null : a + b);
+        if (day < today) {
+            overdue += delta;
+        } else if (day < today + WEEK_DAYS) {
+            dueThisWeek += delta;
+        }
+    }
+
+    // Moves the reference day, re-counting only the due days that change bucket.
+    private void moveTo(long day) {
+        if (day == today) {
+            return;
+        }
+        if (day < today) {
+            today = day;
+            overdue = sum(Integer.MIN_VALUE, day);
+            dueThisWeek = sum(day, day + WEEK_DAYS);
+            return;
+        }
+        int leftWeek = sum(today, Math.min(day, today + WEEK_DAYS));
+        int passed = sum(today, day);
+        int entered = sum(Math.max(day, today + WEEK_DAYS), day + WEEK_DAYS);
+        overdue += passed;
+        dueThisWeek += entered - leftWeek;
+        today = day;
+    }
+
+    // Number of undone due dates in [from, to).
+    private int sum(long from, long to) {
+        if (from >= to) {
+            return 0;
+        }
+        int lo = (int) Math.max(from, Integer.MIN_VALUE);
+        int hi = (int) Math.min(to, Integer.MAX_VALUE);
+        int n = 0;
+        for (Map.Entry<Integer, Integer> e : undueByDay.subMap(lo, true, hi, false).entrySet()) {
+            n += e.getValue();
+        }
+        return n;
+    }
+}
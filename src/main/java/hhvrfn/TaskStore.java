@@ -0,0 +1,80 @@
+package hhvrfn;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+
+/**
+ * Backing storage for the tasks held by a {@link TaskList}.
+ * Implementations may keep real {@link Task} objects or a compact encoding that
+ * materializes tasks on demand, so state changes go through this interface
+ * rather than through the returned task objects.
+ */
+interface TaskStore {
+
+    /**
+     * Returns the number of tasks.
+     */
+    int size();
+
+    /**
+     * Returns the task at a zero-based index.
+     * The result may be a detached view; mutate through the store instead.
+     */
+    Task get(int index);
+
+    /**
+     * Appends a task.
+     */
+    void add(Task task);
+
+    /**
+     * Inserts a task at a zero-based index, shifting later tasks up.
+     */
+    void insert(int index, Task task);
+
+    /**
+     * Replaces the task at {@code index} with another one.
+     */
+    void replace(int index, Task task);
+
+    /**
+     * Removes the task at a zero-based index and returns it.
+     */
+    Task remove(int index);
+
+    /**
+     * Sets the completion flag of the task at a zero-based index.
+     */
+    void setDone(int index, boolean isDone);
+
+    /**
+     * Records the day the task at a zero-based index was marked done (null for unknown or not done).
+     */
+    void setDoneOn(int index, LocalDate date);
+
+    /**
+     * Changes the due date of the deadline at a zero-based index.
+     */
+    void reschedule(int index, LocalDate newDate);
+
+    /**
+     * Sets the priority of the task at a zero-based index (0 for none).
+     */
+    void setPriority(int index, int priority);
+
+    /**
+     * Returns whether {@link #get(int)} may be called from several threads at once, provided
+     * nothing changes the store meanwhile.
+     */
+    boolean allowsConcurrentReads();
+
+    /**
+     * Returns the approximate heap bytes retained by the stored tasks.
+     */
+    long footprintBytes();
+
+    /**
+     * Returns all tasks as a list, materializing them if necessary.
+     */
+    ArrayList<Task> asList();
+}
@@ -0,0 +1,464 @@
+package hhvrfn;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Streams tasks to and from external files for the {@code export} and {@code import} commands.
+ * Records are processed one line at a time, so memory use does not grow with the file size.
+ */
+public final class TaskTransfer {
+    private static final String CSV_HEADER = "type,done,description,by,from,to,rule,priority,done_on";
+    // Every header this class has written starts so; later columns were only ever appended.
+    private static final String CSV_HEADER_PREFIX = "type,done,description,";
+    private static final LocalDate MIN_DATE = LocalDate.of(1900, 1, 1);
+    private static final LocalDate MAX_DATE = LocalDate.of(2100, 1, 1);
+    private static final int MAX_DESCRIPTION = 1000;
+
+    /**
+     * File formats understood by export and import.
+     */
+    public enum Format {
+        /** The native data-file format, one {@code T | 0 | desc} line per task. */
+        TXT,
+        /** Comma-separated values with a header row. */
+        CSV,
+        /** Newline-delimited JSON, one flat object per task. */
+        NDJSON;
+
+        /**
+         * Looks up a format by its user-facing name (case-insensitive).
+         *
+         * @param name format name, e.g. "csv"
+         * @return the format
+         * @throws HhvrfnException if the name is not a known format
+         */
+        public static Format of(String name) throws HhvrfnException {
+            try {
+                return valueOf(name.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new HhvrfnException("Unknown format '" + name + "'. Use txt, csv or ndjson.");
+            }
+        }
+
+        /**
+         * Guesses the format from a file name extension, defaulting to the native format.
+         *
+         * @param file file to inspect
+         * @return the guessed format
+         */
+        public static Format forFile(Path file) {
+            String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+            if (name.endsWith(".csv")) {
+                return CSV;
+            }
+            if (name.endsWith(".ndjson") || name.endsWith(".jsonl") || name.endsWith(".json")) {
+                return NDJSON;
+            }
+            return TXT;
+        }
+    }
+
+    /**
+     * Outcome of an import: how many records were added, skipped as duplicates or rejected.
+     */
+    public static final class ImportResult {
+        private int added;
+        private int duplicates;
+        private int invalid;
+
+        public int getAdded() {
+            return added;
+        }
+
+        public int getDuplicates() {
+            return duplicates;
+        }
+
+        public int getInvalid() {
+            return invalid;
+        }
+    }
+
+    /**
+     * Open-addressing table from the 64-bit hash of a de-duplication key to the index of the
+     * first task with that hash, so an import holds two primitives per task rather than its key.
+     */
+    private static final class KeyTable {
+        private long[] hashes = new long[64];
+        // Task index + 1; 0 marks an empty slot.
+        private int[] indexes = new int[64];
+        private int size;
+
+        // Index of the first task with this hash, or -1.
+        private int find(long hash) {
+            int mask = hashes.length - 1;
+            for (int slot = spread(hash) & mask; indexes[slot] != 0; slot = (slot + 1) & mask) {
+                if (hashes[slot] == hash) {
+                    return indexes[slot] - 1;
+                }
+            }
+            return -1;
+        }
+
+        // Remembers the task at index unless an earlier task has the same hash.
+        private void putIfAbsent(long hash, int index) {
+            if (find(hash) >= 0) {
+                return;
+            }
+            if (2 * (size + 1) > hashes.length) {
+                grow();
+            }
+            insert(hash, index + 1);
+            size++;
+        }
+
+        private void insert(long hash, int storedIndex) {
+            int mask = hashes.length - 1;
+            int slot = spread(hash) & mask;
+            while (indexes[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            hashes[slot] = hash;
+            indexes[slot] = storedIndex;
+        }
+
+        private void grow() {
+            long[] oldHashes = hashes;
+            int[] oldIndexes = indexes;
+            hashes = new long[oldHashes.length * 2];
+            indexes = new int[oldHashes.length * 2];
+            for (int i = 0; i < oldHashes.length; i++) {
+                if (oldIndexes[i] != 0) {
+                    insert(oldHashes[i], oldIndexes[i]);
+                }
+            }
+        }
+
+        private static int spread(long hash) {
+            return (int) (hash ^ (hash >>> 32));
+        }
+    }
+
+    /** Utility class; no instantiation. */
+    private TaskTransfer() { }
+
+    /**
+     * Writes every task to {@code file} in the given format, overwriting it.
+     *
+     * @param file   destination file
+     * @param format output format
+     * @param tasks  tasks to export
+     * @return number of tasks written
+     * @throws HhvrfnException if the file cannot be written
+     */
+    public static int exportTo(Path file, Format format, TaskList tasks) throws HhvrfnException {
+        Logger.info("Exporting " + tasks.size() + " tasks to " + file + " as " + format);
+        Path parent = file.toAbsolutePath().getParent();
+        try {
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            try (BufferedWriter bw = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                if (format == Format.CSV) {
+                    bw.write(CSV_HEADER);
+                    bw.newLine();
+                }
+                for (int i = 0; i < tasks.size(); i++) {
+                    bw.write(encode(tasks.get(i), format));
+                    bw.newLine();
+                }
+            }
+            return tasks.size();
+        } catch (IOException e) {
+            Logger.error("Export failed", e);
+            throw new HhvrfnException("Cannot export to " + file + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Appends the records in {@code file} to {@code tasks}, skipping invalid records and
+     * records whose type, description and date already exist in the list or earlier in the file.
+     * Duplicates are found by a 64-bit hash of that key, compared in full only when hashes match.
+     * The format is taken from the file extension, falling back to sniffing the first record.
+     * Nothing is persisted here; callers save once after the import completes.
+     *
+     * @param file  source file
+     * @param tasks list to append to
+     * @return counts of added, duplicate and invalid records
+     * @throws HhvrfnException if the file cannot be read
+     */
+    public static ImportResult importFrom(Path file, TaskList tasks) throws HhvrfnException {
+        Logger.info("Importing tasks from " + file);
+        KeyTable seen = new KeyTable();
+        for (int i = 0; i < tasks.size(); i++) {
+            seen.putIfAbsent(Storage.hash(dedupKey(tasks.get(i))), i);
+        }
+        ImportResult result = new ImportResult();
+        Format format = Format.forFile(file);
+        try (BufferedReader br = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            boolean isFirst = true;
+            String line;
+            while ((line = br.readLine()) != null) {
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+                if (isFirst) {
+                    isFirst = false;
+                    format = sniff(line, format);
+                    if (format == Format.CSV && isCsvHeader(line)) {
+                        continue;
+                    }
+                }
+                Task t = decode(line, format);
+                if (t == null || !isValid(t)) {
+                    result.invalid++;
+                    continue;
+                }
+                String key = dedupKey(t);
+                long hash = Storage.hash(key);
+                if (isDuplicate(key, seen.find(hash), tasks)) {
+                    result.duplicates++;
+                } else {
+                    seen.putIfAbsent(hash, tasks.size());
+                    tasks.add(t);
+                    result.added++;
+                }
+            }
+        } catch (NoSuchFileException e) {
+            throw new HhvrfnException("Cannot import: file not found: " + file);
+        } catch (IOException e) {
+            Logger.error("Import failed", e);
+            throw new HhvrfnException("Cannot import from " + file + ": " + e.getMessage());
+        }
+        Logger.info("Import finished: " + result.added + " added, " + result.duplicates + " duplicates, "
+                + result.invalid + " invalid");
+        return result;
+    }
+
+    /**
+     * Returns the de-duplication key of a task: its type, description and date fields.
+     *
+     * @param t task to key
+     * @return a key equal for tasks that would be considered duplicates
+     */
+    static String dedupKey(Task t) {
+        StringBuilder sb = new StringBuilder().append(t.getType()).append('\u0000').append(t.description);
+        if (t instanceof Deadline) {
+            sb.append('\u0000').append(((Deadline) t).by);
+        } else if (t instanceof Event) {
+            Event e = (Event) t;
+            sb.append('\u0000').append(e.from).append('\u0000').append(e.to);
+        } else if (t instanceof Recurring) {
+            sb.append('\u0000').append(((Recurring) t).encodeRule());
+        }
+        return sb.toString();
+    }
+
+    // Whether a task with this key exists, given the first task with the same hash (or -1 for none).
+    private static boolean isDuplicate(String key, int sameHash, TaskList tasks) {
+        if (sameHash < 0) {
+            return false;
+        }
+        if (dedupKey(tasks.get(sameHash)).equals(key)) {
+            return true;
+        }
+        // A true 64-bit collision: look for the key itself.
+        for (int i = sameHash + 1; i < tasks.size(); i++) {
+            if (dedupKey(tasks.get(i)).equals(key)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Corrects an extension-based guess by looking at the first record.
+    private static Format sniff(String firstLine, Format guess) {
+        String trimmed = firstLine.trim();
+        if (trimmed.startsWith("{")) {
+            return Format.NDJSON;
+        }
+        if (isCsvHeader(trimmed)) {
+            return Format.CSV;
+        }
+        return guess == Format.NDJSON ? Format.TXT : guess;
+    }
+
+    private static boolean isCsvHeader(String line) {
+        return line.trim().toLowerCase(Locale.ROOT).startsWith(CSV_HEADER_PREFIX);
+    }
+
+    private static boolean isValid(Task t) {
+        if (t.description == null || t.description.trim().isEmpty() || t.description.length() > MAX_DESCRIPTION) {
+            return false;
+        }
+        if (t instanceof Deadline) {
+            LocalDate by = ((Deadline) t).by;
+            return by != null && !by.isBefore(MIN_DATE) && !by.isAfter(MAX_DATE);
+        }
+        if (t instanceof Event) {
+            Event e = (Event) t;
+            return e.from != null && !e.from.isEmpty() && e.to != null && !e.to.isEmpty();
+        }
+        return true;
+    }
+
+    /* ============================ Encoding ============================= */
+
+    private static String encode(Task t, Format format) {
+        switch (format) {
+        case CSV:
+            return String.join(",", csv(t.getType().toString()), t.isDone ? "1" : "0", csv(t.description),
+                    csv(t instanceof Deadline ? ((Deadline) t).by.format(DateTimeFormatter.ISO_LOCAL_DATE) : ""),
+                    csv(t instanceof Event ? ((Event) t).from : ""), csv(t instanceof Event ? ((Event) t).to : ""),
+                    csv(t instanceof Recurring ? ((Recurring) t).encodeRule() : ""),
+                    t.priority > 0 ? Integer.toString(t.priority) : "", doneOn(t));
+        case NDJSON:
+            StringBuilder sb = new StringBuilder("{\"type\":").append(Json.quote(t.getType().toString()))
+                    .append(",\"done\":").append(t.isDone)
+                    .append(",\"description\":").append(Json.quote(t.description));
+            if (t instanceof Deadline) {
+                sb.append(",\"by\":").append(Json.quote(((Deadline) t).by.format(DateTimeFormatter.ISO_LOCAL_DATE)));
+            } else if (t instanceof Event) {
+                sb.append(",\"from\":").append(Json.quote(((Event) t).from))
+                        .append(",\"to\":").append(Json.quote(((Event) t).to));
+            } else if (t instanceof Recurring) {
+                sb.append(",\"rule\":").append(Json.quote(((Recurring) t).encodeRule()));
+            }
+            if (t.priority > 0) {
+                sb.append(",\"priority\":").append(t.priority);
+            }
+            if (!doneOn(t).isEmpty()) {
+                sb.append(",\"done_on\":").append(Json.quote(doneOn(t)));
+            }
+            return sb.append('}').toString();
+        default:
+            return Storage.serialize(t);
+        }
+    }
+
+    // Recurring tasks keep their completed dates in the rule instead.
+    private static String doneOn(Task t) {
+        return t.isDone && t.doneOn != null && !(t instanceof Recurring)
+                ? t.doneOn.format(DateTimeFormatter.ISO_LOCAL_DATE) : "";
+    }
+
+    private static String csv(String field) {
+        if (field.indexOf(',') < 0 && field.indexOf('"') < 0) {
+            return field;
+        }
+        return '"' + field.replace("\"", "\"\"") + '"';
+    }
+
+    /* ============================ Decoding ============================= */
+
+    // Returns null for records that cannot be decoded.
+    private static Task decode(String line, Format format) {
+        try {
+            switch (format) {
+            case CSV:
+                List<String> f = splitCsv(line);
+                return f.size() < 3 ? null : withDetails(build(f.get(0), f.get(1), f.get(2),
+                        field(f, 3), field(f, 4), field(f, 5), field(f, 6)), field(f, 7), field(f, 8));
+            case NDJSON:
+                Map<String, String> m = Json.parseFlatObject(line);
+                return withDetails(build(m.get("type"), m.get("done"), m.get("description"), m.get("by"),
+                        m.get("from"), m.get("to"), m.get("rule")), m.get("priority"), m.get("done_on"));
+            default:
+                return Storage.parseLine(line);
+            }
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static String field(List<String> fields, int index) {
+        return index < fields.size() ? fields.get(index) : "";
+    }
+
+    // Applies the optional priority and done date columns; blank or missing values leave the defaults.
+    private static Task withDetails(Task t, String priority, String doneOn) {
+        if (t == null) {
+            return null;
+        }
+        if (priority != null && !priority.trim().isEmpty()) {
+            int p = Integer.parseInt(priority.trim());
+            if (p < Task.MAX_PRIORITY || p > Task.MIN_PRIORITY) {
+                return null;
+            }
+            t.setPriority(p);
+        }
+        if (doneOn != null && !doneOn.trim().isEmpty() && t.isDone && !(t instanceof Recurring)) {
+            t.doneOn = LocalDate.parse(doneOn.trim());
+        }
+        return t;
+    }
+
+    private static Task build(String type, String done, String desc, String by, String from, String to,
+            String rule) {
+        if (type == null || desc == null) {
+            return null;
+        }
+        Task t;
+        switch (type.trim().toUpperCase(Locale.ROOT)) {
+        case "T":
+            t = new Todo(desc.trim());
+            break;
+        case "D":
+            t = new Deadline(desc.trim(), LocalDate.parse(by.trim()));
+            break;
+        case "E":
+            t = new Event(desc.trim(), from == null ? null : from.trim(), to == null ? null : to.trim());
+            break;
+        case "R":
+            // The done flag follows from the rule's completed dates.
+            return Recurring.decodeRule(desc.trim(), rule.trim().split("\\s*\\|\\s*"));
+        default:
+            return null;
+        }
+        if ("1".equals(done) || "true".equalsIgnoreCase(done)) {
+            t.markAsDone();
+        }
+        return t;
+    }
+
+    // Splits one CSV record, honouring double-quoted fields with "" escapes.
+    private static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder cur = new StringBuilder();
+        boolean isQuoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (isQuoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    cur.append('"');
+                    i++;
+                } else if (c == '"') {
+                    isQuoted = false;
+                } else {
+                    cur.append(c);
+                }
+            } else if (c == '"') {
+                isQuoted = true;
+            } else if (c == ',') {
+                fields.add(cur.toString());
+                cur.setLength(0);
+            } else {
+                cur.append(c);
+            }
+        }
+        fields.add(cur.toString());
+        return fields;
+    }
+}
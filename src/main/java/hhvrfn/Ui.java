@@ -1,5 +1,6 @@
 package hhvrfn;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Scanner;
 
@@ -13,11 +14,40 @@ public class Ui {
             + "What can I do for you?";
     private static final String FAREWELL = "Bye. Hope to see you again soon!";
 
+    // Nesting depth of beginBlock() calls; divider lines are only drawn around the outermost block.
+    private int blockDepth;
+
     /**
-     * Prints the divider line to standard output.
+     * Prints the divider line to standard output, unless inside a block.
      */
     public void showLine() {
-        System.out.print(LINE);
+        if (!isInBlock()) {
+            System.out.print(LINE);
+        }
+    }
+
+    /**
+     * Starts a block: output until the matching {@link #endBlock()} is shown as one unit,
+     * with divider lines only around the whole.
+     */
+    public void beginBlock() {
+        showLine();
+        blockDepth++;
+    }
+
+    /**
+     * Ends a block started with {@link #beginBlock()}.
+     */
+    public void endBlock() {
+        blockDepth--;
+        showLine();
+    }
+
+    /**
+     * Returns whether output is currently going into a block.
+     */
+    protected boolean isInBlock() {
+        return blockDepth > 0;
     }
 
     /**
@@ -62,6 +92,58 @@ public class Ui {
         showLine();
     }
 
+    /**
+     * Shows the list in a sorted order, numbering each task by its list position so that
+     * the numbers still work with mark, unmark and delete.
+     *
+     * @param keyName  name of the sort key
+     * @param tasks    TaskList to print
+     * @param order    zero-based positions in display order
+     */
+    public void showSorted(String keyName, TaskList tasks, int[] order) {
+        showLine();
+        System.out.println(" Here are the tasks in your list, sorted by " + keyName + ":");
+        for (int position : order) {
+            System.out.println(" " + (position + 1) + ". " + tasks.get(position));
+        }
+        showLine();
+    }
+
+    /**
+     * Shows the tasks carrying a set of tags, numbered by their list positions.
+     *
+     * @param tags      the tags as the user wrote them, e.g. "#work #urgent"
+     * @param tasks     TaskList to print
+     * @param positions zero-based positions of the tagged tasks, in list order
+     */
+    public void showTagged(String tags, TaskList tasks, int[] positions) {
+        showLine();
+        System.out.println(" Here are the tasks tagged " + tags + ":");
+        for (int position : positions) {
+            System.out.println(" " + (position + 1) + ". " + tasks.get(position));
+        }
+        showLine();
+    }
+
+    /**
+     * Shows the most urgent undone tasks, numbered by their list positions.
+     *
+     * @param tasks     TaskList to print
+     * @param positions zero-based positions, most urgent first
+     */
+    public void showNext(TaskList tasks, int[] positions) {
+        showLine();
+        if (positions.length == 0) {
+            System.out.println(" Nothing left to do!");
+        } else {
+            System.out.println(" Here is what to do next:");
+        }
+        for (int position : positions) {
+            System.out.println(" " + (position + 1) + ". " + tasks.get(position));
+        }
+        showLine();
+    }
+
     /**
      * Shows the "added" feedback.
      *
@@ -168,6 +250,49 @@ public class Ui {
         showLine();
     }
 
+    /**
+     * Shows the "priority set" feedback.
+     *
+     * @param task The task whose priority changed.
+     */
+    public void showPriority(Task task) {
+        showLine();
+        System.out.println(" OK, I've updated the priority of this task:");
+        System.out.println("   " + task);
+        showLine();
+    }
+
+    /**
+     * Shows matching tasks from both the list and its archive.
+     *
+     * @param matches  matching tasks in the list
+     * @param archived matching archived tasks
+     */
+    public void showFindAllResults(List<Task> matches, List<Task> archived) {
+        showLine();
+        System.out.println(" Here are the matching tasks in your list:");
+        for (int i = 0; i < matches.size(); i++) {
+            System.out.println(" " + (i + 1) + ". " + matches.get(i));
+        }
+        System.out.println(" And in your archive:");
+        for (Task t : archived) {
+            System.out.println("  - " + t);
+        }
+        showLine();
+    }
+
+    /**
+     * Shows the "archived" feedback.
+     *
+     * @param moved     number of tasks moved to the archive
+     * @param remaining number of tasks left in the list
+     */
+    public void showArchived(int moved, int remaining) {
+        showLine();
+        System.out.println(" Archived " + moved + " done tasks. Now you have " + remaining + " tasks in the list.");
+        showLine();
+    }
+
     /**
      * Shows the "rescheduled/snoozed" feedback.
      *
@@ -180,6 +305,170 @@ public class Ui {
         showLine();
     }
 
+    /**
+     * Shows the names of all task lists.
+     *
+     * @param names   list names, sorted
+     * @param current name of the current list
+     */
+    public void showLists(List<String> names, String current) {
+        showLine();
+        System.out.println(" Your task lists:");
+        for (String name : names) {
+            System.out.println("   " + (name.equals(current) ? "* " : "  ") + name);
+        }
+        showLine();
+    }
+
+    /**
+     * Shows the "switched list" feedback.
+     *
+     * @param name  name of the now-current list
+     * @param total number of tasks in it
+     */
+    public void showSwitched(String name, int total) {
+        showLine();
+        System.out.println(" Switched to list '" + name + "'. It has " + total + " tasks.");
+        showLine();
+    }
+
+    /**
+     * Shows reminders for deadlines that are due soon or overdue.
+     *
+     * @param reminders reminders that came due
+     */
+    public void showReminders(List<ReminderScheduler.Reminder> reminders) {
+        showLine();
+        for (ReminderScheduler.Reminder r : reminders) {
+            System.out.println(" " + reminderText(r));
+        }
+        showLine();
+    }
+
+    /**
+     * Formats one reminder line.
+     *
+     * @param reminder the reminder
+     * @return text such as "Overdue (work): [D][ ] report (by: Dec 1 2025)"
+     */
+    protected String reminderText(ReminderScheduler.Reminder reminder) {
+        return (reminder.isOverdue() ? "Overdue" : "Due soon") + " (" + reminder.getListName() + "): "
+                + reminder.getTask();
+    }
+
+    /**
+     * Shows a notice that the list was brought in sync with changes from another process.
+     *
+     * @param message what happened
+     */
+    public void showSyncNotice(String message) {
+        showLine();
+        System.out.println(" " + message);
+        showLine();
+    }
+
+    /**
+     * Shows the "undone" feedback.
+     *
+     * @param command the command whose changes were reverted
+     */
+    public void showUndone(String command) {
+        showLine();
+        System.out.println(" Undid: " + command);
+        showLine();
+    }
+
+    /**
+     * Shows the "redone" feedback.
+     *
+     * @param command the command whose changes were re-applied
+     */
+    public void showRedone(String command) {
+        showLine();
+        System.out.println(" Redid: " + command);
+        showLine();
+    }
+
+    /**
+     * Shows the tasks of an agenda or overlap query.
+     *
+     * @param title heading describing the query
+     * @param tasks matching tasks, in display order
+     */
+    public void showAgenda(String title, List<Task> tasks) {
+        showLine();
+        System.out.println(" " + title);
+        if (tasks.isEmpty()) {
+            System.out.println(" Nothing scheduled.");
+        }
+        for (int i = 0; i < tasks.size(); i++) {
+            System.out.println(" " + (i + 1) + ". " + tasks.get(i));
+        }
+        showLine();
+    }
+
+    /**
+     * Shows the task counters of the current list.
+     *
+     * @param summary counters to show
+     * @param check   outcome of a consistency check, or null if none was run
+     */
+    public void showSummary(TaskStats.Summary summary, String check) {
+        showLine();
+        for (String line : summaryLines(summary)) {
+            System.out.println(" " + line);
+        }
+        if (check != null) {
+            System.out.println(" " + check);
+        }
+        showLine();
+    }
+
+    /**
+     * Formats the counters of a summary, one line each.
+     *
+     * @param summary counters to format
+     * @return lines without leading indentation
+     */
+    protected List<String> summaryLines(TaskStats.Summary summary) {
+        List<String> lines = new ArrayList<>();
+        lines.add("You have " + summary.getTotal() + " tasks: " + summary.count(TaskType.TODO) + " todos, "
+                + summary.count(TaskType.DEADLINE) + " deadlines, " + summary.count(TaskType.EVENT) + " events, "
+                + summary.count(TaskType.RECURRING) + " recurring.");
+        lines.add(String.format("Done: %d (%.0f%%).", summary.getDone(), summary.doneRatio() * 100));
+        lines.add("Overdue: " + summary.getOverdue() + ". Due in the next " + TaskStats.WEEK_DAYS + " days: "
+                + summary.getDueThisWeek() + ".");
+        return lines;
+    }
+
+    /**
+     * Shows the result of an export.
+     *
+     * @param count number of tasks written
+     * @param file  destination file
+     */
+    public void showExported(int count, String file) {
+        showLine();
+        System.out.println(" Exported " + count + " tasks to " + file + ".");
+        showLine();
+    }
+
+    /**
+     * Shows the result of an import.
+     *
+     * @param added      records added to the list
+     * @param duplicates records skipped because they already exist
+     * @param invalid    records rejected as malformed
+     * @param total      current size of the list
+     */
+    public void showImported(int added, int duplicates, int invalid, int total) {
+        showLine();
+        System.out.println(" Imported " + added + " tasks (" + duplicates + " duplicates, "
+                + invalid + " invalid records skipped).");
+        System.out.println(" Now you have " + total + " tasks in the list.");
+        showLine();
+    }
+
     /**
      * Shows help information with all available commands.
      */
@@ -189,25 +478,50 @@ public class Ui {
         System.out.println();
         System.out.println(" 📋 Task Management:");
         System.out.println("   list                          - Show all tasks");
+        System.out.println("   list #tag [#tag ...]          - Show tasks carrying all the given tags");
         System.out.println("   todo <description>            - Add a new todo task");
         System.out.println("   deadline <desc> /by yyyy-MM-dd - Add a deadline task");
         System.out.println("   event <desc> /from <time> /to <time> - Add an event task");
+        System.out.println("   recur <desc> /from <date> /every <weekly|2 weeks|...> [/until <date>]"
+                + " - Add a repeating task");
         System.out.println();
         System.out.println(" ✅ Task Operations:");
         System.out.println("   mark <number>                 - Mark task as done");
         System.out.println("   unmark <number>               - Mark task as not done");
         System.out.println("   delete <number>               - Delete a task");
+        System.out.println("   priority <number> <1-9|0>     - Set a task's priority (1 most urgent, 0 clears)");
+        System.out.println("   next [count]                  - Show the most urgent undone tasks");
         System.out.println("   find <keyword>                - Search for tasks");
+        System.out.println("   find ~<words>                 - Typo-tolerant search, best matches first");
+        System.out.println("   find --all <keyword>          - Search the list and its archive");
+        System.out.println("   query <expression>            - Filter, e.g. type:D done:false by<2026-12-01");
+        System.out.println("   sort by <date|type|status|description> - Show the list in another order");
         System.out.println("   snooze <number> /to yyyy-MM-dd - Reschedule a deadline");
+        System.out.println("   summary [--check]             - Count tasks by type, done, overdue and due soon");
+        System.out.println("   undo / redo                   - Revert or re-apply the last change");
+        System.out.println("   overlap <from> <to>           - Show events overlapping a time window");
+        System.out.println("   agenda yyyy-MM-dd             - Show events and deadlines of a day");
+        System.out.println();
+        System.out.println(" 🗂️ Lists:");
+        System.out.println("   lists                         - Show all task lists");
+        System.out.println("   switch <name>                 - Switch to (or create) a task list");
+        System.out.println();
+        System.out.println(" 📦 Data:");
+        System.out.println("   export <file> [--format csv|ndjson] - Export all tasks to a file");
+        System.out.println("   import <file>                 - Import tasks, skipping duplicates");
+        System.out.println("   archive [days]                - Move tasks done at least <days> ago to the archive");
         System.out.println();
         System.out.println(" 🚪 Other:");
+        System.out.println("   cmd1; cmd2; ...               - Run several commands in order, saving once");
         System.out.println("   help                          - Show this help message");
         System.out.println("   bye                           - Exit the program");
         System.out.println();
         System.out.println(" 💡 Examples:");
         System.out.println("   todo Read a book");
+        System.out.println("   todo Fix login bug #work #urgent");
         System.out.println("   deadline Submit assignment /by 2024-12-25");
         System.out.println("   event Team meeting /from 2pm /to 4pm");
+        System.out.println("   event Review /from 2024-12-20 1400 /to 2024-12-20 1600");
         System.out.println("   mark 1");
         System.out.println("   find book");
         showLine();
@@ -1,5 +1,7 @@
 package hhvrfn;
 
+import java.util.List;
+
 import javafx.scene.control.TextArea;
 
 /**
@@ -14,6 +16,9 @@ public class UiCapture extends Ui {
 
     @Override
     public void showLine() {
+        if (isInBlock()) {
+            return;
+        }
         out.appendText("____________________________________________________________\n");
     }
 
@@ -35,6 +40,52 @@ public class UiCapture extends Ui {
         }
     }
 
+    @Override
+    public void showSorted(String keyName, TaskList tasks, int[] order) {
+        out.appendText("Here are the tasks in your list, sorted by " + keyName + ":\n");
+        for (int position : order) {
+            out.appendText((position + 1) + ". " + tasks.get(position) + "\n");
+        }
+    }
+
+    @Override
+    public void showTagged(String tags, TaskList tasks, int[] positions) {
+        out.appendText("Here are the tasks tagged " + tags + ":\n");
+        for (int position : positions) {
+            out.appendText((position + 1) + ". " + tasks.get(position) + "\n");
+        }
+    }
+
+    @Override
+    public void showNext(TaskList tasks, int[] positions) {
+        out.appendText(positions.length == 0 ? "Nothing left to do!\n" : "Here is what to do next:\n");
+        for (int position : positions) {
+            out.appendText((position + 1) + ". " + tasks.get(position) + "\n");
+        }
+    }
+
+    @Override
+    public void showPriority(Task task) {
+        out.appendText("OK, I've updated the priority of this task: " + task + "\n");
+    }
+
+    @Override
+    public void showFindAllResults(List<Task> matches, List<Task> archived) {
+        out.appendText("Here are the matching tasks in your list:\n");
+        for (int i = 0; i < matches.size(); i++) {
+            out.appendText((i + 1) + ". " + matches.get(i) + "\n");
+        }
+        out.appendText("And in your archive:\n");
+        for (Task t : archived) {
+            out.appendText("- " + t + "\n");
+        }
+    }
+
+    @Override
+    public void showArchived(int moved, int remaining) {
+        out.appendText("Archived " + moved + " done tasks. Now you have " + remaining + " tasks in the list.\n");
+    }
+
     @Override
     public void showAdded(Task task, int total) {
         out.appendText("Got it. I've added this task: " + task + "\n");
@@ -61,4 +112,72 @@ public class UiCapture extends Ui {
     public void showError(String message) {
         out.appendText("[Error] " + message + "\n");
     }
+
+    @Override
+    public void showLists(List<String> names, String current) {
+        out.appendText("Your task lists:\n");
+        for (String name : names) {
+            out.appendText((name.equals(current) ? "* " : "  ") + name + "\n");
+        }
+    }
+
+    @Override
+    public void showSwitched(String name, int total) {
+        out.appendText("Switched to list '" + name + "'. It has " + total + " tasks.\n");
+    }
+
+    @Override
+    public void showReminders(List<ReminderScheduler.Reminder> reminders) {
+        for (ReminderScheduler.Reminder r : reminders) {
+            out.appendText(reminderText(r) + "\n");
+        }
+    }
+
+    @Override
+    public void showSyncNotice(String message) {
+        out.appendText(message + "\n");
+    }
+
+    @Override
+    public void showUndone(String command) {
+        out.appendText("Undid: " + command + "\n");
+    }
+
+    @Override
+    public void showRedone(String command) {
+        out.appendText("Redid: " + command + "\n");
+    }
+
+    @Override
+    public void showAgenda(String title, List<Task> tasks) {
+        out.appendText(title + "\n");
+        if (tasks.isEmpty()) {
+            out.appendText("Nothing scheduled.\n");
+        }
+        for (int i = 0; i < tasks.size(); i++) {
+            out.appendText((i + 1) + ". " + tasks.get(i) + "\n");
+        }
+    }
+
+    @Override
+    public void showSummary(TaskStats.Summary summary, String check) {
+        for (String line : summaryLines(summary)) {
+            out.appendText(line + "\n");
+        }
+        if (check != null) {
+            out.appendText(check + "\n");
+        }
+    }
+
+    @Override
+    public void showExported(int count, String file) {
+        out.appendText("Exported " + count + " tasks to " + file + ".\n");
+    }
+
+    @Override
+    public void showImported(int added, int duplicates, int invalid, int total) {
+        out.appendText("Imported " + added + " tasks (" + duplicates + " duplicates, "
+                + invalid + " invalid records skipped).\n");
+        out.appendText("Now you have " + total + " tasks in the list.\n");
+    }
 }
@@ -0,0 +1,132 @@
+package hhvrfn;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Undo/redo log of {@link TaskList} changes.
+ * Each user command becomes one entry holding the inverse and forward operation of every
+ * change it made, so an entry costs memory proportional to what changed rather than
+ * to the size of the list.
+ */
+class UndoHistory {
+    /** Default number of commands that can be undone. */
+    static final int DEFAULT_LIMIT = 100;
+
+    /**
+     * One reversible change: how to take it back and how to apply it again.
+     */
+    static final class Change {
+        private final Runnable undo;
+        private final Runnable redo;
+
+        Change(Runnable undo, Runnable redo) {
+            this.undo = undo;
+            this.redo = redo;
+        }
+    }
+
+    private static final class Entry {
+        private final String label;
+        private final List<Change> changes = new ArrayList<>(1);
+
+        private Entry(String label) {
+            this.label = label;
+        }
+    }
+
+    private final Deque<Entry> undoStack = new ArrayDeque<>();
+    private final Deque<Entry> redoStack = new ArrayDeque<>();
+    private final int limit;
+    private Entry open;
+    private boolean isReplaying;
+
+    UndoHistory(int limit) {
+        this.limit = limit;
+    }
+
+    /**
+     * Starts a new entry; changes recorded from now on are undone together.
+     *
+     * @param label user-facing description, usually the command text
+     */
+    void begin(String label) {
+        open = new Entry(label);
+    }
+
+    /**
+     * Records a change made by the current command. Ignored while undoing or redoing.
+     */
+    void record(Change change) {
+        if (isReplaying) {
+            return;
+        }
+        if (open == null) {
+            open = new Entry("change");
+        }
+        if (open.changes.isEmpty()) {
+            undoStack.push(open);
+            if (undoStack.size() > limit) {
+                undoStack.removeLast();
+            }
+        }
+        open.changes.add(change);
+        redoStack.clear();
+    }
+
+    /**
+     * Reverts the most recent entry.
+     *
+     * @return the label of the reverted entry, or null if there is nothing to undo
+     */
+    String undo() {
+        Entry entry = undoStack.poll();
+        if (entry == null) {
+            return null;
+        }
+        replay(() -> {
+            for (int i = entry.changes.size() - 1; i >= 0; i--) {
+                entry.changes.get(i).undo.run();
+            }
+        });
+        redoStack.push(entry);
+        open = null;
+        return entry.label;
+    }
+
+    /**
+     * Re-applies the most recently undone entry.
+     *
+     * @return the label of the re-applied entry, or null if there is nothing to redo
+     */
+    String redo() {
+        Entry entry = redoStack.poll();
+        if (entry == null) {
+            return null;
+        }
+        replay(() -> entry.changes.forEach(c -> c.redo.run()));
+        undoStack.push(entry);
+        open = null;
+        return entry.label;
+    }
+
+    /**
+     * Forgets all entries, e.g. after the list was replaced wholesale.
+     */
+    void clear() {
+        undoStack.clear();
+        redoStack.clear();
+        open = null;
+    }
+
+    private void replay(Runnable action) {
+        isReplaying = true;
+        try {
+            action.run();
+        } finally {
+            isReplaying = false;
+        }
+    }
+}
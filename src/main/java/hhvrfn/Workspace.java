@@ -0,0 +1,260 @@
+package hhvrfn;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.regex.Pattern;
+
+/**
+ * A set of independent, named task lists that live side by side in one data directory,
+ * one {@code NAME.txt} file per list. Lists are loaded on first use and the least recently
+ * used ones are saved and dropped from memory once their estimated footprint exceeds
+ * the heap budget. Dropping a list also forgets its undo history and pending reminders.
+ */
+public class Workspace {
+    /** System property with the heap budget for loaded lists, in megabytes. */
+    public static final String BUDGET_PROPERTY = "hhvrfn.heapBudgetMb";
+    /** System property with the number of days after which done tasks are archived on load; unset disables it. */
+    public static final String ARCHIVE_PROPERTY = "hhvrfn.archiveAfterDays";
+    /** Extension of the list files the workspace finds in its directory. */
+    static final String EXTENSION = ".txt";
+
+    private static final long DEFAULT_BUDGET_MB = 256;
+    private static final Pattern VALID_NAME = Pattern.compile("[A-Za-z0-9_-]{1,50}");
+
+    private final Path directory;
+    private final long budgetBytes;
+    // Access-ordered, so iteration starts at the least recently used list.
+    private final LinkedHashMap<String, TaskList> loaded = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, Storage> storages = new LinkedHashMap<>();
+    private final Map<String, ReminderScheduler> reminders = new LinkedHashMap<>();
+    private String current;
+
+    /**
+     * Constructs a workspace whose default list is the given data file, using the heap
+     * budget from {@link #BUDGET_PROPERTY}.
+     *
+     * @param defaultFilePath path of the default list, e.g. "./data/hhvrfn.txt"
+     */
+    public Workspace(String defaultFilePath) {
+        this(defaultFilePath, Long.getLong(BUDGET_PROPERTY, DEFAULT_BUDGET_MB) * 1024 * 1024);
+    }
+
+    /**
+     * Constructs a workspace whose default list is the given data file.
+     *
+     * @param defaultFilePath path of the default list, e.g. "./data/hhvrfn.txt"
+     * @param budgetBytes     estimated bytes the loaded lists may use before eviction
+     */
+    public Workspace(String defaultFilePath, long budgetBytes) {
+        Path file = Paths.get(defaultFilePath);
+        Path parent = file.getParent();
+        this.directory = parent == null ? Paths.get(".") : parent;
+        this.budgetBytes = budgetBytes;
+        String fileName = file.getFileName().toString();
+        this.current = fileName.endsWith(EXTENSION)
+                ? fileName.substring(0, fileName.length() - EXTENSION.length())
+                : fileName;
+        storages.put(current, newStorage(defaultFilePath));
+    }
+
+    /**
+     * Loads the current list. If loading fails the list starts out empty, as before
+     * workspaces existed, and the error is passed on so it can be shown.
+     *
+     * @throws HhvrfnException if the current list's file cannot be read
+     */
+    public void loadCurrent() throws HhvrfnException {
+        try {
+            load(current);
+        } catch (HhvrfnException e) {
+            attach(current, TaskList.createConfigured());
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the name of the current list.
+     */
+    public String getCurrentName() {
+        return current;
+    }
+
+    /**
+     * Returns the current list, loading it if necessary.
+     *
+     * @return the current task list
+     * @throws HhvrfnException if the list has to be loaded and cannot be read
+     */
+    public TaskList currentTasks() throws HhvrfnException {
+        return load(current);
+    }
+
+    /**
+     * Returns the storage of the current list.
+     */
+    public Storage currentStorage() {
+        return storageFor(current);
+    }
+
+    /**
+     * Makes {@code name} the current list, creating its file if it does not exist yet.
+     *
+     * @param name list name (letters, digits, '-' and '_')
+     * @return the newly current list
+     * @throws HhvrfnException if the name is invalid or the list cannot be loaded
+     */
+    public TaskList switchTo(String name) throws HhvrfnException {
+        if (!VALID_NAME.matcher(name).matches()) {
+            throw new HhvrfnException("List names may only use letters, digits, '-' and '_' (max 50).");
+        }
+        TaskList list = load(name);
+        current = name;
+        evictOverBudget();
+        return list;
+    }
+
+    /**
+     * Returns the names of all lists on disk or in memory, sorted.
+     *
+     * @return list names
+     * @throws HhvrfnException if the data directory cannot be read
+     */
+    public TreeSet<String> listNames() throws HhvrfnException {
+        TreeSet<String> names = new TreeSet<>(loaded.keySet());
+        names.add(current);
+        if (!Files.isDirectory(directory)) {
+            return names;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + EXTENSION)) {
+            for (Path f : files) {
+                String fileName = f.getFileName().toString();
+                String name = fileName.substring(0, fileName.length() - EXTENSION.length());
+                if (VALID_NAME.matcher(name).matches()) {
+                    names.add(name);
+                }
+            }
+        } catch (IOException e) {
+            Logger.error("Cannot list data directory", e);
+            throw new HhvrfnException("Cannot list task lists in " + directory + ": " + e.getMessage());
+        }
+        return names;
+    }
+
+    /**
+     * Returns whether the named list is currently held in memory.
+     *
+     * @param name list name
+     * @return true if loaded
+     */
+    public boolean isLoaded(String name) {
+        return loaded.containsKey(name);
+    }
+
+    private TaskList load(String name) throws HhvrfnException {
+        TaskList list = loaded.get(name);
+        if (list != null) {
+            return list;
+        }
+        Logger.info("Loading task list '" + name + "'");
+        list = storageFor(name).newList();
+        storageFor(name).loadInto(list);
+        autoArchive(name, list);
+        attach(name, list);
+        return list;
+    }
+
+    // Applies the archive policy of ARCHIVE_PROPERTY to a freshly loaded list.
+    private void autoArchive(String name, TaskList list) throws HhvrfnException {
+        Integer days = Integer.getInteger(ARCHIVE_PROPERTY);
+        if (days == null || days < 0) {
+            return;
+        }
+        Storage storage = storageFor(name);
+        int moved = storage.archive(list, LocalDate.now().minusDays(days));
+        if (moved > 0) {
+            storage.save(list);
+            Logger.info("Archived " + moved + " tasks of list '" + name + "' done over " + days + " days ago");
+        }
+    }
+
+    /**
+     * Stops watching the data files and releases the page files of B-tree lists. Call on exit:
+     * the JVM otherwise waits for the watchers' native threads before it can shut down.
+     */
+    public void close() {
+        for (Storage storage : storages.values()) {
+            storage.close();
+        }
+    }
+
+    /**
+     * Returns the reminders of all loaded lists that are due on or before {@code today}.
+     * Each reminder is reported once; only the heads of the reminder queues are examined.
+     *
+     * @param today the current date
+     * @return due reminders, grouped by list
+     */
+    public List<ReminderScheduler.Reminder> pollReminders(LocalDate today) {
+        List<ReminderScheduler.Reminder> due = new ArrayList<>();
+        for (ReminderScheduler scheduler : reminders.values()) {
+            due.addAll(scheduler.pollDue(today));
+        }
+        return due;
+    }
+
+    private void attach(String name, TaskList list) {
+        ReminderScheduler scheduler = new ReminderScheduler(name);
+        list.addListener(scheduler);
+        reminders.put(name, scheduler);
+        // Builds the summary counters while the list is being walked anyway.
+        list.summary(LocalDate.now());
+        loaded.put(name, list);
+    }
+
+    private Storage storageFor(String name) {
+        return storages.computeIfAbsent(name, n -> newStorage(directory.resolve(n + EXTENSION).toString()));
+    }
+
+    // Lists kept in B-tree page files need their own storage; all others use the text file.
+    private static Storage newStorage(String path) {
+        return "btree".equalsIgnoreCase(System.getProperty(TaskList.STORE_PROPERTY))
+                ? new BTreeStorage(path)
+                : new Storage(path);
+    }
+
+    // Saves and unloads least recently used lists until the rest fit in the budget.
+    private void evictOverBudget() {
+        long total = 0;
+        for (TaskList list : loaded.values()) {
+            total += list.footprintBytes();
+        }
+        Iterator<Map.Entry<String, TaskList>> it = loaded.entrySet().iterator();
+        while (total > budgetBytes && it.hasNext()) {
+            Map.Entry<String, TaskList> eldest = it.next();
+            if (eldest.getKey().equals(current)) {
+                continue;
+            }
+            try {
+                storageFor(eldest.getKey()).save(eldest.getValue());
+            } catch (HhvrfnException e) {
+                Logger.warn("Keeping list '" + eldest.getKey() + "' in memory; flush failed: " + e.getMessage());
+                continue;
+            }
+            storageFor(eldest.getKey()).close();
+            reminders.remove(eldest.getKey());
+            total -= eldest.getValue().footprintBytes();
+            Logger.info("Unloaded task list '" + eldest.getKey() + "' to stay within the heap budget");
+            it.remove();
+        }
+    }
+}
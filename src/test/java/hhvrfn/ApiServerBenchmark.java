@@ -0,0 +1,64 @@
+package hhvrfn;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Measures API throughput with concurrent clients, for the figure in the README. Timing
+ * depends on the machine, so it runs only through {@code ./gradlew benchmark}.
+ */
+@Tag("benchmark")
+public class ApiServerBenchmark {
+    @TempDir
+    Path dir;
+
+    private ApiServer api;
+
+    @BeforeEach
+    void startServer() throws Exception {
+        System.setProperty(Storage.WATCH_PROPERTY, "false");
+        Logger.disable();
+        Storage storage = new Storage(dir.resolve("tasks.txt").toString());
+        TaskList tasks = new TaskList();
+        storage.loadInto(tasks);
+        api = new ApiServer(tasks, storage, 0);
+        api.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        api.stop();
+        Logger.enable();
+        System.clearProperty(Storage.WATCH_PROPERTY);
+    }
+
+    @Test
+    void requestsPerSecond() throws Exception {
+        int clients = 16;
+        int requestsPerClient = 250;
+        int total = clients * requestsPerClient;
+        ExecutorService pool = Executors.newFixedThreadPool(clients);
+        // An untimed round first, so that the measured one runs compiled code over warm connections.
+        assertEquals(total, ApiServerTest.runClients(api, pool, clients, requestsPerClient));
+        long start = System.nanoTime();
+        int ok = ApiServerTest.runClients(api, pool, clients, requestsPerClient);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        pool.shutdown();
+
+        System.out.printf("%d clients, %d requests: %.0f req/s, %d saves%n", clients, total, total / seconds,
+                api.getSaveCount());
+        assertEquals(total, ok);
+        // Clients and server share the machine; one core of the development machine sustains about 2,700.
+        assertTrue(total / seconds > 1000, "throughput too low: " + total / seconds + " req/s");
+    }
+}
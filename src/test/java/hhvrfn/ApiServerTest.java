@@ -0,0 +1,205 @@
+package hhvrfn;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.Socket;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class ApiServerTest {
+    @TempDir
+    Path dir;
+
+    private TaskList tasks;
+    private Storage storage;
+    private ApiServer api;
+
+    @BeforeEach
+    void startServer() throws Exception {
+        System.setProperty(Storage.WATCH_PROPERTY, "false");
+        Logger.disable();
+        storage = new Storage(dir.resolve("tasks.txt").toString());
+        tasks = new TaskList();
+        storage.loadInto(tasks);
+        api = new ApiServer(tasks, storage, 0);
+        api.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        api.stop();
+        Logger.enable();
+        System.clearProperty(Storage.WATCH_PROPERTY);
+    }
+
+    @Test
+    void endpoints_mapOntoCommandsAndSave() throws Exception {
+        assertEquals(201, call("POST", "/tasks",
+                "{\"type\":\"deadline\",\"description\":\"pay rent\",\"by\":\"2026-11-01\"}"));
+        assertEquals(201, call("POST", "/tasks", "{\"type\":\"todo\",\"description\":\"read\"}"));
+        assertEquals(200, call("POST", "/tasks/1/snooze", "{\"to\":\"2026-12-01\"}"));
+        assertEquals(200, call("POST", "/tasks/2/mark", ""));
+        assertEquals(200, call("DELETE", "/tasks/2", ""));
+        assertEquals(400, call("POST", "/tasks/5/mark", ""));
+        assertEquals(400, call("POST", "/tasks", "{\"type\":\"todo\"}"));
+        assertEquals(404, call("GET", "/tasks/1/nothing", ""));
+        assertEquals(405, call("GET", "/tasks/1/mark", ""));
+        assertEquals(200, call("GET", "/tasks?find=rent", ""));
+
+        List<Task> saved = new Storage(dir.resolve("tasks.txt").toString()).load();
+        assertEquals(1, saved.size());
+        assertEquals("2026-12-01", saved.get(0).getDueDate().toString());
+    }
+
+    @Test
+    void commandsEndpoint_runsABatchWithOneSave() throws Exception {
+        assertEquals(201, call("POST", "/tasks", "{\"type\":\"todo\",\"description\":\"a; b\"}"));
+        int saves = api.getSaveCount();
+        assertEquals(200, call("POST", "/commands", "{\"command\":\"todo c; mark 1; delete 9; todo d\"}"));
+        assertEquals(3, tasks.size());
+        assertEquals("a; b", tasks.get(0).description);
+        assertEquals(saves + 1, api.getSaveCount());
+        assertEquals(400, call("POST", "/commands", "{\"command\":\"list; bye\"}"));
+    }
+
+    @Test
+    void pipelinedRequests_onOneConnection_areAnsweredInOrder() throws Exception {
+        String body = "{\"type\":\"todo\",\"description\":\"piped 1\"}";
+        String add = "POST /tasks HTTP/1.1\r\nHost: x\r\nContent-Length: " + body.length() + "\r\n\r\n" + body;
+        String list = "GET /tasks HTTP/1.1\r\nHost: x\r\n\r\n";
+        try (Socket socket = new Socket("127.0.0.1", api.getPort())) {
+            OutputStream out = socket.getOutputStream();
+            out.write((add + list).getBytes(StandardCharsets.UTF_8));
+            out.flush();
+            String first = readResponse(socket.getInputStream());
+            String second = readResponse(socket.getInputStream());
+            assertTrue(first.startsWith("HTTP/1.1 201"), first);
+            assertTrue(second.startsWith("HTTP/1.1 200") && second.contains("piped 1"), second);
+        }
+    }
+
+    @Test
+    void failedSave_failsOnlyRequestsThatChangedSomething() throws Exception {
+        assertEquals(201, call("POST", "/tasks", "{\"type\":\"todo\",\"description\":\"kept\"}"));
+        Path file = dir.resolve("tasks.txt");
+        byte[] saved = Files.readAllBytes(file);
+        Files.delete(file);
+        Files.createDirectory(file); // makes every save fail
+
+        assertEquals(500, call("POST", "/tasks", "{\"type\":\"todo\",\"description\":\"lost\"}"));
+        assertEquals(200, call("GET", "/tasks", ""));
+        assertEquals(200, call("GET", "/tasks?find=kept", ""));
+
+        Files.delete(file);
+        Files.write(file, saved);
+        assertEquals(201, call("POST", "/tasks", "{\"type\":\"todo\",\"description\":\"saved\"}"));
+        assertEquals(3, storage.load().size());
+    }
+
+    @Test
+    void parsePort_rejectsWhatIsNotAPort() {
+        assertEquals(8080, Hhvrfn.parsePort("8080"));
+        assertEquals(0, Hhvrfn.parsePort("0"));
+        assertEquals(-1, Hhvrfn.parsePort("abc"));
+        assertEquals(-1, Hhvrfn.parsePort("-1"));
+        assertEquals(-1, Hhvrfn.parsePort("65536"));
+    }
+
+    @Test
+    void loadTest_concurrentClientsShareSaves() throws Exception {
+        int clients = 16;
+        int requestsPerClient = 250;
+        ExecutorService pool = Executors.newFixedThreadPool(clients);
+        int ok = runClients(api, pool, clients, requestsPerClient);
+        pool.shutdown();
+
+        // Throughput is measured by ApiServerBenchmark; here only the outcome counts.
+        int total = clients * requestsPerClient;
+        assertEquals(total, ok);
+        assertEquals(total / 2, tasks.size());
+        assertTrue(api.getSaveCount() < total / 2, "saves should be batched");
+        assertEquals(total / 2, storage.load().size());
+    }
+
+    /**
+     * Runs the clients to completion, each alternating adds and searches.
+     *
+     * @return the number of successful requests
+     */
+    static int runClients(ApiServer api, ExecutorService pool, int clients, int requestsPerClient)
+            throws Exception {
+        List<Future<Integer>> results = new ArrayList<>();
+        for (int c = 0; c < clients; c++) {
+            int client = c;
+            results.add(pool.submit(() -> {
+                int ok = 0;
+                for (int i = 0; i < requestsPerClient; i++) {
+                    int status = i % 2 == 0
+                            ? call(api, "POST", "/tasks", "{\"type\":\"todo\",\"description\":\"load " + client + "\"}")
+                            : call(api, "GET", "/tasks?find=zzz", "");
+                    ok += status < 300 ? 1 : 0;
+                }
+                return ok;
+            }));
+        }
+        int ok = 0;
+        for (Future<Integer> f : results) {
+            ok += f.get();
+        }
+        return ok;
+    }
+
+    private int call(String method, String path, String body) throws IOException {
+        return call(api, method, path, body);
+    }
+
+    private static int call(ApiServer api, String method, String path, String body) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://127.0.0.1:" + api.getPort() + path)
+                .openConnection();
+        connection.setRequestMethod(method);
+        if (!body.isEmpty()) {
+            connection.setDoOutput(true);
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(body.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        int status = connection.getResponseCode();
+        // Draining the body returns the connection to the keep-alive cache.
+        try (InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+            in.readAllBytes();
+        }
+        return status;
+    }
+
+    // Reads one response with a Content-Length body.
+    private static String readResponse(InputStream in) throws IOException {
+        StringBuilder head = new StringBuilder();
+        while (!head.toString().endsWith("\r\n\r\n")) {
+            head.append((char) in.read());
+        }
+        int length = 0;
+        for (String line : head.toString().split("\r\n")) {
+            if (line.toLowerCase().startsWith("content-length:")) {
+                length = Integer.parseInt(line.substring(15).trim());
+            }
+        }
+        return head + new String(in.readNBytes(length), StandardCharsets.UTF_8);
+    }
+}
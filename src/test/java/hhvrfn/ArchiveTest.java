@@ -0,0 +1,108 @@
+package hhvrfn;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class ArchiveTest {
+    private static final LocalDate DAY = LocalDate.of(2026, 3, 10);
+
+    @TempDir
+    Path dir;
+
+    @BeforeEach
+    void disableWatcher() {
+        System.setProperty(Storage.WATCH_PROPERTY, "false");
+    }
+
+    @AfterEach
+    void restoreProperties() {
+        System.clearProperty(Storage.WATCH_PROPERTY);
+        System.clearProperty(Workspace.ARCHIVE_PROPERTY);
+    }
+
+    @Test
+    void archive_movesOldDoneTasksAndAppendsCompressedMembers() throws Exception {
+        Path file = dir.resolve("tasks.txt");
+        Files.write(file, List.of("T | 0 | keep open", "T | 1 | old report | d=2026-01-01", "T | 1 | legacy report",
+                "D | 1 | recent report | 2026-03-01 | d=2026-03-09", "T | 0 | keep too"), StandardCharsets.UTF_8);
+        Storage storage = new Storage(file.toString());
+        TaskList list = new TaskList();
+        storage.loadInto(list);
+
+        assertEquals(2, storage.archive(list, DAY.minusDays(7)));
+        storage.save(list.asList());
+        assertEquals(List.of("T | 0 | keep open", "D | 1 | recent report | 2026-03-01 | d=2026-03-09",
+                "T | 0 | keep too"), Files.readAllLines(file, StandardCharsets.UTF_8));
+
+        assertEquals(1, storage.archive(list, DAY));
+        byte[] cold = Files.readAllBytes(dir.resolve("tasks.txt.archive.gz"));
+        assertEquals(0x1f, cold[0] & 0xff);
+        assertEquals(0x8b, cold[1] & 0xff);
+
+        List<Task> found = storage.findArchived("REPORT");
+        assertEquals(3, found.size());
+        assertEquals(LocalDate.of(2026, 1, 1), found.get(0).getDoneOn());
+        assertEquals(2, list.size());
+        assertEquals(0, storage.findArchived("keep").size());
+    }
+
+    @Test
+    void batch_archivesNextToTheListsOwnFile() throws Exception {
+        Path file = dir.resolve("tasks.txt");
+        Files.write(file, List.of("T | 0 | keep open", "T | 0 | weekly report"), StandardCharsets.UTF_8);
+        Storage storage = new Storage(file.toString());
+        TaskList list = new TaskList();
+        storage.loadInto(list);
+        List<Integer> counts = new ArrayList<>();
+
+        Parser.process("mark 2; archive; find --all report", list, new ParserTest.StubUi() {
+            @Override
+            public void showFindAllResults(List<Task> matches, List<Task> archived) {
+                counts.add(matches.size());
+                counts.add(archived.size());
+            }
+        }, storage);
+
+        assertEquals(List.of(0, 1), counts);
+        assertEquals(List.of("T | 0 | keep open"), Files.readAllLines(file, StandardCharsets.UTF_8).stream()
+                .filter(l -> !l.isBlank()).toList());
+        assertEquals(1, new Storage(file.toString()).findArchived("weekly").size());
+    }
+
+    @Test
+    void workspace_autoArchivesOnLoadWhenConfigured() throws Exception {
+        Path file = dir.resolve("main.txt");
+        String longAgo = LocalDate.now().minusDays(40).toString();
+        Files.write(file, List.of("T | 1 | done long ago | d=" + longAgo, "T | 1 | done today | d=" + LocalDate.now()),
+                StandardCharsets.UTF_8);
+        System.setProperty(Workspace.ARCHIVE_PROPERTY, "30");
+        Workspace workspace = new Workspace(file.toString());
+        workspace.loadCurrent();
+
+        assertEquals(1, workspace.currentTasks().size());
+        // The list is saved as one segment: its task line and a blank padding line.
+        assertEquals(List.of("T | 1 | done today | d=" + LocalDate.now()),
+                Files.readAllLines(file, StandardCharsets.UTF_8).stream().filter(l -> !l.isBlank()).toList());
+        List<Integer> counts = new ArrayList<>();
+        Parser.process("find --all done", workspace, new Ui() {
+            @Override
+            public void showFindAllResults(List<Task> matches, List<Task> archived) {
+                counts.add(matches.size());
+                counts.add(archived.size());
+            }
+        });
+        assertEquals(List.of(1, 1), counts);
+        workspace.close();
+    }
+}
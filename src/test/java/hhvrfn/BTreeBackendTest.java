@@ -0,0 +1,208 @@
+package hhvrfn;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class BTreeBackendTest {
+    @TempDir
+    Path dir;
+
+    @BeforeEach
+    void disableWatcher() {
+        System.setProperty(Storage.WATCH_PROPERTY, "false");
+    }
+
+    @AfterEach
+    void restoreProperties() {
+        System.clearProperty(Storage.WATCH_PROPERTY);
+    }
+
+    @Test
+    void randomChanges_matchAListThroughEvictionAndReopening() throws Exception {
+        Path file = dir.resolve("tasks.txt.btree");
+        Random random = new Random(5);
+        List<String> model = new ArrayList<>();
+        // A cache of 16 pages is far smaller than the tree, so pages are evicted and re-read throughout.
+        try (BTreeBackend backend = new BTreeBackend(file, 16)) {
+            for (int step = 0; step < 20_000; step++) {
+                int op = model.isEmpty() ? 0 : random.nextInt(10);
+                Task t = randomTask(random, step);
+                if (op < 5) {
+                    int index = random.nextInt(model.size() + 1);
+                    backend.insert(index, t);
+                    model.add(index, Storage.serialize(t));
+                } else if (op < 8) {
+                    int index = random.nextInt(model.size());
+                    backend.update(index, t);
+                    model.set(index, Storage.serialize(t));
+                } else {
+                    int index = random.nextInt(model.size());
+                    backend.delete(index);
+                    model.remove(index);
+                }
+                if (step % 997 == 0 && !model.isEmpty()) {
+                    int index = random.nextInt(model.size());
+                    assertEquals(model.get(index), Storage.serialize(backend.get(index)), "step " + step);
+                }
+            }
+            assertEquals(model, lines(backend, 0));
+            assertEquals(model.subList(1234, model.size()), lines(backend, 1234));
+        }
+        try (BTreeBackend reopened = new BTreeBackend(file, 16)) {
+            assertEquals(model.size(), reopened.size());
+            assertEquals(model, lines(reopened, 0));
+            // Emptying the tree frees its pages for reuse instead of growing the file.
+            int pages = reopened.pageCount();
+            while (reopened.size() > 0) {
+                reopened.delete(reopened.size() / 2);
+            }
+            for (int i = 0; i < model.size(); i++) {
+                reopened.append(new Todo("again " + i));
+            }
+            assertEquals(pages, reopened.pageCount());
+        }
+    }
+
+    @Test
+    void storage_importsTheTextFileThenSavesInPlace() throws Exception {
+        Path text = dir.resolve("tasks.txt");
+        Files.write(text, List.of("T | 0 | read book", "D | 0 | return book | 2026-06-06", "T | 1 | done already"),
+                StandardCharsets.UTF_8);
+        BTreeStorage storage = new BTreeStorage(text.toString());
+        TaskList list = storage.newList();
+        storage.loadInto(list);
+        assertEquals(3, list.size());
+        assertThrows(HhvrfnException.class, () -> new BTreeStorage(text.toString()).newList());
+
+        list.markAsDone(0);
+        list.setPriority(1, 2);
+        list.remove(2);
+        storage.save(list);
+        storage.close();
+        assertEquals("T | 0 | read book", Files.readAllLines(text, StandardCharsets.UTF_8).get(0));
+
+        BTreeStorage again = new BTreeStorage(text.toString());
+        TaskList reopened = again.newList();
+        again.loadInto(reopened);
+        assertEquals(2, reopened.size());
+        assertTrue(reopened.get(0).isDone);
+        assertEquals(2, reopened.get(1).getPriority());
+        again.close();
+    }
+
+    @Test
+    void findMatching_readsABackendFromTheCallingThreadOnly() throws Exception {
+        try (ThreadRecordingBackend backend = new ThreadRecordingBackend(
+                new BTreeBackend(dir.resolve("tasks.txt.btree"), 16))) {
+            TaskList list = TaskList.onBackend(backend);
+            int n = 50_000; // several partitions, were the scan split
+            for (int i = 0; i < n; i++) {
+                Task t = new Todo("task " + i);
+                if (i % 7 == 0) {
+                    t.markAsDone();
+                }
+                list.add(t);
+            }
+            backend.readers.clear();
+
+            List<Integer> done = list.findMatching(TaskQuery.parse("done:true"));
+
+            assertEquals((n + 6) / 7, done.size());
+            assertEquals(7, done.get(1));
+            assertEquals(Set.of(Thread.currentThread()), backend.readers);
+        }
+    }
+
+    private static Task randomTask(Random random, int step) {
+        // Every fiftieth task is too long for a leaf and goes to overflow pages.
+        String description = step % 50 == 0 ? "long " + "x".repeat(1000 + random.nextInt(9000)) : "task " + step;
+        return random.nextBoolean() ? new Todo(description) : new Deadline(description,
+                LocalDate.of(2026, 1, 1).plusDays(random.nextInt(365)));
+    }
+
+    private static List<String> lines(BTreeBackend backend, int from) {
+        List<String> lines = new ArrayList<>();
+        backend.scan(from, t -> lines.add(Storage.serialize(t)));
+        return lines;
+    }
+
+    // Passes everything through to a backend, noting which threads read from it.
+    private static final class ThreadRecordingBackend implements StorageBackend {
+        private final Set<Thread> readers = ConcurrentHashMap.newKeySet();
+        private final StorageBackend backend;
+
+        private ThreadRecordingBackend(StorageBackend backend) {
+            this.backend = backend;
+        }
+
+        @Override
+        public int size() {
+            return backend.size();
+        }
+
+        @Override
+        public Task get(int index) {
+            readers.add(Thread.currentThread());
+            return backend.get(index);
+        }
+
+        @Override
+        public void append(Task task) {
+            backend.append(task);
+        }
+
+        @Override
+        public void insert(int index, Task task) {
+            backend.insert(index, task);
+        }
+
+        @Override
+        public void update(int index, Task task) {
+            backend.update(index, task);
+        }
+
+        @Override
+        public void delete(int index) {
+            backend.delete(index);
+        }
+
+        @Override
+        public void scan(int from, Consumer<Task> sink) {
+            readers.add(Thread.currentThread());
+            backend.scan(from, sink);
+        }
+
+        @Override
+        public void commit() throws IOException {
+            backend.commit();
+        }
+
+        @Override
+        public long cachedBytes() {
+            return backend.cachedBytes();
+        }
+
+        @Override
+        public void close() throws IOException {
+            backend.close();
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package hhvrfn;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Measures file size and save and load times per compression format and level, for the table in
+ * the README. Writes several megabytes, so it runs only through {@code ./gradlew benchmark}.
+ */
+@Tag("benchmark")
+public class CompressionBenchmark {
+    @TempDir
+    Path dir;
+
+    @BeforeEach
+    void quiet() {
+        System.setProperty(Storage.WATCH_PROPERTY, "false");
+        Logger.disable();
+    }
+
+    @AfterEach
+    void restore() {
+        System.clearProperty(Storage.WATCH_PROPERTY);
+        System.clearProperty(Storage.COMPRESS_PROPERTY);
+        System.clearProperty(Storage.COMPRESS_LEVEL_PROPERTY);
+        Logger.enable();
+    }
+
+    @Test
+    void sizeAndTimePerFormatAndLevel() throws Exception {
+        Path file = dir.resolve("large.txt");
+        ArrayList<Task> tasks = CompressionTest.sampleTasks(200_000);
+        long plainBytes = 0;
+        // A throwaway round so the first measured row does not pay for JIT warm-up.
+        new Storage(file.toString()).save(tasks);
+        new Storage(file.toString()).load();
+        System.out.println("format   level      bytes  save ms  load ms");
+        for (String setting : new String[] {"plain:6", "gzip:1", "gzip:6", "gzip:9", "deflate:6"}) {
+            String[] parts = setting.split(":");
+            System.setProperty(Storage.COMPRESS_PROPERTY, parts[0]);
+            System.setProperty(Storage.COMPRESS_LEVEL_PROPERTY, parts[1]);
+            Files.deleteIfExists(file);
+            Storage storage = new Storage(file.toString());
+            long start = System.nanoTime();
+            storage.save(tasks);
+            long saveMs = (System.nanoTime() - start) / 1_000_000;
+            start = System.nanoTime();
+            int loaded = new Storage(file.toString()).load().size();
+            long loadMs = (System.nanoTime() - start) / 1_000_000;
+            long bytes = Files.size(file);
+            plainBytes = parts[0].equals("plain") ? bytes : plainBytes;
+            String level = parts[0].equals("plain") ? "-" : parts[1];
+            System.out.printf("%-8s %5s %10d %8d %8d%n", parts[0], level, bytes, saveMs, loadMs);
+            assertEquals(tasks.size(), loaded);
+            if (!parts[0].equals("plain")) {
+                assertTrue(bytes * 4 < plainBytes, setting + " should shrink the file well");
+            }
+        }
+    }
+}
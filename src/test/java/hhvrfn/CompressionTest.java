@@ -0,0 +1,95 @@
+package hhvrfn;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class CompressionTest {
+    @TempDir
+    Path dir;
+
+    @BeforeEach
+    void quiet() {
+        System.setProperty(Storage.WATCH_PROPERTY, "false");
+        Logger.disable();
+    }
+
+    @AfterEach
+    void restore() {
+        System.clearProperty(Storage.WATCH_PROPERTY);
+        System.clearProperty(Storage.COMPRESS_PROPERTY);
+        System.clearProperty(Storage.COMPRESS_LEVEL_PROPERTY);
+        Logger.enable();
+    }
+
+    @Test
+    void compressedFiles_areDetectedAndKeepTheirFormat() throws Exception {
+        Path file = dir.resolve("tasks.txt");
+        ArrayList<Task> tasks = sampleTasks(100);
+        for (Compression.Format format : Compression.Format.values()) {
+            System.setProperty(Storage.COMPRESS_PROPERTY, format.name().toLowerCase());
+            new Storage(file.toString()).save(tasks);
+            assertEquals(format, Compression.detect(file));
+
+            // Without the property a save keeps whatever format the file already has.
+            System.clearProperty(Storage.COMPRESS_PROPERTY);
+            Storage storage = new Storage(file.toString());
+            TaskList list = new TaskList();
+            storage.loadInto(list);
+            list.markAsDone(3);
+            storage.save(list.asList());
+            assertEquals(format, Compression.detect(file));
+            assertEquals(serialized(list.asList()), serialized(new Storage(file.toString()).load()));
+        }
+    }
+
+    @Test
+    void refresh_rereadsACompressedFileRewrittenByAnotherWriter() throws Exception {
+        System.setProperty(Storage.COMPRESS_PROPERTY, "gzip");
+        String file = dir.resolve("tasks.txt").toString();
+        Storage mine = new Storage(file);
+        mine.save(sampleTasks(10));
+        TaskList list = new TaskList();
+        mine.loadInto(list);
+
+        Storage theirs = new Storage(file);
+        ArrayList<Task> more = theirs.load();
+        more.add(new Todo("added elsewhere"));
+        theirs.save(more);
+        assertTrue(mine.refresh(list));
+        assertEquals(11, list.size());
+        assertEquals("added elsewhere", list.get(10).description);
+    }
+
+    static ArrayList<Task> sampleTasks(int n) {
+        ArrayList<Task> tasks = new ArrayList<>();
+        LocalDate day = LocalDate.of(2026, 1, 1);
+        for (int i = 0; i < n; i++) {
+            Task t = i % 2 == 0
+                    ? new Todo("review pull request " + i + " #work")
+                    : new Deadline("pay invoice " + (i % 500), day.plusDays(i % 365));
+            if (i % 3 == 0) {
+                t.markAsDone();
+            }
+            tasks.add(t);
+        }
+        return tasks;
+    }
+
+    private static List<String> serialized(List<Task> tasks) {
+        List<String> lines = new ArrayList<>();
+        for (Task t : tasks) {
+            lines.add(Storage.serialize(t));
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,66 @@
+package hhvrfn;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class FuzzyIndexTest {
+
+    @Test
+    void boundedDistance_stopsAtBound() {
+        assertEquals(1, FuzzyIndex.boundedDistance("book", "bok", 2));
+        assertEquals(2, FuzzyIndex.boundedDistance("return", "retrun", 2));
+        assertEquals(2, FuzzyIndex.boundedDistance("apple", "orange", 1));
+    }
+
+    @Test
+    void findFuzzy_ranksByDistanceAndRequiresEveryWord() {
+        TaskList list = new TaskList();
+        list.add(new Todo("return book"), new Todo("read book"), new Todo("return bok to library"),
+                new Todo("buy milk"), new Todo("return books"));
+
+        assertEquals(List.of(0, 2, 4), list.findFuzzy("retrun book", 10));
+        assertEquals(List.of(2, 0), list.findFuzzy("bok", 2));
+        assertEquals(List.of(3), list.findFuzzy("MILK", 10));
+        assertEquals(List.of(), list.findFuzzy("milk book", 10));
+        // A task that matched only the first word of the last query is found afresh by the next one.
+        assertEquals(List.of(3), list.findFuzzy("milk", 10));
+
+        list.remove(0);
+        assertEquals(List.of(1, 3), list.findFuzzy("retrun book", 10));
+    }
+
+    @Test
+    void findFuzzy_staysCurrentThroughChangesAndCompaction() {
+        String[] vocabulary = {"return", "book", "library", "milk", "bread", "invoice", "report", "garden"};
+        Random random = new Random(3);
+        TaskList list = new TaskList();
+        for (int i = 0; i < 2000; i++) {
+            list.add(new Todo(vocabulary[random.nextInt(8)] + " " + vocabulary[random.nextInt(8)] + " " + i));
+        }
+        list.findFuzzy("book", 1);
+
+        for (int step = 0; step < 3000; step++) {
+            if (random.nextInt(6) == 0) {
+                list.add(new Todo(vocabulary[random.nextInt(8)] + " extra " + step));
+            } else {
+                list.beginChange("delete");
+                list.remove(random.nextInt(list.size()));
+                if (random.nextInt(4) == 0) {
+                    list.undo(); // re-inserts in the middle
+                }
+            }
+            if (step % 250 == 0 || step == 2999) {
+                TaskList fresh = new TaskList(list.asList());
+                assertEquals(fresh.findFuzzy("retrun bok", 50), list.findFuzzy("retrun bok", 50));
+                assertEquals(fresh.findFuzzy("invoce", 20), list.findFuzzy("invoce", 20));
+                assertEquals(Arrays.toString(fresh.positionsWithWordContaining("ilk")),
+                        Arrays.toString(list.positionsWithWordContaining("ilk")));
+            }
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package hhvrfn;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class IntervalTreeTest {
+    private static final DateTimeFormatter FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HHmm");
+
+    @Test
+    void query_matchesBruteForce() {
+        Random random = new Random(42);
+        int n = 500;
+        long[] starts = new long[n];
+        long[] ends = new long[n];
+        int[] ids = new int[n];
+        for (int i = 0; i < n; i++) {
+            starts[i] = random.nextInt(10_000);
+            ends[i] = starts[i] + random.nextInt(300);
+            ids[i] = i;
+        }
+        IntervalTree tree = new IntervalTree(starts, ends, ids, n);
+
+        for (int q = 0; q < 200; q++) {
+            long from = random.nextInt(10_000);
+            long to = from + random.nextInt(500);
+            List<Integer> expected = new ArrayList<>();
+            for (int i = 0; i < n; i++) {
+                if (starts[i] <= to && ends[i] >= from) {
+                    expected.add(i);
+                }
+            }
+            List<Integer> actual = new ArrayList<>();
+            tree.query(from, to, actual::add);
+            actual.sort(null);
+            assertEquals(expected, actual);
+        }
+    }
+
+    @Test
+    void findOverlappingEvents_skipsFreeFormEventsAndTracksRemovals() {
+        TaskList list = new TaskList();
+        list.add(new Event("standup", "2024-10-01 0900", "2024-10-01 0915"),
+                new Event("party", "Fri night", "Sat morning"),
+                new Event("offsite", "2024-09-30", "2024-10-02"));
+
+        LocalDateTime nine = LocalDate.of(2024, 10, 1).atTime(9, 5);
+        assertEquals(List.of(2, 0), list.findOverlappingEvents(nine, nine));
+
+        list.remove(0);
+        assertEquals(List.of(1), list.findOverlappingEvents(nine, nine));
+    }
+
+    @Test
+    void findOverlappingEvents_followsInsertsRemovalsAndReplacements() {
+        Random random = new Random(7);
+        LocalDateTime base = LocalDate.of(2024, 1, 1).atStartOfDay();
+        TaskList list = new TaskList();
+        for (int i = 0; i < 300; i++) {
+            list.add(randomTask(random, base));
+        }
+        list.findOverlappingEvents(base, base);
+
+        for (int step = 0; step < 300; step++) {
+            int op = random.nextInt(4);
+            if (op == 0 || list.isEmpty()) {
+                list.add(randomTask(random, base));
+            } else if (op == 1) {
+                list.beginChange("remove");
+                list.remove(random.nextInt(list.size()));
+                if (random.nextBoolean()) {
+                    list.undo(); // re-inserts in the middle
+                }
+            } else if (op == 2) {
+                list.markAsDone(random.nextInt(list.size()));
+            } else {
+                int from = random.nextInt(list.size());
+                list.replaceFrom(from, List.of(randomTask(random, base)));
+            }
+            LocalDateTime qFrom = base.plusHours(random.nextInt(24 * 30));
+            LocalDateTime qTo = qFrom.plusHours(random.nextInt(48));
+            List<Integer> expected = new ArrayList<>();
+            for (int i = 0; i < list.size(); i++) {
+                Task t = list.get(i);
+                if (t instanceof Event && ((Event) t).hasTypedBounds() && !((Event) t).getStart().isAfter(qTo)
+                        && !((Event) t).getEnd().isBefore(qFrom)) {
+                    expected.add(i);
+                }
+            }
+            List<Integer> actual = list.findOverlappingEvents(qFrom, qTo);
+            actual.sort(null);
+            assertEquals(expected, actual);
+        }
+    }
+
+    private static Task randomTask(Random random, LocalDateTime base) {
+        if (random.nextInt(4) == 0) {
+            return new Todo("todo");
+        }
+        LocalDateTime start = base.plusHours(random.nextInt(24 * 30));
+        LocalDateTime end = start.plusHours(random.nextInt(30));
+        return new Event("event", start.format(FORMAT), end.format(FORMAT));
+    }
+}
@@ -0,0 +1,113 @@
+package hhvrfn;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+public class JfrEventsTest {
+
+    @TempDir
+    Path dir;
+
+    @BeforeEach
+    void setUp() {
+        System.setProperty(Storage.WATCH_PROPERTY, "false");
+        Logger.disable();
+    }
+
+    @AfterEach
+    void tearDown() {
+        System.clearProperty(Storage.WATCH_PROPERTY);
+        Logger.enable();
+    }
+
+    @Test
+    void commands_recordCommandStorageAndLogEvents() throws Exception {
+        Path file = dir.resolve("tasks.txt");
+        Files.write(file, List.of("T | 0 | a", "not a task"), StandardCharsets.UTF_8);
+        Path dump = dir.resolve("hhvrfn.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("hhvrfn.Command");
+            recording.enable("hhvrfn.Storage");
+            recording.enable("hhvrfn.Log");
+            recording.start();
+            Storage storage = new Storage(file.toString());
+            TaskList tasks = new TaskList();
+            storage.loadInto(tasks);
+            Ui ui = new ParserTest.StubUi();
+            Parser.process("todo read book", tasks, ui, storage);
+            assertThrows(HhvrfnException.class, () -> Parser.process("mark 9", tasks, ui, storage));
+            recording.stop();
+            recording.dump(dump);
+        }
+        List<RecordedEvent> events = RecordingFile.readAllEvents(dump);
+
+        List<RecordedEvent> commands = named(events, "hhvrfn.Command");
+        assertEquals(2, commands.size());
+        assertEquals("todo", commands.get(0).getString("command"));
+        assertEquals(2, commands.get(0).getInt("taskCount"));
+        assertFalse(commands.get(0).getBoolean("isFailed"));
+        assertEquals("mark", commands.get(1).getString("command"));
+        assertTrue(commands.get(1).getBoolean("isFailed"));
+
+        List<RecordedEvent> storage = named(events, "hhvrfn.Storage");
+        RecordedEvent load = storage.get(0);
+        assertEquals("load", load.getString("operation"));
+        assertEquals(1, load.getInt("lines"));
+        assertEquals(1, load.getInt("skippedLines"));
+        assertEquals("plain", load.getString("format"));
+        RecordedEvent save = storage.get(storage.size() - 1);
+        assertTrue(save.getString("operation").endsWith("save"));
+        assertEquals(2, save.getInt("lines"));
+        assertEquals(Files.size(file), save.getLong("bytes"));
+
+        assertTrue(named(events, "hhvrfn.Log").stream()
+                .anyMatch(e -> e.getString("message").equals("Processing command: todo read book")));
+    }
+
+    @Test
+    void workspaceBatch_recordsWorkspaceCommandsAndTheSave() throws Exception {
+        Path file = dir.resolve("tasks.txt");
+        Files.write(file, List.of("T | 0 | a"), StandardCharsets.UTF_8);
+        Path dump = dir.resolve("hhvrfn.jfr");
+        Workspace workspace = new Workspace(file.toString());
+        workspace.loadCurrent();
+        try (Recording recording = new Recording()) {
+            recording.enable("hhvrfn.Command");
+            recording.start();
+            Parser.process("lists; switch work; todo x; todo y", workspace, new ParserTest.StubUi());
+            recording.stop();
+            recording.dump(dump);
+        } finally {
+            workspace.close();
+        }
+        List<RecordedEvent> commands = named(RecordingFile.readAllEvents(dump), "hhvrfn.Command");
+
+        assertEquals(List.of("lists", "switch", "todo", "todo", "save"),
+                commands.stream().map(e -> e.getString("command")).collect(Collectors.toList()));
+        assertEquals(1, commands.get(0).getInt("taskCount"));
+        assertEquals(0, commands.get(1).getInt("taskCount"));
+        assertEquals(2, commands.get(4).getInt("taskCount"));
+        assertTrue(commands.stream().noneMatch(e -> e.getBoolean("isFailed")));
+    }
+
+    private static List<RecordedEvent> named(List<RecordedEvent> events, String name) {
+        return events.stream().filter(e -> e.getEventType().getName().equals(name)).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,92 @@
+package hhvrfn;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+public class NextQueueTest {
+    private static final LocalDate DAY = LocalDate.of(2026, 3, 10);
+
+    @Test
+    void next_ordersByPriorityThenDueDate() {
+        TaskList list = new TaskList();
+        list.add(new Todo("a"), new Deadline("b", DAY.plusDays(5)), new Deadline("c", DAY.plusDays(1)),
+                new Todo("d"), new Todo("e"));
+        list.setPriority(3, 2);
+        list.setPriority(1, 2);
+        list.markAsDone(2);
+        assertArrayEquals(new int[] {1, 3, 0, 4}, list.next(10));
+
+        list.reschedule(1, DAY.plusYears(1));
+        list.markAsNotDone(2);
+        list.setPriority(2, 1);
+        list.beginChange("delete 1");
+        list.remove(0);
+        assertArrayEquals(new int[] {1, 0, 2}, list.next(3));
+        list.undo();
+        assertArrayEquals(new int[] {2, 1, 3, 0, 4}, list.next(5));
+    }
+
+    @Test
+    void next_staysEqualToAFullSortUnderRandomChanges() {
+        for (TaskList list : new TaskList[] {new TaskList(), TaskList.packed()}) {
+            Random random = new Random(5);
+            for (int i = 0; i < 200; i++) {
+                list.add(randomTask(random));
+            }
+            list.next(1);
+            for (int step = 0; step < 600; step++) {
+                if (list.isEmpty()) {
+                    list.add(randomTask(random));
+                }
+                int index = random.nextInt(list.size());
+                switch (random.nextInt(6)) {
+                case 0:
+                    list.remove(index);
+                    break;
+                case 1:
+                    list.markAsDone(index);
+                    break;
+                case 2:
+                    list.setPriority(index, random.nextInt(Task.MIN_PRIORITY + 1));
+                    break;
+                case 3:
+                    if (list.get(index) instanceof Deadline) {
+                        list.reschedule(index, DAY.plusDays(random.nextInt(30)));
+                    }
+                    break;
+                case 4:
+                    list.undo();
+                    break;
+                default:
+                    list.add(randomTask(random));
+                    break;
+                }
+                int k = 1 + random.nextInt(20);
+                assertArrayEquals(fullSort(list, k), list.next(k), "after step " + step);
+            }
+        }
+    }
+
+    private static Task randomTask(Random random) {
+        Task t = random.nextBoolean()
+                ? new Todo("task")
+                : new Deadline("task", DAY.plusDays(random.nextInt(30)));
+        t.setPriority(random.nextInt(Task.MIN_PRIORITY + 1));
+        return t;
+    }
+
+    private static int[] fullSort(TaskList list, int k) {
+        Comparator<Integer> byUrgency = Comparator
+                .comparing((Integer i) -> list.get(i).getPriority() == 0 ? 10 : list.get(i).getPriority())
+                .thenComparing(i -> list.get(i).getDueDate(), Comparator.nullsLast(Comparator.naturalOrder()))
+                .thenComparing(i -> i);
+        return IntStream.range(0, list.size()).boxed().filter(i -> !list.get(i).isDone).sorted(byUrgency)
+                .limit(k).mapToInt(Integer::intValue).toArray();
+    }
+}
@@ -0,0 +1,72 @@
+package hhvrfn;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class PackedTaskStoreTest {
+
+    private static Task sampleTask(int i) {
+        Task t;
+        switch (i % 3) {
+        case 0:
+            t = new Todo("todo café " + i);
+            break;
+        case 1:
+            t = new Deadline("deadline " + i, LocalDate.of(2025, 1, 1).plusDays(i));
+            break;
+        default:
+            t = new Event("event " + i, "Mon " + i, "Tue " + i);
+        }
+        if (i % 5 == 0) {
+            t.markAsDone();
+        }
+        return t;
+    }
+
+    @Test
+    void packedList_matchesArrayListThroughMutations() {
+        TaskList packed = TaskList.packed();
+        List<Task> reference = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            Task t = sampleTask(i);
+            packed.add(t);
+            reference.add(sampleTask(i));
+        }
+
+        // Removals straddle 64-bit word boundaries of the done bitset.
+        for (int index : new int[] {0, 63, 64, 130, 200, 1}) {
+            packed.remove(index);
+            reference.remove(index);
+        }
+        packed.markAsDone(70);
+        reference.get(70).markAsDone();
+        packed.markAsNotDone(4);
+        reference.get(4).markAsNotDone();
+        int deadline = reference.get(2) instanceof Deadline ? 2 : 3;
+        packed.reschedule(deadline, LocalDate.of(2030, 5, 5));
+        Deadline d = (Deadline) reference.get(deadline);
+        d.reschedule(LocalDate.of(2030, 5, 5));
+
+        assertEquals(reference.size(), packed.size());
+        for (int i = 0; i < reference.size(); i++) {
+            assertEquals(reference.get(i).toString(), packed.get(i).toString(), "index " + i);
+        }
+    }
+
+    @Test
+    void removeMany_compactsArenaAndKeepsText() {
+        TaskList packed = TaskList.packed();
+        for (int i = 0; i < 2000; i++) {
+            packed.add(new Todo("a fairly long description to fill the arena " + i));
+        }
+        while (packed.size() > 10) {
+            packed.remove(0);
+        }
+        assertEquals("[T][ ] a fairly long description to fill the arena 1990", packed.get(0).toString());
+    }
+}
@@ -4,10 +4,14 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 public class ParserTest {
 
@@ -96,4 +100,60 @@ public class ParserTest {
         HhvrfnException ex = assertThrows(HhvrfnException.class, () -> Parser.process("delete 1", tl, ui, st));
         assertTrue(ex.getMessage().toLowerCase().contains("empty"));
     }
+
+    @Test
+    void undoRedo_revertsWholeCommandsAndPersists() throws Exception {
+        TaskList tl = new TaskList();
+        StubUi ui = new StubUi();
+        StubStorage st = new StubStorage();
+
+        Parser.process("todo a", tl, ui, st);
+        Parser.process("todo b", tl, ui, st);
+        Parser.process("mark 1", tl, ui, st);
+        Parser.process("delete 2", tl, ui, st);
+
+        Parser.process("undo", tl, ui, st);
+        assertEquals(2, tl.size());
+        assertEquals("[T][ ] b", tl.get(1).toString());
+
+        Parser.process("undo", tl, ui, st);
+        assertEquals("[T][ ] a", tl.get(0).toString());
+
+        Parser.process("redo", tl, ui, st);
+        assertEquals("[T][X] a", tl.get(0).toString());
+        assertEquals(7, st.getSaves());
+
+        Parser.process("todo c", tl, ui, st);
+        assertThrows(HhvrfnException.class, () -> Parser.process("redo", tl, ui, st));
+    }
+
+    @Test
+    void undo_afterLoadingFromStorage_hasNothingToUndo(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("tasks.txt");
+        Files.write(file, List.of("T | 0 | loaded"), StandardCharsets.UTF_8);
+        Storage st = new Storage(file.toString());
+        TaskList tl = new TaskList();
+        st.loadInto(tl);
+
+        assertThrows(HhvrfnException.class, () -> Parser.process("undo", tl, new StubUi(), st));
+        assertEquals(1, tl.size());
+    }
+
+    @Test
+    void multiCommandLine_runsInOrderAndSavesOnce() throws Exception {
+        TaskList tl = new TaskList();
+        StubUi ui = new StubUi();
+        StubStorage st = new StubStorage();
+
+        Parser.process("todo milk\\; eggs ; todo bread; mark 7; mark 1;;", tl, ui, st);
+
+        assertEquals(2, tl.size());
+        assertEquals("[T][X] milk; eggs", tl.get(0).toString());
+        assertEquals(4, ui.getLines().size());
+        assertTrue(ui.getLines().get(2).startsWith("error:"));
+        assertEquals(1, st.getSaves());
+
+        Parser.process("list; find milk", tl, ui, st);
+        assertEquals(1, st.getSaves());
+    }
 }
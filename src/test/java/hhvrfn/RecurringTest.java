@@ -0,0 +1,57 @@
+package hhvrfn;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.time.Period;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class RecurringTest {
+    private static final LocalDate START = LocalDate.of(2026, 1, 31);
+
+    @Test
+    void occurrencesBetween_computesDatesFromTheRule() {
+        Recurring monthly = new Recurring("rent", START, Period.ofMonths(1), null);
+        assertEquals(List.of(LocalDate.of(2026, 2, 28), LocalDate.of(2026, 3, 31)),
+                monthly.occurrencesBetween(LocalDate.of(2026, 2, 1), LocalDate.of(2026, 4, 29)));
+
+        Recurring biweekly = new Recurring("plants", START, Period.ofWeeks(2), LocalDate.of(2026, 3, 1));
+        assertEquals(List.of(LocalDate.of(2026, 2, 14), LocalDate.of(2026, 2, 28)),
+                biweekly.occurrencesBetween(LocalDate.of(2026, 2, 1), LocalDate.of(2099, 1, 1)));
+        assertEquals(Period.ofDays(3), Recurring.parseEvery("3 days"));
+        assertNull(Recurring.parseEvery("fortnightly"));
+    }
+
+    @Test
+    void markAndUnmark_completeOccurrencesAndUndo() {
+        TaskList list = new TaskList();
+        list.add(new Recurring("stand-up", START, Period.ofDays(1), START.plusDays(1)));
+
+        list.beginChange("mark 1");
+        assertEquals(START.plusDays(1), list.markAsDone(0).getDueDate());
+        list.beginChange("mark 1");
+        assertTrue(list.markAsDone(0).isDone);
+        assertTrue(list.get(0).toString().contains("all done"));
+        list.undo();
+        assertEquals(START.plusDays(1), list.get(0).getDueDate());
+        assertEquals(START, ((Recurring) list.markAsNotDone(0)).nextPending());
+    }
+
+    @Test
+    void storage_roundTripsRuleInBothStores() {
+        Recurring r = new Recurring("pay rent", START, Period.ofMonths(3), LocalDate.of(2027, 1, 1))
+                .withNextCompleted().withNextCompleted();
+        String line = Storage.serialize(r);
+        assertEquals(line, Storage.serialize(Storage.parseLine(line)));
+
+        TaskList packed = TaskList.packed();
+        packed.add(new Todo("x"), r);
+        packed.markAsDone(1);
+        assertEquals(LocalDate.of(2026, 10, 31), packed.get(1).getDueDate());
+        assertEquals(List.of(1), packed.findOccurrencesOn(LocalDate.of(2026, 7, 31)));
+    }
+}
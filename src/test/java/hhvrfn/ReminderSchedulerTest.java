@@ -0,0 +1,77 @@
+package hhvrfn;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class ReminderSchedulerTest {
+    private static final LocalDate DAY = LocalDate.of(2026, 3, 10);
+
+    @Test
+    void pollDue_warnsBeforeAndAfterDeadlineOnce() {
+        TaskList list = new TaskList();
+        list.add(new Todo("no reminder"), new Deadline("report", DAY), new Deadline("later", DAY.plusDays(30)));
+        ReminderScheduler scheduler = new ReminderScheduler("main");
+        list.addListener(scheduler);
+
+        assertTrue(scheduler.pollDue(DAY.minusDays(2)).isEmpty());
+        List<ReminderScheduler.Reminder> soon = scheduler.pollDue(DAY.minusDays(1));
+        assertEquals(1, soon.size());
+        assertFalse(soon.get(0).isOverdue());
+        assertTrue(scheduler.pollDue(DAY).isEmpty());
+
+        List<ReminderScheduler.Reminder> late = scheduler.pollDue(DAY.plusDays(1));
+        assertEquals(1, late.size());
+        assertTrue(late.get(0).isOverdue());
+        assertEquals(DAY.plusDays(29), scheduler.nextFireDate());
+    }
+
+    @Test
+    void markAndSnooze_requeueTheTask() {
+        TaskList list = new TaskList();
+        list.add(new Deadline("a", DAY), new Deadline("b", DAY));
+        ReminderScheduler scheduler = new ReminderScheduler("main");
+        list.addListener(scheduler);
+
+        list.markAsDone(0);
+        list.reschedule(1, DAY.plusDays(10));
+        assertTrue(scheduler.pollDue(DAY.plusDays(5)).isEmpty());
+
+        list.add(new Deadline("c", DAY));
+        list.remove(0);
+        List<ReminderScheduler.Reminder> due = scheduler.pollDue(DAY.plusDays(5));
+        assertEquals(1, due.size());
+        assertEquals("c", due.get(0).getTask().description);
+
+        list.remove(1);
+        list.remove(0);
+        scheduler.pollDue(DAY.plusDays(100));
+        assertNull(scheduler.nextFireDate());
+    }
+
+    @Test
+    void updatesKeepingTheDeadline_doNotRepeatReminders() {
+        TaskList list = new TaskList();
+        list.add(new Deadline("pay rent", DAY));
+        ReminderScheduler scheduler = new ReminderScheduler("main");
+        list.addListener(scheduler);
+        assertEquals(1, scheduler.pollDue(DAY.plusDays(1)).size());
+
+        list.beginChange("priority 1 2");
+        list.setPriority(0, 2);
+        list.undo();
+        list.redo();
+        assertTrue(scheduler.pollDue(DAY.plusDays(1)).isEmpty());
+
+        list.reschedule(0, DAY.plusDays(10));
+        List<ReminderScheduler.Reminder> due = scheduler.pollDue(DAY.plusDays(9));
+        assertEquals(1, due.size());
+        assertEquals(2, due.get(0).getTask().priority);
+    }
+}
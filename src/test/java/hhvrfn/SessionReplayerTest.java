@@ -0,0 +1,115 @@
+package hhvrfn;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class SessionReplayerTest {
+    @TempDir
+    Path dir;
+
+    @BeforeEach
+    void disableWatcher() {
+        System.setProperty(Storage.WATCH_PROPERTY, "false");
+    }
+
+    @AfterEach
+    void restoreProperties() {
+        System.clearProperty(Storage.WATCH_PROPERTY);
+        System.clearProperty(Hhvrfn.RECORD_PROPERTY);
+    }
+
+    @Test
+    void recordedSession_replaysWithTheSameOutputFromTheSameStart() throws Exception {
+        Path seed = dir.resolve("seed.txt");
+        Files.write(seed, List.of("T | 0 | read book", "D | 0 | return book | 2026-06-06"), StandardCharsets.UTF_8);
+        Path live = dir.resolve("live").resolve("hhvrfn.txt");
+        Files.createDirectories(live.getParent());
+        Files.copy(seed, live);
+        Path recording = dir.resolve("session.txt");
+        System.setProperty(Hhvrfn.RECORD_PROPERTY, recording.toString());
+
+        InputStream stdin = System.in;
+        System.setIn(new ByteArrayInputStream("todo water plants\nmark 1\nlist\nfind book\nbogus\nbye\n"
+                .getBytes(StandardCharsets.UTF_8)));
+        try {
+            SessionRecorder.capture(() -> new Hhvrfn(live.toString()).run(), false);
+        } finally {
+            System.setIn(stdin);
+        }
+
+        SessionReplayer replayer = new SessionReplayer(recording);
+        assertEquals(5, replayer.getSteps().size());
+        assertEquals(0, replayer.replay(seed, false));
+        // The live file already holds the session's changes, so replaying on it comes out differently.
+        assertTrue(replayer.replay(live, false) > 0);
+
+        ByteArrayOutputStream report = new ByteArrayOutputStream();
+        replayer.report(new PrintStream(report, true, StandardCharsets.UTF_8));
+        String text = report.toString(StandardCharsets.UTF_8);
+        assertTrue(text.contains("Output of step 1 (todo water plants) differs:"), text);
+        assertTrue(text.contains("  -  Now you have 3 tasks in the list."), text);
+        assertTrue(text.contains("  +  Now you have 4 tasks in the list."), text);
+    }
+
+    @Test
+    void replay_copiesTheOtherListsAndTheArchive() throws Exception {
+        Path seed = dir.resolve("seed").resolve("hhvrfn.txt");
+        Files.createDirectories(seed.getParent());
+        Files.write(seed, List.of("T | 0 | read book", "T | 1 | old report | d=2026-01-01"), StandardCharsets.UTF_8);
+        Files.write(seed.resolveSibling("work.txt"), List.of("T | 0 | write report"), StandardCharsets.UTF_8);
+        Storage storage = new Storage(seed.toString());
+        TaskList list = new TaskList();
+        storage.loadInto(list);
+        storage.archive(list, LocalDate.of(2026, 1, 1));
+        storage.save(list);
+        Path live = dir.resolve("live").resolve("hhvrfn.txt");
+        Files.createDirectories(live.getParent());
+        try (Stream<Path> files = Files.list(seed.getParent())) {
+            for (Path f : files.toArray(Path[]::new)) {
+                Files.copy(f, live.resolveSibling(f.getFileName()));
+            }
+        }
+        Path recording = dir.resolve("session.txt");
+        System.setProperty(Hhvrfn.RECORD_PROPERTY, recording.toString());
+
+        InputStream stdin = System.in;
+        System.setIn(new ByteArrayInputStream("find --all report\nlists\nswitch work\nlist\nbye\n"
+                .getBytes(StandardCharsets.UTF_8)));
+        try {
+            SessionRecorder.capture(() -> new Hhvrfn(live.toString()).run(), false);
+        } finally {
+            System.setIn(stdin);
+        }
+
+        SessionReplayer replayer = new SessionReplayer(recording);
+        assertEquals(4, replayer.getSteps().size());
+        assertEquals(0, replayer.replay(seed, false));
+        assertEquals(List.of("T | 0 | write report"), Files.readAllLines(seed.resolveSibling("work.txt")));
+    }
+
+    @Test
+    void percentile_usesTheNearestRank() {
+        long[] samples = {9, 1, 5, 3, 7, 2, 8, 4, 6, 10};
+        assertEquals(5, SessionReplayer.percentile(samples, 50));
+        assertEquals(9, SessionReplayer.percentile(samples, 90));
+        assertEquals(10, SessionReplayer.percentile(samples, 99));
+        assertEquals(1, SessionReplayer.percentile(samples, 1));
+        assertEquals(0, SessionReplayer.percentile(new long[0], 50));
+    }
+}
@@ -0,0 +1,114 @@
+package hhvrfn;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+public class SortedViewTest {
+    private static final LocalDate DAY = LocalDate.of(2026, 3, 10);
+
+    @Test
+    void sortedOrder_byDate_putsUndatedLastAndKeepsTiesInListOrder() {
+        TaskList list = new TaskList();
+        list.add(new Todo("a"), new Deadline("b", DAY.plusDays(2)), new Event("c", "2026-03-09", "2026-03-11"),
+                new Deadline("d", DAY.plusDays(2)));
+        assertArrayEquals(new int[] {2, 1, 3, 0}, list.sortedOrder(SortedView.Key.DATE));
+    }
+
+    @Test
+    void sortedOrder_staysEqualToAFullSortUnderRandomChanges() {
+        Random random = new Random(7);
+        TaskList list = new TaskList();
+        for (int i = 0; i < 200; i++) {
+            list.add(randomTask(random));
+        }
+        for (SortedView.Key key : SortedView.Key.values()) {
+            list.sortedOrder(key);
+        }
+        for (int step = 0; step < 500; step++) {
+            if (list.isEmpty()) {
+                list.add(randomTask(random));
+            }
+            int index = random.nextInt(list.size());
+            switch (random.nextInt(5)) {
+            case 0:
+                list.remove(index);
+                break;
+            case 1:
+                list.markAsDone(index);
+                break;
+            case 2:
+                if (list.get(index) instanceof Deadline) {
+                    list.reschedule(index, DAY.plusDays(random.nextInt(30)));
+                }
+                break;
+            case 3:
+                list.undo();
+                break;
+            default:
+                list.add(randomTask(random));
+                break;
+            }
+            for (SortedView.Key key : SortedView.Key.values()) {
+                assertArrayEquals(fullSort(list, key), list.sortedOrder(key), key + " after step " + step);
+            }
+        }
+    }
+
+    @Test
+    void sortedOrder_matchesAFullSortAfterReplacingTheTail() {
+        Random random = new Random(11);
+        TaskList list = new TaskList();
+        for (int i = 0; i < 200; i++) {
+            list.add(randomTask(random));
+        }
+        for (SortedView.Key key : SortedView.Key.values()) {
+            list.sortedOrder(key);
+        }
+        List<Task> tail = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            tail.add(randomTask(random));
+        }
+        list.replaceFrom(50, tail);
+        list.remove(list.size() - 1);
+
+        for (SortedView.Key key : SortedView.Key.values()) {
+            assertArrayEquals(fullSort(list, key), list.sortedOrder(key), key.toString());
+        }
+    }
+
+    private static Task randomTask(Random random) {
+        String description = "task " + (char) ('a' + random.nextInt(26));
+        return random.nextBoolean()
+                ? new Todo(description)
+                : new Deadline(description, DAY.plusDays(random.nextInt(30)));
+    }
+
+    private static int[] fullSort(TaskList list, SortedView.Key key) {
+        Comparator<Integer> byKey;
+        switch (key) {
+        case DATE:
+            byKey = Comparator.comparing(i -> list.get(i).getDueDate(),
+                    Comparator.nullsLast(Comparator.naturalOrder()));
+            break;
+        case TYPE:
+            byKey = Comparator.comparing(i -> list.get(i).getType());
+            break;
+        case STATUS:
+            byKey = Comparator.comparing(i -> list.get(i).isDone);
+            break;
+        default:
+            byKey = Comparator.comparing(i -> list.get(i).description.toLowerCase());
+            break;
+        }
+        return IntStream.range(0, list.size()).boxed().sorted(byKey.thenComparing(i -> i))
+                .mapToInt(Integer::intValue).toArray();
+    }
+}
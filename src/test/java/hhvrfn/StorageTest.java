@@ -0,0 +1,207 @@
+package hhvrfn;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class StorageTest {
+
+    @TempDir
+    Path dir;
+
+    @BeforeEach
+    void disableWatcher() {
+        System.setProperty(Storage.WATCH_PROPERTY, "false");
+    }
+
+    @AfterEach
+    void restoreWatcher() {
+        System.clearProperty(Storage.WATCH_PROPERTY);
+    }
+
+    @Test
+    void save_afterConcurrentWrite_mergesBothSides() throws Exception {
+        String file = dir.resolve("tasks.txt").toString();
+        Files.write(dir.resolve("tasks.txt"), List.of("T | 0 | a", "T | 0 | b"), StandardCharsets.UTF_8);
+        Storage mine = new Storage(file);
+        Storage theirs = new Storage(file);
+        TaskList myList = new TaskList();
+        TaskList theirList = new TaskList();
+        mine.loadInto(myList);
+        theirs.loadInto(theirList);
+
+        theirList.add(new Todo("c"));
+        theirs.save(theirList.asList());
+        myList.markAsDone(1);
+        mine.save(myList.asList());
+
+        assertEquals(List.of("T | 0 | a", "T | 1 | b | d=" + LocalDate.now(), "T | 0 | c"),
+                Files.readAllLines(dir.resolve("tasks.txt"), StandardCharsets.UTF_8));
+        assertTrue(mine.applyMerge(myList));
+        assertEquals(3, myList.size());
+        assertEquals("c", myList.get(2).description);
+        assertFalse(mine.applyMerge(myList));
+    }
+
+    @Test
+    void refresh_readsAppendedLinesAndRewrites() throws Exception {
+        Path path = dir.resolve("tasks.txt");
+        Files.write(path, List.of("T | 0 | a"), StandardCharsets.UTF_8);
+        Storage storage = new Storage(path.toString());
+        TaskList list = new TaskList();
+        storage.loadInto(list);
+        assertFalse(storage.refresh(list));
+
+        Files.write(path, List.of("D | 0 | b | 2025-01-01"), StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+        assertTrue(storage.refresh(list));
+        assertEquals(2, list.size());
+        assertEquals("b", list.get(1).description);
+
+        Files.write(path, List.of("T | 1 | a"), StandardCharsets.UTF_8);
+        assertTrue(storage.refresh(list));
+        assertEquals(1, list.size());
+        assertTrue(list.get(0).isDone);
+    }
+
+    @Test
+    void save_rewritesOnlyTheSegmentsThatChanged() throws Exception {
+        Path path = dir.resolve("tasks.txt");
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 5 * Storage.SEGMENT_TASKS - 100; i++) {
+            lines.add("T | 0 | task " + i);
+        }
+        Files.write(path, lines, StandardCharsets.UTF_8);
+        Storage storage = new Storage(path.toString());
+        TaskList list = new TaskList();
+        storage.loadInto(list);
+
+        // The unsegmented file is written once as a whole, after that only what changed.
+        storage.save(list);
+        assertEquals(5, storage.getLastSegmentWrites());
+        long size = Files.size(path);
+        list.markAsDone(3000);
+        storage.save(list);
+        assertEquals(1, storage.getLastSegmentWrites());
+        assertEquals(size, Files.size(path));
+        list.add(new Todo("appended"));
+        storage.save(list);
+        assertEquals(1, storage.getLastSegmentWrites());
+        list.remove(1500);
+        storage.save(list);
+        assertEquals(4, storage.getLastSegmentWrites());
+        // Outgrowing the first slot moves every segment after it.
+        for (int i = 0; i < Storage.SEGMENT_TASKS; i++) {
+            list.setPriority(i, 3);
+        }
+        storage.save(list);
+        assertEquals(5, storage.getLastSegmentWrites());
+
+        // A fresh load recognises the segments again and reads the same tasks.
+        Storage again = new Storage(path.toString());
+        TaskList reloaded = new TaskList();
+        again.loadInto(reloaded);
+        assertEquals(serializeAll(list), serializeAll(reloaded));
+        reloaded.markAsNotDone(2999);
+        again.save(reloaded);
+        assertEquals(1, again.getLastSegmentWrites());
+    }
+
+    @Test
+    void save_mergesASameSizeRewriteItCannotSeeInSizeOrTime() throws Exception {
+        Path path = dir.resolve("tasks.txt");
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 2 * Storage.SEGMENT_TASKS; i++) {
+            lines.add("T | 0 | task " + (1000 + i));
+        }
+        Files.write(path, lines, StandardCharsets.UTF_8);
+        Storage storage = new Storage(path.toString());
+        TaskList list = new TaskList();
+        storage.loadInto(list);
+        storage.save(list);
+
+        // Another writer renames a task within the same bytes and the clock does not tick.
+        FileTime modified = Files.getLastModifiedTime(path);
+        String text = Files.readString(path, StandardCharsets.UTF_8);
+        Files.writeString(path, text.replace("task 1005", "task X005"), StandardCharsets.UTF_8);
+        Files.setLastModifiedTime(path, modified);
+
+        list.markAsDone(3);
+        storage.save(list);
+        assertTrue(storage.applyMerge(list));
+        assertEquals("T | 0 | task X005", Storage.serialize(list.get(5)));
+        List<String> saved = Files.readAllLines(path, StandardCharsets.UTF_8);
+        assertEquals("T | 1 | task 1003", saved.get(3).replaceAll(" \\| d=.*", ""));
+        assertEquals("T | 0 | task X005", saved.get(5));
+
+        // The merged file is laid out afresh by the next save; after that only changed slots are written.
+        list.markAsDone(4);
+        storage.save(list);
+        assertFalse(storage.applyMerge(list));
+        assertEquals(2, storage.getLastSegmentWrites());
+        list.markAsDone(6);
+        storage.save(list);
+        assertFalse(storage.applyMerge(list));
+        assertEquals(1, storage.getLastSegmentWrites());
+    }
+
+    @Test
+    void priority_roundTripsAsATrailingField() {
+        String[] lines = {"T | 0 | read | p=2", "D | 1 | pay | 2026-11-01 | p=1", "E | 0 | talk | 2pm | 4pm | p=9",
+            "R | 0 | water | 2026-01-05 | week | - | - | p=3"};
+        for (String line : lines) {
+            Task t = Storage.parseLine(line);
+            assertEquals(line, Storage.serialize(t));
+            assertEquals(line.charAt(line.length() - 1) - '0', t.getPriority());
+        }
+        assertEquals("E | 0 | talk | 2pm | 4pm", Storage.serialize(Storage.parseLine("E | 0 | talk | 2pm to 4pm")));
+        assertEquals(0, Storage.parseLine("T | 0 | read").getPriority());
+    }
+
+    private static List<String> serializeAll(TaskList list) {
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < list.size(); i++) {
+            lines.add(Storage.serialize(list.get(i)));
+        }
+        return lines;
+    }
+
+    @Test
+    void load_sharesOneInstanceForDuplicateStrings() throws Exception {
+        Path file = dir.resolve("tasks.txt");
+        Files.write(file, List.of("T | 0 | water plants", "T | 1 | water plants",
+                "E | 0 | standup | Mon 9am | 9.15am", "E | 0 | retro | Mon 9am | 9.15am"), StandardCharsets.UTF_8);
+
+        List<Task> tasks = new Storage(file.toString()).load();
+
+        assertSame(tasks.get(0).description, tasks.get(1).description);
+        assertSame(((Event) tasks.get(2)).from, ((Event) tasks.get(3)).from);
+        assertSame(((Event) tasks.get(2)).to, ((Event) tasks.get(3)).to);
+    }
+
+    @Test
+    void load_keepsOnlyThePoolCounters() throws Exception {
+        Path file = dir.resolve("tasks.txt");
+        Files.write(file, List.of("T | 0 | a", "T | 0 | a", "T | 0 | b"), StandardCharsets.UTF_8);
+        Storage storage = new Storage(file.toString());
+
+        storage.load();
+
+        assertEquals(1, storage.getLastLoadStats().getHits());
+        assertEquals(2, storage.getLastLoadStats().getDistinct());
+    }
+}
@@ -0,0 +1,152 @@
+package hhvrfn;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.jupiter.api.Test;
+
+public class TagIndexTest {
+    private static final String[] TAGS = {"work", "home", "urgent", "later"};
+
+    @Test
+    void parseTags_findsWordsAfterHashOnly() {
+        assertEquals(List.of("work", "q3-plan"), Task.parseTags("#Work review #q3-plan, not C# or #work"));
+        assertEquals(List.of(), Task.parseTags("issue# 5 and # alone"));
+    }
+
+    @Test
+    void roaringBitmap_matchesASortedSetAcrossArrayAndBitmapChunks() {
+        Random random = new Random(3);
+        RoaringBitmap a = new RoaringBitmap();
+        RoaringBitmap b = new RoaringBitmap();
+        TreeSet<Integer> setA = new TreeSet<>();
+        TreeSet<Integer> setB = new TreeSet<>();
+        for (int i = 0; i < 60_000; i++) {
+            // Dense in the first chunk (bitmaps), sparse further out (arrays).
+            int v = i % 3 == 0 ? random.nextInt(1 << 20) : random.nextInt(1 << 16);
+            assertEquals(setA.add(v), a.add(v));
+            int w = random.nextInt(1 << 17);
+            setB.add(w);
+            b.add(w);
+        }
+        for (int i = 0; i < 50_000; i++) {
+            int v = random.nextInt(1 << 16);
+            assertEquals(setA.remove(v), a.remove(v));
+        }
+        TreeSet<Integer> both = new TreeSet<>(setA);
+        both.retainAll(setB);
+        assertArrayEquals(toArray(both), a.and(b).toArray());
+
+        // Removing position 70,000 from a list moves every later position down by one.
+        a.remove(70_000);
+        a.shift(70_001, -1);
+        TreeSet<Integer> shifted = new TreeSet<>();
+        for (int v : setA) {
+            if (v != 70_000) {
+                shifted.add(v > 70_000 ? v - 1 : v);
+            }
+        }
+        assertArrayEquals(toArray(shifted), a.toArray());
+        assertEquals(shifted.size(), a.cardinality());
+    }
+
+    @Test
+    void positionsTagged_staysEqualToAScanUnderRandomChanges() {
+        Random random = new Random(11);
+        TaskList list = new TaskList();
+        for (int i = 0; i < 300; i++) {
+            list.add(randomTask(random));
+        }
+        list.positionsTagged(List.of("work"));
+        for (int step = 0; step < 600; step++) {
+            if (list.isEmpty()) {
+                list.add(randomTask(random));
+            }
+            int index = random.nextInt(list.size());
+            switch (random.nextInt(4)) {
+            case 0:
+                list.remove(index);
+                break;
+            case 1:
+                list.markAsDone(index);
+                break;
+            case 2:
+                list.undo();
+                break;
+            default:
+                list.add(randomTask(random));
+                break;
+            }
+            List<String> query = List.of(TAGS[random.nextInt(TAGS.length)], TAGS[random.nextInt(TAGS.length)]);
+            assertArrayEquals(scan(list, query), list.positionsTagged(query), query + " after step " + step);
+        }
+    }
+
+    @Test
+    void taskUpdated_movesAPositionOnlyWhenItsTagsChange() {
+        TagIndex index = new TagIndex();
+        index.taskInserted(0, new Todo("a #work"));
+        index.taskInserted(1, new Todo("b #work #home"));
+        index.taskInserted(2, new Todo("c #home"));
+
+        index.taskUpdated(1, new Todo("b #work #home"));
+        assertArrayEquals(new int[] {0, 1}, index.positionsWithAll(List.of("work")));
+        assertArrayEquals(new int[] {1, 2}, index.positionsWithAll(List.of("home")));
+
+        index.taskUpdated(1, new Todo("b #later"));
+        assertArrayEquals(new int[] {0}, index.positionsWithAll(List.of("work")));
+        assertArrayEquals(new int[] {2}, index.positionsWithAll(List.of("home")));
+        assertArrayEquals(new int[] {1}, index.positionsWithAll(List.of("later")));
+
+        index.taskRemoved(0, new Todo("a #work"));
+        assertArrayEquals(new int[0], index.positionsWithAll(List.of("work")));
+        assertArrayEquals(new int[] {0}, index.positionsWithAll(List.of("later")));
+        assertArrayEquals(new int[] {1}, index.positionsWithAll(List.of("home")));
+    }
+
+    @Test
+    void listWithTags_intersectsOverAMillionTasks() {
+        TaskList list = new TaskList();
+        int n = 1_000_000;
+        for (int i = 0; i < n; i++) {
+            String tags = (i % 2 == 0 ? " #even" : "") + (i % 3 == 0 ? " #three" : "")
+                    + (i % 1000 == 0 ? " #rare" : "");
+            list.add(new Todo("task " + i + tags));
+        }
+        list.clearHistory();
+        int[] sixes = list.positionsTagged(List.of("even", "three"));
+        int[] rare = list.positionsTagged(List.of("rare", "even", "three"));
+        assertEquals((n + 5) / 6, sixes.length);
+        assertEquals(6, sixes[1]);
+        assertEquals((n + 2999) / 3000, rare.length);
+    }
+
+    private static Task randomTask(Random random) {
+        StringBuilder description = new StringBuilder("task");
+        for (String tag : TAGS) {
+            if (random.nextInt(3) == 0) {
+                description.append(" #").append(random.nextBoolean() ? tag : tag.toUpperCase());
+            }
+        }
+        return new Todo(description.toString());
+    }
+
+    private static int[] toArray(TreeSet<Integer> set) {
+        return set.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static int[] scan(TaskList list, List<String> tags) {
+        List<Integer> result = new ArrayList<>();
+        for (int i = 0; i < list.size(); i++) {
+            if (list.get(i).getTags().containsAll(tags)) {
+                result.add(i);
+            }
+        }
+        return result.stream().mapToInt(Integer::intValue).toArray();
+    }
+}
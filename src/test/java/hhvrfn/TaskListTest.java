@@ -3,6 +3,8 @@ package hhvrfn;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.time.LocalDate;
+
 import org.junit.jupiter.api.Test;
 
 public class TaskListTest {
@@ -26,4 +28,18 @@ public class TaskListTest {
 
         assertTrue(list.isEmpty());
     }
+
+    @Test
+    void mutations_refreshCachedDisplay() {
+        TaskList list = new TaskList();
+        list.add(new Deadline("Pay Bills", LocalDate.of(2025, 12, 1)));
+        assertEquals("[D][ ] Pay Bills (by: Dec 1 2025)", list.get(0).toString());
+        assertEquals(1, list.findByKeyword("PAY").size());
+
+        list.markAsDone(0);
+        list.reschedule(0, LocalDate.of(2026, 1, 2));
+
+        assertEquals("[D][X] Pay Bills (by: Jan 2 2026)", list.get(0).toString());
+        assertEquals(1, list.findByKeyword("jan 2").size());
+    }
 }
@@ -0,0 +1,71 @@
+package hhvrfn;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class TaskQueryTest {
+
+    private static TaskList sample() {
+        TaskList list = new TaskList();
+        Deadline paid = new Deadline("pay invoice 42", LocalDate.of(2026, 11, 1));
+        paid.markAsDone();
+        list.add(new Deadline("send invoice", LocalDate.of(2026, 11, 15)), paid,
+                new Deadline("file taxes", LocalDate.of(2027, 1, 31)), new Todo("invoices folder cleanup"),
+                new Event("invoice review", "2026-11-20 1400", "2026-11-20 1500"));
+        return list;
+    }
+
+    private static List<Integer> run(TaskList list, String expression) throws HhvrfnException {
+        return list.findMatching(TaskQuery.parse(expression));
+    }
+
+    @Test
+    void findMatching_combinesTerms() throws Exception {
+        TaskList list = sample();
+        assertEquals(List.of(0), run(list, "type:D done:false by<2026-12-01 text:invoice"));
+        assertEquals(List.of(0, 1, 2), run(list, "type:D OR type:E AND text:folder"));
+        assertEquals(List.of(0, 1, 4), run(list, "(type:D OR type:E) AND text:invoice NOT text:folder"));
+        assertEquals(List.of(2, 3), run(list, "NOT (text:invoice AND NOT type:T)"));
+        assertEquals(List.of(1), run(list, "text:\"invoice 42\""));
+        assertEquals(List.of(1, 2), run(list, "by<=2026-11-01 OR by>2026-12-31"));
+    }
+
+    @Test
+    void candidates_useWordIndexOnlyWhenSound() throws Exception {
+        TaskList list = sample();
+        assertArrayEquals(new int[] {0, 1, 3, 4}, TaskQuery.parse("text:nvoic").candidates(list));
+        assertArrayEquals(new int[] {1, 3}, TaskQuery.parse("text:pay OR folder").candidates(list));
+        assertNull(TaskQuery.parse("text:invoice OR done:true").candidates(list));
+        assertNull(TaskQuery.parse("text:\"invoice 42\"").candidates(list));
+    }
+
+    @Test
+    void findMatching_parallelScanKeepsListOrder() throws Exception {
+        ArrayList<Task> many = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            many.add(i % 7 == 0 ? new Deadline("d" + i, LocalDate.of(2026, 1, 1)) : new Todo("t" + i));
+        }
+        List<Integer> found = run(new TaskList(many), "type:D");
+        assertEquals(100_000 / 7 + 1, found.size());
+        for (int i = 0; i < found.size(); i++) {
+            assertEquals(i * 7, found.get(i));
+        }
+    }
+
+    @Test
+    void parse_rejectsMalformedExpressions() {
+        assertThrows(HhvrfnException.class, () -> TaskQuery.parse("type:X"));
+        assertThrows(HhvrfnException.class, () -> TaskQuery.parse("by<tomorrow"));
+        assertThrows(HhvrfnException.class, () -> TaskQuery.parse("(type:D"));
+        assertThrows(HhvrfnException.class, () -> TaskQuery.parse("type:D OR"));
+        assertThrows(HhvrfnException.class, () -> TaskQuery.parse("owner:me"));
+    }
+}
@@ -0,0 +1,54 @@
+package hhvrfn;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDate;
+import java.time.Period;
+
+import org.junit.jupiter.api.Test;
+
+public class TaskStatsTest {
+    private static final LocalDate DAY = LocalDate.of(2026, 3, 10);
+
+    @Test
+    void summary_followsEveryKindOfChange() {
+        TaskList list = new TaskList();
+        list.add(new Todo("read"), new Deadline("late", DAY.minusDays(2)), new Deadline("soon", DAY.plusDays(3)),
+                new Deadline("later", DAY.plusDays(20)));
+        TaskStats.Summary s = list.summary(DAY);
+        assertEquals(4, s.getTotal());
+        assertEquals(3, s.count(TaskType.DEADLINE));
+        assertEquals(1, s.getOverdue());
+        assertEquals(1, s.getDueThisWeek());
+
+        list.markAsDone(1);
+        list.reschedule(3, DAY.plusDays(6));
+        list.add(new Recurring("water", DAY.minusDays(7), Period.ofWeeks(1), null));
+        list.remove(0);
+        s = list.summary(DAY);
+        assertEquals(4, s.getTotal());
+        assertEquals(1, s.getDone());
+        assertEquals(1, s.getOverdue());
+        assertEquals(2, s.getDueThisWeek());
+        assertEquals(TaskStats.recount(list, DAY), s);
+
+        list.undo();
+        list.undo();
+        assertEquals(TaskStats.recount(list, DAY), list.summary(DAY));
+    }
+
+    @Test
+    void summary_rebucketsWhenTheDayChanges() {
+        TaskList list = new TaskList();
+        for (int i = -10; i <= 30; i++) {
+            list.add(new Deadline("d" + i, DAY.plusDays(i)));
+        }
+        list.summary(DAY);
+        for (LocalDate d : new LocalDate[] {DAY.plusDays(1), DAY.plusDays(12), DAY.plusDays(100), DAY.minusDays(3)}) {
+            TaskStats.Summary s = list.summary(d);
+            assertEquals(TaskStats.recount(list, d), s);
+        }
+        assertEquals(7, list.summary(DAY.minusDays(3)).getOverdue());
+        assertEquals(7, list.summary(DAY.minusDays(3)).getDueThisWeek());
+    }
+}
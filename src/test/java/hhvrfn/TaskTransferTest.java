@@ -0,0 +1,96 @@
+package hhvrfn;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.Period;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class TaskTransferTest {
+
+    @TempDir
+    Path dir;
+
+    private static TaskList sample() {
+        TaskList list = new TaskList();
+        Todo todo = new Todo("read book, chapter \"one\"");
+        todo.markAsDone();
+        todo.doneOn = LocalDate.of(2025, 11, 3);
+        Deadline bills = new Deadline("pay bills", LocalDate.of(2025, 12, 1));
+        bills.setPriority(2);
+        list.add(todo, bills, new Event("sync", "Mon 2pm", "4pm"));
+        return list;
+    }
+
+    @Test
+    void exportThenImport_roundTripsEveryFormat() throws Exception {
+        for (TaskTransfer.Format format : TaskTransfer.Format.values()) {
+            Path file = dir.resolve("out." + format.name().toLowerCase());
+            TaskList source = sample();
+            source.add(new Recurring("rent, flat", LocalDate.of(2025, 1, 1), Period.ofMonths(1),
+                    LocalDate.of(2025, 6, 1)).withNextCompleted());
+            assertEquals(4, TaskTransfer.exportTo(file, format, source));
+
+            TaskList target = new TaskList();
+            TaskTransfer.ImportResult result = TaskTransfer.importFrom(file, target);
+
+            assertEquals(4, result.getAdded(), format.name());
+            for (int i = 0; i < source.size(); i++) {
+                assertEquals(source.get(i).toString(), target.get(i).toString(), format.name());
+            }
+            assertEquals(((Recurring) source.get(3)).encodeRule(), ((Recurring) target.get(3)).encodeRule(),
+                    format.name());
+            for (int i = 0; i < source.size(); i++) {
+                assertEquals(source.get(i).getPriority(), target.get(i).getPriority(), format.name());
+                assertEquals(source.get(i).getDoneOn(), target.get(i).getDoneOn(), format.name());
+            }
+        }
+    }
+
+    @Test
+    void import_skipsDuplicatesAndInvalidRecords() throws Exception {
+        Path file = dir.resolve("in.csv");
+        Files.write(file, List.of(
+                "type,done,description,by,from,to",
+                "T,0,\"read book, chapter \"\"one\"\"\",,,",
+                "D,0,pay bills,2025-12-01,,",
+                "D,0,pay bills,not-a-date,,",
+                "X,0,unknown type,,,",
+                "T,1,new task,,,"), StandardCharsets.UTF_8);
+
+        TaskList list = sample();
+        TaskTransfer.ImportResult result = TaskTransfer.importFrom(file, list);
+
+        assertEquals(1, result.getAdded());
+        assertEquals(2, result.getDuplicates());
+        assertEquals(2, result.getInvalid());
+        assertEquals(4, list.size());
+    }
+
+    @Test
+    void import_findsDuplicatesAcrossManyTasks() throws Exception {
+        TaskList list = new TaskList();
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            list.add(new Todo("existing " + i));
+            lines.add("T | 0 | imported " + i);
+            lines.add("T | 0 | existing " + (i * 7 % 500));
+            lines.add("T | 0 | imported " + i);
+        }
+        Path file = dir.resolve("many.txt");
+        Files.write(file, lines, StandardCharsets.UTF_8);
+
+        TaskTransfer.ImportResult result = TaskTransfer.importFrom(file, list);
+
+        assertEquals(500, result.getAdded());
+        assertEquals(1000, result.getDuplicates());
+        assertEquals(1000, list.size());
+    }
+}
@@ -0,0 +1,65 @@
+package hhvrfn;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.ref.WeakReference;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class WorkspaceTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void switch_keepsListsIndependentAndListsThem() throws Exception {
+        Workspace ws = new Workspace(dir.resolve("hhvrfn.txt").toString(), Long.MAX_VALUE);
+        ws.loadCurrent();
+        Parser.process("todo default task", ws, new ParserTest.StubUi());
+
+        ws.switchTo("work");
+        Parser.process("todo work task", ws, new ParserTest.StubUi());
+        Parser.process("todo another", ws, new ParserTest.StubUi());
+
+        assertEquals(2, ws.currentTasks().size());
+        assertEquals(1, ws.switchTo("hhvrfn").size());
+        assertEquals(List.of("hhvrfn", "work"), List.copyOf(ws.listNames()));
+        assertThrows(HhvrfnException.class, () -> ws.switchTo("../etc"));
+    }
+
+    @Test
+    void overBudget_evictsLeastRecentlyUsedAfterFlushing() throws Exception {
+        Workspace ws = new Workspace(dir.resolve("hhvrfn.txt").toString(), 1);
+        ws.loadCurrent();
+        ws.switchTo("a");
+        Parser.process("todo kept on disk", ws, new ParserTest.StubUi());
+        ws.switchTo("b");
+
+        assertFalse(ws.isLoaded("a"));
+        assertTrue(ws.isLoaded("b"));
+        assertEquals("[T][ ] kept on disk", ws.switchTo("a").get(0).toString());
+    }
+
+    @Test
+    void overBudget_evictedListCanBeCollected() throws Exception {
+        Workspace ws = new Workspace(dir.resolve("hhvrfn.txt").toString(), 1);
+        ws.loadCurrent();
+        WeakReference<TaskList> evicted = new WeakReference<>(ws.switchTo("a"));
+        Parser.process("todo kept on disk", ws, new ParserTest.StubUi());
+        ws.switchTo("b");
+
+        for (int i = 0; i < 50 && evicted.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertNull(evicted.get());
+        ws.close();
+    }
+}